@@ -0,0 +1,51 @@
+package com.example.banking.cache;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Cache of committed account balances, keyed by account number.
+ *
+ * <p>Entries carry the {@code @Version} of the account row they were read
+ * from, and an implementation must never replace an entry with an older
+ * version. This lets readers populate the cache on a miss without racing
+ * the write path, which publishes new balances only after its transaction
+ * has committed.</p>
+ *
+ * <p>The default implementation is {@link LocalBalanceCache}. A distributed
+ * implementation can be plugged in by setting {@code app.balance.cache.provider}
+ * to another value and registering a bean of this type.</p>
+ */
+public interface BalanceCache {
+
+    /**
+     * Returns the cached balance of an account.
+     *
+     * @param accountNumber the unique account number
+     * @return the cached balance, or empty on a miss
+     */
+    Optional<BigDecimal> get(String accountNumber);
+
+    /**
+     * Stores a committed balance unless a newer version is already cached.
+     *
+     * @param accountNumber the unique account number
+     * @param balance       the committed balance
+     * @param version       the version of the account row the balance belongs to
+     */
+    void put(String accountNumber, BigDecimal balance, long version);
+
+    /**
+     * Removes the cached balance of an account.
+     *
+     * @param accountNumber the unique account number
+     */
+    void evict(String accountNumber);
+
+    /**
+     * Returns hit, miss and eviction counters for monitoring.
+     *
+     * @return a snapshot of the cache statistics
+     */
+    BalanceCacheStats stats();
+}
@@ -0,0 +1,80 @@
+package com.example.banking.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * In-process {@link BalanceCache} backed by Caffeine.
+ *
+ * <p>The cache is bounded by {@code app.balance.cache.max-size} entries and
+ * every entry expires {@code app.balance.cache.ttl-seconds} after it was
+ * written, which also bounds how long a balance changed outside the
+ * application (e.g. by a manual SQL fix) can be served stale. Its statistics
+ * are published as the {@code cache.*} meters with {@code cache=balance}.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "app.balance.cache.provider", havingValue = "local", matchIfMissing = true)
+@Slf4j
+public class LocalBalanceCache implements BalanceCache, MeterBinder {
+
+    private record Entry(BigDecimal balance, long version) {
+    }
+
+    private final Cache<String, Entry> cache;
+
+    public LocalBalanceCache(@Value("${app.balance.cache.max-size:100000}") long maxSize,
+                             @Value("${app.balance.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        log.info("Local balance cache initialized: maxSize={}, ttlSeconds={}", maxSize, ttlSeconds);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "balance");
+    }
+
+    @Override
+    public Optional<BigDecimal> get(String accountNumber) {
+        Entry entry = cache.getIfPresent(accountNumber);
+        return entry != null ? Optional.of(entry.balance()) : Optional.empty();
+    }
+
+    @Override
+    public void put(String accountNumber, BigDecimal balance, long version) {
+        cache.asMap().compute(accountNumber, (key, current) ->
+                current != null && current.version() >= version ? current : new Entry(balance, version));
+    }
+
+    @Override
+    public void evict(String accountNumber) {
+        cache.invalidate(accountNumber);
+    }
+
+    @Override
+    public BalanceCacheStats stats() {
+        CacheStats stats = cache.stats();
+        return BalanceCacheStats.builder()
+                .size(cache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+}
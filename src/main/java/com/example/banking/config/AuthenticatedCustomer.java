@@ -0,0 +1,25 @@
+package com.example.banking.config;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Spring Security principal of an authenticated customer.
+ *
+ * <p>Carries the customer ID next to the username and roles, so that it can
+ * be built either from the database or from the claims of a verified JWT.</p>
+ */
+@Getter
+public class AuthenticatedCustomer extends User {
+
+    private final Long customerId;
+
+    public AuthenticatedCustomer(Long customerId, String username, String password,
+                                 Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.customerId = customerId;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.banking.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Application meters that are not derived from annotations or auto-configuration.
+ *
+ * <p>Service methods are timed with {@code @Timed(BankingMetrics.SERVICE_TIMER)},
+ * tagged with their class and method. Requests that are refused for a
+ * business reason, e.g. an insufficient balance, are counted in
+ * {@value #REJECTIONS} with a {@code reason} tag, which is finer than the
+ * timers' {@code exception} tag, e.g. {@code BusinessRuleException}.</p>
+ */
+@Component
+public class BankingMetrics {
+
+    public static final String SERVICE_TIMER = "banking.service";
+    public static final String REJECTIONS = "banking.rejections";
+
+    public static final String INSUFFICIENT_BALANCE = "insufficient_balance";
+    public static final String ACCOUNT_NOT_FOUND = "account_not_found";
+    public static final String INVALID_ACCOUNT_NUMBER = "invalid_account_number";
+    public static final String ACCOUNT_BUSY = "account_busy";
+    public static final String LEDGER_BUSY = "ledger_busy";
+    public static final String INVALID_CREDENTIALS = "invalid_credentials";
+    public static final String LOGIN_BUSY = "login_busy";
+
+    private final MeterRegistry registry;
+
+    public BankingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Counts one rejected request.
+     *
+     * @param reason one of the reason constants of this class
+     */
+    public void rejected(String reason) {
+        registry.counter(REJECTIONS, "reason", reason).increment();
+    }
+}
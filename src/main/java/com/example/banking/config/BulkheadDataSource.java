@@ -0,0 +1,108 @@
+package com.example.banking.config;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link DataSource} that bounds how many callers may hold or wait for a
+ * connection at the same time.
+ *
+ * <p>A permit is taken before a connection is requested from the pool and
+ * returned when that connection is closed. Once all permits are in use,
+ * further callers are rejected immediately with a
+ * {@link SQLTransientConnectionException} instead of queueing inside the pool
+ * until its connection timeout, which keeps an unbounded number of virtual
+ * threads from piling up behind a fixed number of connections.</p>
+ */
+final class BulkheadDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    static final String BUSY_MESSAGE = "Database is busy, please retry";
+
+    private final Semaphore permits;
+
+    BulkheadDataSource(DataSource target, int permits) {
+        super(target);
+        this.permits = new Semaphore(permits);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return guard(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return guard(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * @return the number of callers that can still obtain a connection without being rejected
+     */
+    int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * Closes the wrapped pool on shutdown, since the container only sees this wrapper.
+     */
+    @Override
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable pool) {
+            pool.close();
+        }
+    }
+
+    private void acquire() throws SQLException {
+        if (!permits.tryAcquire()) {
+            throw new SQLTransientConnectionException(BUSY_MESSAGE);
+        }
+    }
+
+    /**
+     * Wraps a pooled connection so that closing it returns the permit exactly once.
+     */
+    private Connection guard(Connection target) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getTargetConnection" -> target;
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "Bulkhead proxy for " + target;
+                    default -> {
+                        try {
+                            yield method.invoke(target, args);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getTargetException();
+                        } finally {
+                            if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                    }
+                });
+    }
+}
@@ -4,7 +4,6 @@ import com.example.banking.entity.Customer;
 import com.example.banking.repository.CustomerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -37,7 +36,8 @@ public class CustomUserDetailsService implements UserDetailsService {
         Customer customer = customerRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-        return new User(
+        return new AuthenticatedCustomer(
+                customer.getId(),
                 customer.getUsername(),
                 customer.getPassword(),
                 customer.getRoles().stream()
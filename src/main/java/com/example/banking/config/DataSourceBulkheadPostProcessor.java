@@ -0,0 +1,49 @@
+package com.example.banking.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application {@link DataSource} in a {@link BulkheadDataSource}
+ * when {@code app.datasource.bulkhead.enabled} is set, which it is by default
+ * whenever virtual threads are enabled.
+ *
+ * <p>With virtual threads the number of concurrent requests is no longer
+ * bounded by the Tomcat thread pool, so the connection pool becomes the only
+ * limit on database concurrency. The bulkhead allows the pool size plus
+ * {@code app.datasource.bulkhead.max-waiting} callers at a time; the pool
+ * itself should keep a fixed size ({@code minimum-idle} equal to
+ * {@code maximum-pool-size}) and a short {@code connection-timeout}.</p>
+ */
+@Component
+public class DataSourceBulkheadPostProcessor implements BeanPostProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceBulkheadPostProcessor.class);
+
+    private final boolean enabled;
+
+    private final int maxWaiting;
+
+    public DataSourceBulkheadPostProcessor(@Value("${app.datasource.bulkhead.enabled:false}") boolean enabled,
+                                           @Value("${app.datasource.bulkhead.max-waiting:100}") int maxWaiting) {
+        this.enabled = enabled;
+        this.maxWaiting = maxWaiting;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled || !(bean instanceof DataSource dataSource) || bean instanceof BulkheadDataSource) {
+            return bean;
+        }
+        int poolSize = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+        int permits = poolSize + maxWaiting;
+        logger.info("Database bulkhead enabled for {}: poolSize={}, permits={}", beanName, poolSize, permits);
+        return new BulkheadDataSource(dataSource, permits);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.banking.config;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,7 +8,9 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -15,6 +18,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Date;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -27,6 +31,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService customUserDetailsService;
 
+    @Autowired
+    private TokenPrincipalCache tokenPrincipalCache;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    /**
+     * How the principal of a freshly verified token is obtained:
+     * {@code DATABASE} reloads the customer and roles, {@code CLAIMS} builds
+     * it from the token alone.
+     */
+    public enum AuthMode {
+        DATABASE,
+        CLAIMS
+    }
+
+    @Value("${app.jwt.auth-mode:DATABASE}")
+    private AuthMode authMode;
+
     /**
      * Intercepts incoming HTTP requests to perform JWT-based authentication.
      *
@@ -35,6 +58,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
      * the Spring Security {@link SecurityContextHolder}. This enables Spring Security
      * to recognize the authenticated user for the current request lifecycle.</p>
      *
+     * <p>Tokens that were already verified are resolved from the
+     * {@link TokenPrincipalCache} without parsing or touching the database.
+     * Otherwise the token is parsed once, and its principal is built according
+     * to {@code app.jwt.auth-mode} and cached until the token expires. Cached
+     * or not, every token is checked against the {@link TokenRevocationList}.</p>
+     *
      * <p>If the token is invalid or missing, the request proceeds without setting
      * authentication, and access will be restricted by security rules defined
      * elsewhere.</p>
@@ -52,23 +81,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     FilterChain filterChain) throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
 
-        String username = null;
         String token = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             token = authHeader.substring(7);
-            username = jwtUtil.extractUsername(token);
         } else {
             if (authHeader != null) {
                 logger.debug("Authorization header present but does not start with 'Bearer '");
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = resolvePrincipal(token);
 
-                if (jwtUtil.validateToken(token)) {
+                if (userDetails != null) {
                     UsernamePasswordAuthenticationToken authToken =
                             new UsernamePasswordAuthenticationToken(
                                     userDetails, null, userDetails.getAuthorities());
@@ -77,8 +104,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                             new WebAuthenticationDetailsSource().buildDetails(request));
 
                     SecurityContextHolder.getContext().setAuthentication(authToken);
-                } else {
-                    logger.debug("JWT token validation failed for user: {}", username);
                 }
             } catch (Exception e) {
                 logger.debug("Failed to set user authentication: {}", e.getMessage());
@@ -87,4 +112,53 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Returns the principal authenticated by the token, verifying it and
+     * loading the user only if the token is not cached yet.
+     *
+     * <p>Revocation is checked on every call, cached or not: a revocation
+     * evicts the cache, but a request that verified the token just before
+     * may put it back afterwards.</p>
+     *
+     * @return the principal, or {@code null} if the token is invalid or revoked
+     */
+    private UserDetails resolvePrincipal(String token) {
+        TokenPrincipalCache.VerifiedToken cached = tokenPrincipalCache.get(token);
+        if (cached != null) {
+            return isRevoked(cached.subject(), cached.issuedAt()) ? null : cached.principal();
+        }
+
+        Claims claims = jwtUtil.parseClaims(token);
+        if (claims == null || claims.getSubject() == null) {
+            logger.debug("JWT token validation failed");
+            return null;
+        }
+        if (isRevoked(claims.getSubject(), claims.getIssuedAt())) {
+            return null;
+        }
+
+        UserDetails userDetails;
+        if (authMode == AuthMode.CLAIMS) {
+            userDetails = jwtUtil.toPrincipal(claims);
+        } else {
+            userDetails = customUserDetailsService.loadUserByUsername(claims.getSubject());
+            // The password hash is never needed after authentication, so do not keep it in memory
+            if (userDetails instanceof CredentialsContainer credentials) {
+                credentials.eraseCredentials();
+            }
+        }
+        tokenPrincipalCache.put(token,
+                new TokenPrincipalCache.VerifiedToken(userDetails, claims.getSubject(), claims.getIssuedAt()),
+                claims.getExpiration());
+        return userDetails;
+    }
+
+    private boolean isRevoked(String subject, Date issuedAt) {
+        if (tokenRevocationList.isRevoked(subject, issuedAt)) {
+            logger.debug("JWT token revoked for user: {}", subject);
+            return true;
+        }
+        return false;
+    }
 }
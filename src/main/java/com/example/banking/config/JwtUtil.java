@@ -2,13 +2,17 @@ package com.example.banking.config;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @Component
@@ -16,19 +20,36 @@ public class JwtUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
 
+    private static final String ROLES_CLAIM = "roles";
+    private static final String CUSTOMER_ID_CLAIM = "cid";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
     @Value("${app.jwt.expiration}")
     private long jwtExpiration;
 
+    private Key signingKey;
+
+    private JwtParser parser;
+
+    /**
+     * Derives the HMAC signing key and builds the token parser once, since
+     * both are immutable and thread-safe and are needed on every request.
+     */
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
     /**
      * Returns the signing key used to sign and validate JWTs.
      *
      * @return the HMAC SHA key derived from the configured secret
      */
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        return signingKey;
     }
 
     /**
@@ -41,36 +62,92 @@ public class JwtUtil {
      * @return a signed JWT token as a string
      */
     public String generateToken(org.springframework.security.core.userdetails.User userDetails) {
-        return Jwts.builder()
+        return generateToken(userDetails, null);
+    }
+
+    /**
+     * Generates a JWT token for the given user and customer.
+     *
+     * <p>In addition to the subject, roles, issued time and expiration time,
+     * the customer ID is embedded as the {@code cid} claim so that requests
+     * can be authorized from the token alone.</p>
+     *
+     * @param userDetails the authenticated user details
+     * @param customerId  the ID of the customer, or {@code null} to omit the claim
+     * @return a signed JWT token as a string
+     */
+    public String generateToken(org.springframework.security.core.userdetails.User userDetails, Long customerId) {
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(userDetails.getUsername())
-                .claim("roles", userDetails.getAuthorities().stream()
+                .claim(ROLES_CLAIM, userDetails.getAuthorities().stream()
                         .map(Object::toString)
                         .collect(Collectors.joining(",")))
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+                .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration));
+        if (customerId != null) {
+            builder.claim(CUSTOMER_ID_CLAIM, customerId);
+        }
+        return builder.signWith(getSigningKey(), SignatureAlgorithm.HS256).compact();
     }
 
     /**
-     * Extracts the username (subject) from the given JWT token.
+     * Builds the principal described by verified claims, without any
+     * database access.
+     *
+     * <p>Role names are mapped to {@code ROLE_} authorities, matching the
+     * authorities produced by {@link CustomUserDetailsService}.</p>
+     *
+     * @param claims the claims returned by {@link #parseClaims(String)}
+     * @return the {@link AuthenticatedCustomer} the token was issued to
+     */
+    public AuthenticatedCustomer toPrincipal(Claims claims) {
+        List<SimpleGrantedAuthority> authorities = new ArrayList<>();
+        String roles = claims.get(ROLES_CLAIM, String.class);
+        if (roles != null) {
+            for (String role : roles.split(",")) {
+                String name = role.trim();
+                if (!name.isEmpty()) {
+                    authorities.add(new SimpleGrantedAuthority(name.startsWith("ROLE_") ? name : "ROLE_" + name));
+                }
+            }
+        }
+
+        Number customerId = claims.get(CUSTOMER_ID_CLAIM, Number.class);
+        return new AuthenticatedCustomer(customerId != null ? customerId.longValue() : null,
+                claims.getSubject(), "", authorities);
+    }
+
+    /**
+     * Verifies the given JWT token and returns its claims.
+     *
+     * <p>The signature, structure and expiration are checked in a single
+     * parse, so callers that need both the validity and the contents of a
+     * token should use this method rather than {@link #validateToken(String)}
+     * followed by {@link #extractUsername(String)}.</p>
      *
      * @param token the JWT token
-     * @return the username if successfully extracted, otherwise {@code null}
+     * @return the verified claims, or {@code null} if the token is invalid
      */
-    public String extractUsername(String token) {
+    public Claims parseClaims(String token) {
         try {
-            return Jwts.parserBuilder().setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody()
-                    .getSubject();
+            return parser.parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
-            logger.debug("Failed to extract username from JWT: {}", e.getMessage());
+            logger.debug("JWT validation failed: {}", e.getMessage());
             return null;
         }
     }
 
+    /**
+     * Extracts the username (subject) from the given JWT token.
+     *
+     * @param token the JWT token
+     * @return the username if successfully extracted, otherwise {@code null}
+     */
+    public String extractUsername(String token) {
+        Claims claims = parseClaims(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
     /**
      * Validates the given JWT token.
      *
@@ -81,12 +158,6 @@ public class JwtUtil {
      * @return {@code true} if the token is valid, {@code false} otherwise
      */
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            logger.debug("JWT validation failed: {}", e.getMessage());
-            return false;
-        }
+        return parseClaims(token) != null;
     }
 }
@@ -0,0 +1,77 @@
+package com.example.banking.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logback turbo filter that keeps about one in {@code oneIn} events of a
+ * logger and its descendants, for lines that are too frequent to log in full.
+ *
+ * <p>Only events at {@code level} or below are sampled; warnings and errors
+ * above it always pass. The decision is made before the message is formatted
+ * or the event is created, so a dropped event costs a random number and no
+ * allocation. Each {@code isInfoEnabled()}-style check, including the one
+ * behind {@code atInfo()}, counts as an event, so guard a log call with either
+ * a check or the fluent API, not both. Configured in {@code logback-spring.xml}:</p>
+ *
+ * <pre>{@code
+ * <turboFilter class="com.example.banking.config.LogSamplingFilter">
+ *     <loggerName>com.example.banking.service.TransactionService</loggerName>
+ *     <level>INFO</level>
+ *     <oneIn>10</oneIn>
+ * </turboFilter>
+ * }</pre>
+ */
+public class LogSamplingFilter extends TurboFilter {
+
+    private String loggerName;
+
+    private String descendantPrefix;
+
+    private Level level = Level.INFO;
+
+    private int oneIn = 1;
+
+    public void setLoggerName(String loggerName) {
+        this.loggerName = loggerName;
+        this.descendantPrefix = loggerName + ".";
+    }
+
+    public void setLevel(String level) {
+        this.level = Level.toLevel(level, Level.INFO);
+    }
+
+    public void setOneIn(int oneIn) {
+        this.oneIn = oneIn;
+    }
+
+    @Override
+    public void start() {
+        if (loggerName == null) {
+            addError("No loggerName set for " + getName());
+            return;
+        }
+        if (oneIn < 1) {
+            addError("oneIn must be at least 1, was " + oneIn);
+            return;
+        }
+        super.start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level eventLevel, String format, Object[] params, Throwable t) {
+        if (!isStarted() || oneIn == 1 || eventLevel == null || eventLevel.levelInt > level.levelInt) {
+            return FilterReply.NEUTRAL;
+        }
+        String name = logger.getName();
+        if (!name.equals(loggerName) && !name.startsWith(descendantPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextInt(oneIn) == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.banking.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -32,12 +35,19 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthFilter;
 
+    @Value("${app.auth.bcrypt.strength:10}")
+    private int bcryptStrength;
+
     /**
      * Defines the security filter chain for HTTP requests.
      *
      * <ul>
      *   <li>Disables CSRF (since JWT handles security).</li>
      *   <li>Allows unrestricted access to {@code /auth/**} endpoints (login &amp; register).</li>
+     *   <li>Allows unrestricted access to the actuator endpoints, which are served
+     *       on a management port bound to the loopback interface.</li>
+     *   <li>Lets the async dispatch that completes a streamed response through,
+     *       since the JWT filter only runs on the original request.</li>
      *   <li>Requires authentication for all other endpoints.</li>
      *   <li>Configures stateless session management.</li>
      *   <li>Registers a custom JWT authentication filter before
@@ -54,7 +64,10 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource())) // <-- enable CORS
                 .authorizeHttpRequests(auth -> auth
+                        // The request that started a streamed response was already authorised
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/auth/**").permitAll() // allow register & login
+                        .requestMatchers(EndpointRequest.toAnyEndpoint()).permitAll() // local scrape only, see management.server.address
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -94,11 +107,14 @@ public class SecurityConfig {
     /**
      * Defines the password encoder used for encoding and verifying passwords.
      *
+     * <p>The cost is {@code app.auth.bcrypt.strength}. Raising it does not
+     * invalidate stored hashes; they are upgraded on the next successful login.</p>
+     *
      * @return a BCrypt-based password encoder
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
 
     @Bean
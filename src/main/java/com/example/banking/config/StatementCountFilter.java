@@ -0,0 +1,78 @@
+package com.example.banking.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Records how many SQL statements each HTTP request executes, in the
+ * {@value #STATEMENTS} distribution summary tagged with the request method
+ * and URI pattern.
+ *
+ * <p>The filter is registered with Hibernate as its {@link StatementInspector}
+ * and counts the statements prepared on the request thread, including those
+ * of the authentication filter. Work handed to other threads, such as the
+ * partitions of a monthly report or the body of a streamed response, is not
+ * counted.</p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StatementCountFilter extends OncePerRequestFilter implements StatementInspector, HibernatePropertiesCustomizer {
+
+    public static final String STATEMENTS = "banking.http.db.statements";
+
+    private static final ThreadLocal<int[]> STATEMENT_COUNT = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+
+    public StatementCountFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = STATEMENT_COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        int[] count = new int[1];
+        STATEMENT_COUNT.set(count);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            STATEMENT_COUNT.remove();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder(STATEMENTS)
+                    .description("SQL statements executed per HTTP request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                    .register(registry)
+                    .record(count[0]);
+        }
+    }
+}
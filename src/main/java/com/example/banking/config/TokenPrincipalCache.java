@@ -0,0 +1,128 @@
+package com.example.banking.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of verified JWT tokens and the principal they authenticate.
+ *
+ * <p>An entry expires when its token does, or after
+ * {@code app.jwt.cache.max-ttl-seconds} if that is sooner, so role changes
+ * and deleted users are picked up within that window without a database
+ * lookup on every request. A maximum size of 0 disables the cache. Its
+ * statistics are published as the {@code cache.*} meters with
+ * {@code cache=token-principal}.</p>
+ */
+@Component
+public class TokenPrincipalCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenPrincipalCache.class);
+
+    /**
+     * A verified token: the principal it authenticates and the claims needed
+     * to check it against the {@link TokenRevocationList}.
+     *
+     * @param principal the principal the token authenticates
+     * @param subject   the {@code sub} claim of the token
+     * @param issuedAt  the {@code iat} claim of the token, {@code null} if absent
+     */
+    public record VerifiedToken(UserDetails principal, String subject, Date issuedAt) {
+    }
+
+    private record Entry(VerifiedToken token, long expiresAtMillis) {
+    }
+
+    private final Cache<String, Entry> cache;
+
+    private final long maxTtlMillis;
+
+    private final boolean enabled;
+
+    public TokenPrincipalCache(@Value("${app.jwt.cache.max-size:10000}") long maxSize,
+                               @Value("${app.jwt.cache.max-ttl-seconds:300}") long maxTtlSeconds) {
+        this.maxTtlMillis = TimeUnit.SECONDS.toMillis(maxTtlSeconds);
+        this.enabled = maxSize > 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String token, Entry entry, long currentTime) {
+                        long remaining = entry.expiresAtMillis() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remaining));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(token, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        logger.info("Token principal cache initialized: maxSize={}, maxTtlSeconds={}", maxSize, maxTtlSeconds);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "token-principal");
+    }
+
+    /**
+     * Returns a previously verified token. The caller must still check it
+     * against the {@link TokenRevocationList}, since a revocation can race
+     * with the verification that cached it.
+     *
+     * @param token the raw JWT token
+     * @return the cached token, or {@code null} if the token is unknown or expired
+     */
+    public VerifiedToken get(String token) {
+        Entry entry = cache.getIfPresent(token);
+        if (entry == null || entry.expiresAtMillis() <= System.currentTimeMillis()) {
+            return null;
+        }
+        return entry.token();
+    }
+
+    /**
+     * Remembers a verified token until it expires.
+     *
+     * @param token      the raw JWT token
+     * @param verified   the principal and claims of the token
+     * @param expiration the {@code exp} claim of the token
+     */
+    public void put(String token, VerifiedToken verified, Date expiration) {
+        if (!enabled) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + maxTtlMillis;
+        if (expiration != null) {
+            expiresAt = Math.min(expiresAt, expiration.getTime());
+        }
+        cache.put(token, new Entry(verified, expiresAt));
+    }
+
+    /**
+     * Removes every cached token of the given user.
+     *
+     * @param username the username whose tokens should be forgotten
+     */
+    public void evictUser(String username) {
+        cache.asMap().values().removeIf(entry -> entry.token().subject().equals(username));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.banking.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Short-lived, in-memory list of users whose tokens must no longer be accepted.
+ *
+ * <p>Revoking a user rejects every token issued to them up to that moment;
+ * tokens obtained by logging in again afterwards are accepted. An entry only
+ * has to outlive the tokens it revokes, so it expires after
+ * {@code app.jwt.revocation.ttl-seconds}, which should be at least the token
+ * lifetime. The list is local to each instance.</p>
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private final Cache<String, Long> revokedAt;
+
+    public TokenRevocationList(@Value("${app.jwt.revocation.max-size:10000}") long maxSize,
+                               @Value("${app.jwt.revocation.ttl-seconds:86400}") long ttlSeconds) {
+        this.revokedAt = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Revokes every token issued to the user so far.
+     *
+     * @param username the user whose tokens are revoked
+     */
+    public void revoke(String username) {
+        revokedAt.put(username, System.currentTimeMillis());
+        logger.info("Tokens revoked for username={}", username);
+    }
+
+    /**
+     * Checks whether a token of the given user was issued before a revocation.
+     *
+     * @param username the subject of the token
+     * @param issuedAt the {@code iat} claim of the token, {@code null} if absent
+     * @return {@code true} if the token must be rejected
+     */
+    public boolean isRevoked(String username, Date issuedAt) {
+        Long revoked = revokedAt.getIfPresent(username);
+        if (revoked == null) {
+            return false;
+        }
+        // iat has second precision, so a token from the same second is treated as revoked
+        return issuedAt == null || issuedAt.getTime() <= revoked;
+    }
+}
@@ -1,16 +1,21 @@
 package com.example.banking.controller;
 
+import com.example.banking.cache.BalanceCacheStats;
 import com.example.banking.dto.AccountResponse;
 import com.example.banking.dto.ApiResponse;
 import com.example.banking.entity.Account;
 import com.example.banking.service.AccountService;
+import com.example.banking.util.ApiResponseStreamWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -22,6 +27,9 @@ public class AccountController {
     @Autowired
     private AccountService accountService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Creates a new account for a given customer.
      *
@@ -39,36 +47,60 @@ public class AccountController {
             @PathVariable Long customerId,
             @RequestParam String accountType) {
 
-        try {
-            Account account = accountService.createAccount(customerId, accountType);
-
-            // Map Account entity to AccountResponse DTO
-            AccountResponse accountResponse = AccountResponse.builder()
-                    .id(account.getId())
-                    .accountNumber(account.getAccountNumber())
-                    .accountType(account.getAccountType())
-                    .balance(account.getBalance())
-                    .customerId(account.getCustomer().getId())
-                    .customerName(account.getCustomer().getFullName())
-                    .build();
-
-            ApiResponse<AccountResponse> response = ApiResponse.<AccountResponse>builder()
-                    .status(HttpStatus.CREATED.value())
-                    .message("Account created successfully")
-                    .data(accountResponse)
-                    .build();
-
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-
-        } catch (Exception ex) {
-            ApiResponse<AccountResponse> errorResponse = ApiResponse.<AccountResponse>builder()
-                    .status(HttpStatus.BAD_REQUEST.value())
-                    .message("Failed to create account: " + ex.getMessage())
-                    .data(null)
-                    .build();
-
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
-        }
+        Account account = accountService.createAccount(customerId, accountType);
+
+        // Map Account entity to AccountResponse DTO
+        AccountResponse accountResponse = AccountResponse.builder()
+                .id(account.getId())
+                .accountNumber(account.getAccountNumber())
+                .accountType(account.getAccountType())
+                .balance(account.getBalance())
+                .customerId(account.getCustomer().getId())
+                .customerName(account.getCustomer().getFullName())
+                .build();
+
+        ApiResponse<AccountResponse> response = ApiResponse.<AccountResponse>builder()
+                .status(HttpStatus.CREATED.value())
+                .message("Account created successfully")
+                .data(accountResponse)
+                .build();
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    /**
+     * Opens one account of the given type for each customer in the request
+     * body, e.g. when onboarding a batch of customers.
+     *
+     * @param customerIds the IDs of the customers, one account each
+     * @param accountType the type of the accounts (e.g., "SAVINGS", "CURRENT")
+     * @return a {@link ResponseEntity} containing an {@link ApiResponse}
+     * with the created accounts, in request order, or an error message
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/create/bulk")
+    public ResponseEntity<ApiResponse<List<AccountResponse>>> createAccounts(
+            @RequestBody List<Long> customerIds,
+            @RequestParam String accountType) {
+
+        List<AccountResponse> accountResponses = accountService.createAccounts(customerIds, accountType).stream()
+                .map(account -> AccountResponse.builder()
+                        .id(account.getId())
+                        .accountNumber(account.getAccountNumber())
+                        .accountType(account.getAccountType())
+                        .balance(account.getBalance())
+                        .customerId(account.getCustomer().getId())
+                        .customerName(account.getCustomer().getFullName())
+                        .build())
+                .toList();
+
+        ApiResponse<List<AccountResponse>> response = ApiResponse.<List<AccountResponse>>builder()
+                .status(HttpStatus.CREATED.value())
+                .message(accountResponses.size() + " accounts created successfully")
+                .data(accountResponses)
+                .build();
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     /**
@@ -81,67 +113,94 @@ public class AccountController {
     @PreAuthorize("hasAnyRole('ADMIN','CUSTOMER')")
     @GetMapping("/balance/{accountNumber}")
     public ResponseEntity<ApiResponse<BigDecimal>> getBalance(@PathVariable String accountNumber) {
-        try {
-            BigDecimal balance = accountService.getBalance(accountNumber);
-            ApiResponse<BigDecimal> response = ApiResponse.<BigDecimal>builder()
-                    .status(200)
-                    .message("Balance fetched successfully")
-                    .data(balance)
-                    .build();
-            return ResponseEntity.ok(response);
-
-        } catch (Exception ex) {
-            ApiResponse<BigDecimal> errorResponse = ApiResponse.<BigDecimal>builder()
-                    .status(HttpStatus.BAD_REQUEST.value())
-                    .message("Failed to fetch balance: " + ex.getMessage())
-                    .data(null)
-                    .build();
-
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
-        }
+        BigDecimal balance = accountService.getBalance(accountNumber);
+        ApiResponse<BigDecimal> response = ApiResponse.<BigDecimal>builder()
+                .status(200)
+                .message("Balance fetched successfully")
+                .data(balance)
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Changes the number of balance stripes of a hot account.
+     *
+     * <p>Striping spreads deposits over several rows to remove the row-lock
+     * bottleneck on credit-heavy accounts. A stripe count of 1 disables it.</p>
+     *
+     * @param accountNumber the unique account number
+     * @param count         the number of stripes
+     * @return a {@link ResponseEntity} containing an {@link ApiResponse}
+     * with the updated account details or an error message
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/{accountNumber}/stripes")
+    public ResponseEntity<ApiResponse<AccountResponse>> configureStripes(
+            @PathVariable String accountNumber,
+            @RequestParam int count) {
+        Account account = accountService.configureStripes(accountNumber, count);
+
+        AccountResponse accountResponse = AccountResponse.builder()
+                .id(account.getId())
+                .accountNumber(account.getAccountNumber())
+                .accountType(account.getAccountType())
+                .balance(accountService.getBalance(accountNumber))
+                .customerId(account.getCustomer().getId())
+                .customerName(account.getCustomer().getFullName())
+                .build();
+
+        ApiResponse<AccountResponse> response = ApiResponse.<AccountResponse>builder()
+                .status(HttpStatus.OK.value())
+                .message("Account stripes configured successfully")
+                .data(accountResponse)
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Retrieves hit, miss and eviction counters of the balance cache.
+     *
+     * @return a {@link ResponseEntity} containing an {@link ApiResponse}
+     * with the {@link BalanceCacheStats}
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/balance-cache/stats")
+    public ResponseEntity<ApiResponse<BalanceCacheStats>> getBalanceCacheStats() {
+        ApiResponse<BalanceCacheStats> response = ApiResponse.<BalanceCacheStats>builder()
+                .status(HttpStatus.OK.value())
+                .message("Balance cache statistics fetched successfully")
+                .data(accountService.getBalanceCacheStats())
+                .build();
+
+        return ResponseEntity.ok(response);
     }
 
     /**
      * Retrieves a list of all accounts.
      *
-     * @return a {@link ResponseEntity} containing an {@link ApiResponse} with
-     * the list of all accounts or an error message
+     * <p>The accounts are streamed from the database straight into the
+     * response, in the usual {@link ApiResponse} envelope, so the list is
+     * never held in memory. If reading fails halfway, the response is cut off
+     * and is not valid JSON.</p>
+     *
+     * @return a {@link ResponseEntity} streaming an {@link ApiResponse} with
+     * the list of all accounts
      */
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/all")
-    public ResponseEntity<ApiResponse<List<AccountResponse>>> getAllAccounts() {
-        try {
-            List<Account> accounts = accountService.getAllAccounts();
-
-            // Map each Account entity to AccountResponse DTO
-            List<AccountResponse> accountResponses = accounts.stream()
-                    .map(account -> AccountResponse.builder()
-                            .id(account.getId())
-                            .accountNumber(account.getAccountNumber())
-                            .accountType(account.getAccountType())
-                            .balance(account.getBalance())
-                            .customerId(account.getCustomer().getId())
-                            .customerName(account.getCustomer().getFullName())
-                            .build())
-                    .toList();
-
-            ApiResponse<List<AccountResponse>> response = ApiResponse.<List<AccountResponse>>builder()
-                    .status(HttpStatus.OK.value())
-                    .message("Accounts fetched successfully")
-                    .data(accountResponses)
-                    .build();
-
-            return ResponseEntity.ok(response);
-
-        } catch (Exception ex) {
-            ApiResponse<List<AccountResponse>> errorResponse = ApiResponse.<List<AccountResponse>>builder()
-                    .status(HttpStatus.BAD_REQUEST.value())
-                    .message("Failed to fetch accounts: " + ex.getMessage())
-                    .data(null)
-                    .build();
-
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
-        }
+    public ResponseEntity<StreamingResponseBody> getAllAccounts() {
+        StreamingResponseBody body = out -> {
+            try (ApiResponseStreamWriter writer = new ApiResponseStreamWriter(objectMapper, out,
+                    HttpStatus.OK.value(), "Accounts fetched successfully")) {
+                accountService.streamAllAccounts(writer::write);
+                writer.finish();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -164,39 +223,15 @@ public class AccountController {
     @PreAuthorize("hasAnyRole('ADMIN','CUSTOMER')")
     @GetMapping("/findAccountNumbersByCustId/{customerId}")
     public ResponseEntity<ApiResponse<List<AccountResponse>>> getMyAccounts(@PathVariable Long customerId) {
-        try {
-
-            List<Account> accounts = accountService.getAccountsByCustomerId(customerId);
-
-            // Map Account to AccountResponse DTO
-            List<AccountResponse> accountResponses = accounts.stream()
-                    .map(account -> AccountResponse.builder()
-                            .id(account.getId())
-                            .accountNumber(account.getAccountNumber())
-                            .accountType(account.getAccountType())
-                            .balance(account.getBalance())
-                            .customerId(account.getCustomer().getId())
-                            .customerName(account.getCustomer().getFullName())
-                            .build())
-                    .toList();
-
-            ApiResponse<List<AccountResponse>> response = ApiResponse.<List<AccountResponse>>builder()
-                    .status(HttpStatus.OK.value())
-                    .message("Customer accounts fetched successfully")
-                    .data(accountResponses)
-                    .build();
-
-            return ResponseEntity.ok(response);
-
-        } catch (Exception ex) {
-            ApiResponse<List<AccountResponse>> errorResponse = ApiResponse.<List<AccountResponse>>builder()
-                    .status(HttpStatus.BAD_REQUEST.value())
-                    .message("Failed to fetch customer accounts: " + ex.getMessage())
-                    .data(null)
-                    .build();
-
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
-        }
+        List<AccountResponse> accountResponses = accountService.getAccountsByCustomerId(customerId);
+
+        ApiResponse<List<AccountResponse>> response = ApiResponse.<List<AccountResponse>>builder()
+                .status(HttpStatus.OK.value())
+                .message("Customer accounts fetched successfully")
+                .data(accountResponses)
+                .build();
+
+        return ResponseEntity.ok(response);
     }
 
 }
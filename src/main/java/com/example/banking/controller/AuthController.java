@@ -8,6 +8,7 @@ import com.example.banking.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -30,17 +31,8 @@ public class AuthController {
      */
     @PostMapping("/register")
     public ResponseEntity<ApiResponse<String>> register(@RequestBody RegisterRequest request) {
-        try {
-            ApiResponse<String> response = authService.register(request);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-        } catch (Exception ex) {
-            ApiResponse<String> errorResponse = ApiResponse.<String>builder()
-                    .status(HttpStatus.BAD_REQUEST.value())
-                    .message(ex.getMessage())
-                    .data(null)
-                    .build();
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
-        }
+        ApiResponse<String> response = authService.register(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     /**
@@ -56,21 +48,32 @@ public class AuthController {
      */
     @PostMapping("/login")
     public ResponseEntity<ApiResponse<AuthResponse>> login(@RequestBody LoginRequest request) {
-        try {
-            AuthResponse authResponse = authService.login(request);
-            ApiResponse<AuthResponse> response = ApiResponse.<AuthResponse>builder()
-                    .status(HttpStatus.OK.value())
-                    .message("Login successful")
-                    .data(authResponse)
-                    .build();
-            return ResponseEntity.ok(response);
-        } catch (Exception ex) {
-            ApiResponse<AuthResponse> errorResponse = ApiResponse.<AuthResponse>builder()
-                    .status(HttpStatus.UNAUTHORIZED.value())
-                    .message(ex.getMessage())
-                    .data(null)
-                    .build();
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
-        }
+        AuthResponse authResponse = authService.login(request);
+        ApiResponse<AuthResponse> response = ApiResponse.<AuthResponse>builder()
+                .status(HttpStatus.OK.value())
+                .message("Login successful")
+                .data(authResponse)
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Revokes every token issued to a user so far, e.g. when the user is
+     * disabled.
+     *
+     * @param username the user whose tokens are revoked
+     * @return a {@link ResponseEntity} with an {@link ApiResponse} that includes
+     * either a success message or an error message
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/revoke/{username}")
+    public ResponseEntity<ApiResponse<String>> revokeTokens(@PathVariable String username) {
+        authService.revokeTokens(username);
+        ApiResponse<String> response = ApiResponse.<String>builder()
+                .status(HttpStatus.OK.value())
+                .message("Tokens revoked successfully")
+                .data(username)
+                .build();
+        return ResponseEntity.ok(response);
     }
 }
@@ -35,26 +35,15 @@ public class CustomerAddressController {
     public ResponseEntity<ApiResponse<CustomerAddressDTO>> addAddress(
             @PathVariable Long customerId,
             @RequestBody CustomerAddressDTO dto) {
-        try {
-            CustomerAddressDTO saved = addressService.addAddress(customerId, dto);
+        CustomerAddressDTO saved = addressService.addAddress(customerId, dto);
 
-            ApiResponse<CustomerAddressDTO> response = ApiResponse.<CustomerAddressDTO>builder()
-                    .status(HttpStatus.CREATED.value())
-                    .message("Address added successfully")
-                    .data(saved)
-                    .build();
+        ApiResponse<CustomerAddressDTO> response = ApiResponse.<CustomerAddressDTO>builder()
+                .status(HttpStatus.CREATED.value())
+                .message("Address added successfully")
+                .data(saved)
+                .build();
 
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-
-        } catch (Exception ex) {
-            ApiResponse<CustomerAddressDTO> errorResponse = ApiResponse.<CustomerAddressDTO>builder()
-                    .status(HttpStatus.BAD_REQUEST.value())
-                    .message("Failed to add address: " + ex.getMessage())
-                    .data(null)
-                    .build();
-
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
-        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     /**
@@ -71,25 +60,14 @@ public class CustomerAddressController {
     @PreAuthorize("hasAnyRole('ADMIN','CUSTOMER')")
     @GetMapping("/getAddresses")
     public ResponseEntity<ApiResponse<List<CustomerAddressDTO>>> getAddresses(@PathVariable Long customerId) {
-        try {
-            List<CustomerAddressDTO> addresses = addressService.getAddresses(customerId);
-
-            ApiResponse<List<CustomerAddressDTO>> response = ApiResponse.<List<CustomerAddressDTO>>builder()
-                    .status(HttpStatus.OK.value())
-                    .message("Addresses fetched successfully")
-                    .data(addresses)
-                    .build();
-
-            return ResponseEntity.ok(response);
+        List<CustomerAddressDTO> addresses = addressService.getAddresses(customerId);
 
-        } catch (Exception ex) {
-            ApiResponse<List<CustomerAddressDTO>> errorResponse = ApiResponse.<List<CustomerAddressDTO>>builder()
-                    .status(HttpStatus.BAD_REQUEST.value())
-                    .message("Failed to fetch addresses: " + ex.getMessage())
-                    .data(null)
-                    .build();
+        ApiResponse<List<CustomerAddressDTO>> response = ApiResponse.<List<CustomerAddressDTO>>builder()
+                .status(HttpStatus.OK.value())
+                .message("Addresses fetched successfully")
+                .data(addresses)
+                .build();
 
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
-        }
+        return ResponseEntity.ok(response);
     }
 }
@@ -1,17 +1,16 @@
 package com.example.banking.controller;
 
 import com.example.banking.dto.ApiResponse;
-import com.example.banking.dto.CustomerResponse;
-import com.example.banking.entity.Customer;
 import com.example.banking.service.CustomerService;
+import com.example.banking.util.ApiResponseStreamWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
-import java.util.stream.Collectors;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/customers")
@@ -20,42 +19,32 @@ public class CustomerController {
     @Autowired
     private CustomerService customerService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Retrieves a list of all customers.
      *
-     * @return a ResponseEntity containing ApiResponse with list of customers
+     * <p>The customers are streamed from the database straight into the
+     * response, in the usual {@link ApiResponse} envelope, so the list is
+     * never held in memory. If reading fails halfway, the response is cut off
+     * and is not valid JSON.</p>
+     *
+     * @return a ResponseEntity streaming an ApiResponse with the list of customers
      */
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/all")
-    public ResponseEntity<ApiResponse<List<CustomerResponse>>> getAllCustomers() {
-        try {
-            List<Customer> customers = customerService.getAllCustomers();
-
-            // Map Customer entity to CustomerResponse DTO
-            List<CustomerResponse> customerResponses = customers.stream()
-                    .map(c -> CustomerResponse.builder()
-                            .id(c.getId())
-                            .username(c.getUsername())
-                            .email(c.getEmail())
-                            .build())
-                    .collect(Collectors.toList());
-
-            ApiResponse<List<CustomerResponse>> response = ApiResponse.<List<CustomerResponse>>builder()
-                    .status(HttpStatus.OK.value())
-                    .message("Customers fetched successfully")
-                    .data(customerResponses)
-                    .build();
-
-            return ResponseEntity.ok(response);
-
-        } catch (Exception ex) {
-            ApiResponse<List<CustomerResponse>> errorResponse = ApiResponse.<List<CustomerResponse>>builder()
-                    .status(HttpStatus.BAD_REQUEST.value())
-                    .message("Failed to fetch customers: " + ex.getMessage())
-                    .data(null)
-                    .build();
-
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
-        }
+    public ResponseEntity<StreamingResponseBody> getAllCustomers() {
+        StreamingResponseBody body = out -> {
+            try (ApiResponseStreamWriter writer = new ApiResponseStreamWriter(objectMapper, out,
+                    HttpStatus.OK.value(), "Customers fetched successfully")) {
+                customerService.streamAllCustomers(writer::write);
+                writer.finish();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 }
@@ -1,26 +1,60 @@
 package com.example.banking.controller;
 
 import com.example.banking.dto.ApiResponse;
+import com.example.banking.dto.MonthlyReportRequestDTO;
 import com.example.banking.dto.MonthlyTransactionReportDTO;
+import com.example.banking.dto.ReportJobResponse;
+import com.example.banking.dto.TransactionDTO;
+import com.example.banking.exception.ErrorCode;
+import com.example.banking.exception.InvalidRequestException;
+import com.example.banking.service.MonthlyAggregateService;
+import com.example.banking.service.ReportJobService;
 import com.example.banking.service.ReportService;
+import com.example.banking.util.CsvWriter;
+import com.example.banking.util.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.file.Path;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
 @RequestMapping("/reports")
 public class ReportController {
 
+    private static final String[] CSV_HEADER = {
+            "customerId", "customerName", "email", "totalDeposit", "totalWithdrawal",
+            "transactionId", "accountNumber", "transactionTime", "type", "amount", "description"
+    };
+
     @Autowired
     private ReportService reportService;
 
+    @Autowired
+    private MonthlyAggregateService monthlyAggregateService;
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Generates a monthly transaction report for the specified month and year.
      *
@@ -37,22 +71,172 @@ public class ReportController {
     public ResponseEntity<ApiResponse<List<MonthlyTransactionReportDTO>>> getMonthlyReport(
             @RequestParam int month,
             @RequestParam int year) {
-        try {
-            List<MonthlyTransactionReportDTO> report = reportService.getMonthlyReport(month, year);
-            ApiResponse<List<MonthlyTransactionReportDTO>> response = ApiResponse.<List<MonthlyTransactionReportDTO>>builder()
-                    .status(HttpStatus.OK.value())
-                    .message("Monthly transaction report fetched successfully")
-                    .data(report)
-                    .build();
-            return ResponseEntity.ok(response);
-        } catch (Exception ex) {
-            ApiResponse<List<MonthlyTransactionReportDTO>> errorResponse = ApiResponse.<List<MonthlyTransactionReportDTO>>builder()
-                    .status(HttpStatus.BAD_REQUEST.value())
-                    .message("Failed to fetch report: " + ex.getMessage())
-                    .data(null)
-                    .build();
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        List<MonthlyTransactionReportDTO> report = reportService.getMonthlyReport(month, year);
+        ApiResponse<List<MonthlyTransactionReportDTO>> response = ApiResponse.<List<MonthlyTransactionReportDTO>>builder()
+                .status(HttpStatus.OK.value())
+                .message("Monthly transaction report fetched successfully")
+                .data(report)
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Streams the monthly transaction report for the specified month and year
+     * as NDJSON or CSV.
+     *
+     * <p>Unlike {@code /generate-report}, the report is never built in memory:
+     * customers are read in chunks and each one is written to the response as
+     * soon as its chunk is assembled. NDJSON has one
+     * {@link MonthlyTransactionReportDTO} per line; CSV has one record per
+     * transaction, repeating the customer columns, and a single record with
+     * empty transaction columns for customers without transactions.</p>
+     *
+     * @param month  the month for which the report should be exported (1-12)
+     * @param year   the year for which the report should be exported
+     * @param format {@code ndjson} (default) or {@code csv}
+     * @return a {@link ResponseEntity} streaming the report
+     * @throws InvalidRequestException if the month or format is invalid
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportMonthlyReport(
+            @RequestParam int month,
+            @RequestParam int year,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        if (month < 1 || month > 12) {
+            throw new InvalidRequestException(ErrorCode.INVALID_REQUEST, "Invalid month: " + month);
+        }
+        if (!"ndjson".equalsIgnoreCase(format) && !"csv".equalsIgnoreCase(format)) {
+            throw new InvalidRequestException(ErrorCode.INVALID_REQUEST, "Unsupported format: " + format);
+        }
+
+        String fileName = String.format("monthly-report-%d-%02d.%s", year, month, format.toLowerCase());
+        if ("csv".equalsIgnoreCase(format)) {
+            StreamingResponseBody body = out -> {
+                try (CsvWriter writer = new CsvWriter(out)) {
+                    writer.writeRow((Object[]) CSV_HEADER);
+                    reportService.exportMonthlyReport(month, year, row -> writeCsv(writer, row));
+                }
+            };
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                    .body(body);
         }
+
+        StreamingResponseBody body = out -> {
+            try (NdjsonWriter writer = new NdjsonWriter(objectMapper, out)) {
+                reportService.exportMonthlyReport(month, year, writer::write);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
+    /**
+     * Recomputes the monthly aggregates used for report totals from the ledger.
+     *
+     * <p>Rebuilds a single month when both {@code month} and {@code year} are
+     * given, otherwise every month that has transactions.</p>
+     *
+     * @param month the month to rebuild (1-12), optional
+     * @param year  the year of the month to rebuild, optional
+     * @return a {@link ResponseEntity} containing an {@link ApiResponse} with the
+     * number of aggregate rows written or an error message
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/aggregates/rebuild")
+    public ResponseEntity<ApiResponse<Integer>> rebuildAggregates(
+            @RequestParam(required = false) Integer month,
+            @RequestParam(required = false) Integer year) {
+        int rows = month != null && year != null
+                ? monthlyAggregateService.rebuild(YearMonth.of(year, month))
+                : monthlyAggregateService.rebuildAll();
+        ApiResponse<Integer> response = ApiResponse.<Integer>builder()
+                .status(HttpStatus.OK.value())
+                .message("Monthly aggregates rebuilt successfully")
+                .data(rows)
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Submits a monthly transaction report to be generated in the background.
+     *
+     * <p>Returns immediately with a job id; poll {@code /reports/jobs/{jobId}}
+     * until the job is completed, then download the result from
+     * {@code /reports/jobs/{jobId}/result}. Submitting a request identical to
+     * one still in progress returns the existing job.</p>
+     *
+     * @param request the month and year of the report, and optionally a single customer
+     * @return a {@link ResponseEntity} containing an {@link ApiResponse} with the
+     * {@link ReportJobResponse}, or an error message (503 when too many jobs are queued)
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/jobs")
+    public ResponseEntity<ApiResponse<ReportJobResponse>> submitReportJob(@RequestBody MonthlyReportRequestDTO request) {
+        ReportJobResponse job = reportJobService.submit(request);
+        ApiResponse<ReportJobResponse> response = ApiResponse.<ReportJobResponse>builder()
+                .status(HttpStatus.ACCEPTED.value())
+                .message("Report job submitted successfully")
+                .data(job)
+                .build();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
     }
-}
 
+    /**
+     * Retrieves the status of a background report job.
+     *
+     * @param jobId the job id returned on submission
+     * @return a {@link ResponseEntity} containing an {@link ApiResponse} with the
+     * {@link ReportJobResponse} or an error message
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ApiResponse<ReportJobResponse>> getReportJob(@PathVariable String jobId) {
+        ReportJobResponse job = reportJobService.getStatus(jobId);
+        ApiResponse<ReportJobResponse> response = ApiResponse.<ReportJobResponse>builder()
+                .status(HttpStatus.OK.value())
+                .message("Report job fetched successfully")
+                .data(job)
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Downloads the result of a completed background report job as
+     * gzip-compressed NDJSON, one {@link MonthlyTransactionReportDTO} per line.
+     *
+     * @param jobId the job id returned on submission
+     * @return a {@link ResponseEntity} with the compressed report, or an
+     * {@link ApiResponse} error if the job is unknown or not completed
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/jobs/{jobId}/result")
+    public ResponseEntity<?> downloadReportJobResult(@PathVariable String jobId) {
+        Path result = reportJobService.getResult(jobId);
+
+        Resource body = new FileSystemResource(result);
+        return ResponseEntity.ok()
+                .contentType(new MediaType("application", "gzip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + result.getFileName() + "\"")
+                .body(body);
+    }
+
+    private static void writeCsv(CsvWriter writer, MonthlyTransactionReportDTO row) {
+        if (row.getTransactions().isEmpty()) {
+            writer.writeRow(row.getCustomerId(), row.getCustomerName(), row.getEmail(),
+                    row.getTotalDeposit(), row.getTotalWithdrawal(),
+                    null, null, null, null, null, null);
+            return;
+        }
+        for (TransactionDTO tx : row.getTransactions()) {
+            writer.writeRow(row.getCustomerId(), row.getCustomerName(), row.getEmail(),
+                    row.getTotalDeposit(), row.getTotalWithdrawal(),
+                    tx.getId(), tx.getAccountNumber(), tx.getTransactionTime(), tx.getType(),
+                    tx.getAmount(), tx.getDescription());
+        }
+    }
+}
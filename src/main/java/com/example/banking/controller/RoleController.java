@@ -25,25 +25,14 @@ public class RoleController {
      */
     @GetMapping("/all")
     public ResponseEntity<ApiResponse<List<Role>>> getAllRoles() {
-        try {
-            List<Role> roles = roleService.getAllRoles();
-
-            ApiResponse<List<Role>> response = ApiResponse.<List<Role>>builder()
-                    .status(HttpStatus.OK.value())
-                    .message("Roles fetched successfully")
-                    .data(roles)
-                    .build();
-
-            return ResponseEntity.ok(response);
-
-        } catch (Exception ex) {
-            ApiResponse<List<Role>> errorResponse = ApiResponse.<List<Role>>builder()
-                    .status(HttpStatus.BAD_REQUEST.value())
-                    .message("Failed to fetch roles: " + ex.getMessage())
-                    .data(null)
-                    .build();
-
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
-        }
+        List<Role> roles = roleService.getAllRoles();
+
+        ApiResponse<List<Role>> response = ApiResponse.<List<Role>>builder()
+                .status(HttpStatus.OK.value())
+                .message("Roles fetched successfully")
+                .data(roles)
+                .build();
+
+        return ResponseEntity.ok(response);
     }
 }
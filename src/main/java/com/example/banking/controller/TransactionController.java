@@ -1,16 +1,29 @@
 package com.example.banking.controller;
 
 import com.example.banking.dto.ApiResponse;
+import com.example.banking.dto.BatchTransactionItem;
+import com.example.banking.dto.BatchTransactionResult;
 import com.example.banking.dto.TransactionDTO;
+import com.example.banking.dto.TransactionPage;
 import com.example.banking.dto.TransactionRequest;
 import com.example.banking.dto.TransactionResponse;
+import com.example.banking.dto.TransferRequest;
+import com.example.banking.dto.TransferResponse;
 import com.example.banking.service.TransactionService;
+import com.example.banking.util.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -20,99 +33,200 @@ public class TransactionController {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Performs a deposit into a specified account.
      *
-     * @param request the transaction request containing account number and amount
+     * <p>Clients that retry should send the same {@code Idempotency-Key}
+     * header; a repeated key returns the original result instead of
+     * depositing again.</p>
+     *
+     * @param request        the transaction request containing account number and amount
+     * @param user           the authenticated caller, the scope of the idempotency key
+     * @param idempotencyKey optional key identifying retries of the same deposit
      * @return a {@link ResponseEntity} with an {@link ApiResponse} containing
      * the deposit transaction details or an error message
      */
     @PreAuthorize("hasAnyRole('ADMIN','CUSTOMER')")
     @PostMapping("/deposit")
-    public ResponseEntity<ApiResponse<TransactionResponse>> deposit(@RequestBody TransactionRequest request) {
-        try {
-            TransactionResponse transaction = transactionService.deposit(request);
-
-            ApiResponse<TransactionResponse> response = ApiResponse.<TransactionResponse>builder()
-                    .status(HttpStatus.OK.value())
-                    .message("Deposit successful")
-                    .data(transaction)
-                    .build();
-
-            return ResponseEntity.ok(response);
-
-        } catch (Exception ex) {
-            ApiResponse<TransactionResponse> errorResponse = ApiResponse.<TransactionResponse>builder()
-                    .status(HttpStatus.BAD_REQUEST.value())
-                    .message("Deposit failed: " + ex.getMessage())
-                    .data(null)
-                    .build();
-
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
-        }
+    public ResponseEntity<ApiResponse<TransactionResponse>> deposit(
+            @RequestBody TransactionRequest request,
+            @AuthenticationPrincipal UserDetails user,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        TransactionResponse transaction = transactionService.deposit(request, user.getUsername(), idempotencyKey);
+
+        ApiResponse<TransactionResponse> response = ApiResponse.<TransactionResponse>builder()
+                .status(HttpStatus.OK.value())
+                .message("Deposit successful")
+                .data(transaction)
+                .build();
+
+        return ResponseEntity.ok(response);
     }
 
     /**
      * Performs a withdrawal from a specified account.
      *
-     * @param request the transaction request containing account number and amount
+     * @param request        the transaction request containing account number and amount
+     * @param user           the authenticated caller, the scope of the idempotency key
+     * @param idempotencyKey optional key identifying retries of the same withdrawal
      * @return a {@link ResponseEntity} with an {@link ApiResponse} containing
      * the withdrawal transaction details or an error message
      */
     @PreAuthorize("hasAnyRole('ADMIN','CUSTOMER')")
     @PostMapping("/withdraw")
-    public ResponseEntity<ApiResponse<TransactionResponse>> withdraw(@RequestBody TransactionRequest request) {
-        try {
-            TransactionResponse transaction = transactionService.withdraw(request);
-
-            ApiResponse<TransactionResponse> response = ApiResponse.<TransactionResponse>builder()
-                    .status(HttpStatus.OK.value())
-                    .message("Withdrawal successful")
-                    .data(transaction)
-                    .build();
-
-            return ResponseEntity.ok(response);
-
-        } catch (Exception ex) {
-            ApiResponse<TransactionResponse> errorResponse = ApiResponse.<TransactionResponse>builder()
-                    .status(HttpStatus.BAD_REQUEST.value())
-                    .message("Withdrawal failed: " + ex.getMessage())
-                    .data(null)
-                    .build();
-
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
-        }
+    public ResponseEntity<ApiResponse<TransactionResponse>> withdraw(
+            @RequestBody TransactionRequest request,
+            @AuthenticationPrincipal UserDetails user,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        TransactionResponse transaction = transactionService.withdraw(request, user.getUsername(), idempotencyKey);
+
+        ApiResponse<TransactionResponse> response = ApiResponse.<TransactionResponse>builder()
+                .status(HttpStatus.OK.value())
+                .message("Withdrawal successful")
+                .data(transaction)
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Transfers money between two accounts in a single transaction.
+     *
+     * @param request the transfer request containing source and destination account numbers and amount
+     * @return a {@link ResponseEntity} with an {@link ApiResponse} containing
+     * the transfer details or an error message
+     */
+    @PreAuthorize("hasAnyRole('ADMIN','CUSTOMER')")
+    @PostMapping("/transfer")
+    public ResponseEntity<ApiResponse<TransferResponse>> transfer(@RequestBody TransferRequest request) {
+        TransferResponse transfer = transactionService.transfer(request);
+
+        ApiResponse<TransferResponse> response = ApiResponse.<TransferResponse>builder()
+                .status(HttpStatus.OK.value())
+                .message("Transfer successful")
+                .data(transfer)
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Applies a batch of deposits and withdrawals in one call.
+     *
+     * <p>Each item carries its own {@code type} ({@code DEPOSIT} or
+     * {@code WITHDRAWAL}). The response lists the outcome of every item in
+     * submission order, so a partially failed batch still returns 200.</p>
+     *
+     * @param items the transactions to apply
+     * @return a {@link ResponseEntity} with an {@link ApiResponse} containing
+     * the per-item results or an error message
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<List<BatchTransactionResult>>> processBatch(@RequestBody List<BatchTransactionItem> items) {
+        List<BatchTransactionResult> results = transactionService.processBatch(items);
+        long failed = results.stream().filter(result -> !result.isSuccess()).count();
+
+        ApiResponse<List<BatchTransactionResult>> response = ApiResponse.<List<BatchTransactionResult>>builder()
+                .status(HttpStatus.OK.value())
+                .message("Batch processed: " + (results.size() - failed) + " succeeded, " + failed + " failed")
+                .data(results)
+                .build();
+
+        return ResponseEntity.ok(response);
     }
 
     /**
      * Retrieves the transaction history for a specified account.
      *
      * @param accountNumber the account number whose transaction history is requested
+     * @param from          optional inclusive lower bound on the transaction time (ISO date-time)
+     * @param to            optional exclusive upper bound on the transaction time (ISO date-time)
      * @return a {@link ResponseEntity} with an {@link ApiResponse} containing
      * a list of {@link TransactionDTO} objects or an error message
      */
     @PreAuthorize("hasAnyRole('ADMIN','CUSTOMER')")
     @GetMapping("/history/{accountNumber}")
-    public ResponseEntity<ApiResponse<List<TransactionDTO>>> getTransactionHistoryResponse(@PathVariable String accountNumber) {
-        try {
-            List<TransactionDTO> transactions = transactionService.getTransactionHistory(accountNumber);
-
-            ApiResponse<List<TransactionDTO>> response = ApiResponse.<List<TransactionDTO>>builder()
-                    .status(HttpStatus.OK.value())
-                    .message("Transaction history fetched successfully")
-                    .data(transactions)
-                    .build();
-
-            return ResponseEntity.ok(response);
-
-        } catch (Exception ex) {
-            ApiResponse<List<TransactionDTO>> errorResponse = ApiResponse.<List<TransactionDTO>>builder()
-                    .status(HttpStatus.BAD_REQUEST.value())
-                    .message("Failed to fetch transaction history: " + ex.getMessage())
-                    .data(null)
-                    .build();
-
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
-        }
+    public ResponseEntity<ApiResponse<List<TransactionDTO>>> getTransactionHistoryResponse(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        List<TransactionDTO> transactions = transactionService.getTransactionHistory(accountNumber, from, to);
+
+        ApiResponse<List<TransactionDTO>> response = ApiResponse.<List<TransactionDTO>>builder()
+                .status(HttpStatus.OK.value())
+                .message("Transaction history fetched successfully")
+                .data(transactions)
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Retrieves one page of the transaction history using keyset pagination.
+     *
+     * @param accountNumber the account number whose transaction history is requested
+     * @param cursor        the {@code nextCursor} of the previous page; omit for the first page
+     * @param limit         the maximum number of transactions in the page
+     * @param from          optional inclusive lower bound on the transaction time (ISO date-time)
+     * @param to            optional exclusive upper bound on the transaction time (ISO date-time)
+     * @param type          optional transaction type filter ({@code DEPOSIT} or {@code WITHDRAWAL})
+     * @return a {@link ResponseEntity} with an {@link ApiResponse} containing
+     * a {@link TransactionPage} or an error message
+     */
+    @PreAuthorize("hasAnyRole('ADMIN','CUSTOMER')")
+    @GetMapping("/history/{accountNumber}/page")
+    public ResponseEntity<ApiResponse<TransactionPage>> getTransactionHistoryPage(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String type) {
+        TransactionPage page = transactionService.getTransactionHistoryPage(accountNumber, cursor, limit, from, to, type);
+
+        ApiResponse<TransactionPage> response = ApiResponse.<TransactionPage>builder()
+                .status(HttpStatus.OK.value())
+                .message("Transaction history fetched successfully")
+                .data(page)
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Streams the full transaction history as newline-delimited JSON, one
+     * {@link TransactionDTO} per line, oldest first.
+     *
+     * <p>Rows are written to the response as they are read from the database,
+     * so memory use does not depend on the size of the history.</p>
+     *
+     * @param accountNumber the account number whose transaction history is requested
+     * @param from          optional inclusive lower bound on the transaction time (ISO date-time)
+     * @param to            optional exclusive upper bound on the transaction time (ISO date-time)
+     * @param type          optional transaction type filter ({@code DEPOSIT} or {@code WITHDRAWAL})
+     * @return a {@link ResponseEntity} streaming the NDJSON lines
+     */
+    @PreAuthorize("hasAnyRole('ADMIN','CUSTOMER')")
+    @GetMapping("/history/{accountNumber}/stream")
+    public ResponseEntity<StreamingResponseBody> streamTransactionHistory(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String type) {
+        Long accountId = transactionService.findAccountId(accountNumber);
+
+        StreamingResponseBody body = out -> {
+            try (NdjsonWriter writer = new NdjsonWriter(objectMapper, out)) {
+                transactionService.streamTransactionHistory(accountId, from, to, type, writer::write);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 }
@@ -0,0 +1,19 @@
+package com.example.banking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransactionItem {
+    private String type; // DEPOSIT / WITHDRAWAL
+    private String accountNumber;
+    private BigDecimal amount;
+    private String description;
+}
@@ -0,0 +1,24 @@
+package com.example.banking.dto;
+
+import com.example.banking.exception.ErrorCode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransactionResult {
+    private int index;            // Position of the item in the submitted batch
+    private String accountNumber;
+    private String type;
+    private BigDecimal amount;
+    private BigDecimal balanceAfter;
+    private boolean success;
+    private ErrorCode errorCode;  // Failure code, null on success
+    private String message;       // Failure reason, null on success
+}
@@ -0,0 +1,25 @@
+package com.example.banking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobResponse {
+    private String jobId;
+    private String status;         // QUEUED / RUNNING / COMPLETED / FAILED
+    private Integer month;
+    private Integer year;
+    private Long customerId;       // Null when the report covers all customers
+    private Integer customers;     // Customers in the report, once completed
+    private Long sizeBytes;        // Size of the compressed result, once completed
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
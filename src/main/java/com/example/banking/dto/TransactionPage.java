@@ -0,0 +1,17 @@
+package com.example.banking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPage {
+    private List<TransactionDTO> items;
+    private String nextCursor; // Pass back as ?cursor= to get the next page, null on the last page
+}
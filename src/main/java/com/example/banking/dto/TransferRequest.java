@@ -0,0 +1,13 @@
+package com.example.banking.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class TransferRequest {
+    private String fromAccountNumber;
+    private String toAccountNumber;
+    private BigDecimal amount;
+    private String description;
+}
@@ -0,0 +1,21 @@
+package com.example.banking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferResponse {
+    private String reference;          // Shared by both ledger entries of the transfer
+    private String fromAccountNumber;
+    private String toAccountNumber;
+    private BigDecimal amount;
+    private BigDecimal fromBalanceAfter;
+    private BigDecimal toBalanceAfter;
+}
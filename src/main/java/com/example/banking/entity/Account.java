@@ -32,9 +32,18 @@ public class Account {
     @Column(precision = 15, scale = 2)
     private BigDecimal balance = BigDecimal.ZERO;
 
+    // Optimistic lock guarding concurrent balance updates
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     private LocalDateTime createdAt = LocalDateTime.now();
 
-    // Relations
-    @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, orphanRemoval = true)
+    // Number of balance stripes for hot accounts; null or 1 means the balance lives in this row only
+    private Integer stripeCount;
+
+    // Relations; refresh and lock are not cascaded so re-reading a balance never loads the ledger
+    @OneToMany(mappedBy = "account", cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REMOVE},
+            orphanRemoval = true)
     private List<Transaction> transactions;
 }
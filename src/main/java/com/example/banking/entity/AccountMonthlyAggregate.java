@@ -0,0 +1,63 @@
+package com.example.banking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Running totals of an account's ledger for one calendar month, maintained
+ * with every posting so that monthly reports do not have to scan the ledger.
+ *
+ * <p>Credits to a striped account are counted in the slot of the stripe they
+ * landed on, so that concurrent deposits to a hot account do not all update
+ * the same aggregate row; everything else uses slot 0. Month totals are the
+ * sum over all slots.</p>
+ */
+@Entity
+@Table(name = "account_monthly_aggregates",
+        uniqueConstraints = @UniqueConstraint(name = "uk_account_monthly_aggregates",
+                columnNames = {"account_id", "period_year", "period_month", "slot"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountMonthlyAggregate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @Column(name = "period_year", nullable = false)
+    private int periodYear;
+
+    @Column(name = "period_month", nullable = false)
+    private int periodMonth;
+
+    @Column(nullable = false)
+    private int slot;
+
+    @Column(nullable = false)
+    private long depositCount;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal depositTotal;
+
+    @Column(nullable = false)
+    private long withdrawalCount;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal withdrawalTotal;
+
+    // Smallest and largest single posting of the month, of either type
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal minAmount;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal maxAmount;
+}
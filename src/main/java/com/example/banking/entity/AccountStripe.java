@@ -0,0 +1,32 @@
+package com.example.banking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "account_stripes",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "stripe_index"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountStripe {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    // 1..stripeCount-1; stripe 0 is the balance column of the account row itself
+    @Column(name = "stripe_index", nullable = false)
+    private int stripeIndex;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal balance;
+}
@@ -0,0 +1,82 @@
+package com.example.banking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Stored outcome of a deposit or withdrawal submitted with an
+ * {@code Idempotency-Key}, written in the same transaction as the posting.
+ * Keys are scoped to the user who sent them, so two users can never collide.
+ */
+@Entity
+@Table(name = "idempotency_keys",
+        indexes = @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at"))
+@IdClass(IdempotencyRecord.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord implements Persistable<IdempotencyRecord.Key> {
+
+    /**
+     * Primary key: the username of the caller and the key they sent.
+     */
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private String principal;
+        private String idempotencyKey;
+    }
+
+    @Id
+    @Column(length = 50)
+    private String principal;
+
+    @Id
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+
+    @Column(nullable = false, length = 20)
+    private String type; // DEPOSIT / WITHDRAWAL
+
+    @Column(nullable = false, length = 20)
+    private String accountNumber;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal amount;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal balanceAfter;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Keys are assigned by clients, so tell Spring Data to persist instead of merging (no SELECT first)
+    @Transient
+    @Builder.Default
+    private boolean newRecord = true;
+
+    @Override
+    public Key getId() {
+        return new Key(principal, idempotencyKey);
+    }
+
+    @Override
+    public boolean isNew() {
+        return newRecord;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newRecord = false;
+    }
+}
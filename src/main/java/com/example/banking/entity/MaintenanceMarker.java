@@ -0,0 +1,28 @@
+package com.example.banking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records that a one-off maintenance task has been claimed, so that only one
+ * of several instances starting together runs it. See
+ * {@link com.example.banking.repository.MaintenanceMarkerRepository#claim}.
+ */
+@Entity
+@Table(name = "maintenance_markers")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MaintenanceMarker {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime claimedAt;
+}
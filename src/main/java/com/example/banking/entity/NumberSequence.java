@@ -0,0 +1,26 @@
+package com.example.banking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Next unreserved value of a named number sequence. Nodes reserve blocks of
+ * values by advancing it under a row lock, see
+ * {@link com.example.banking.service.AccountNumberAllocator}.
+ */
+@Entity
+@Table(name = "number_sequences")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NumberSequence {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private Long nextValue;
+}
@@ -0,0 +1,55 @@
+package com.example.banking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A monthly report generated in the background. The report itself is written
+ * to a gzip-compressed NDJSON file named after the job id.
+ *
+ * <p>An unfinished job belongs to the instance that accepted it, which
+ * refreshes {@code heartbeatAt} while the job is queued or running.</p>
+ */
+@Entity
+@Table(name = "report_jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReportJob {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(nullable = false, length = 20)
+    private String status; // QUEUED / RUNNING / COMPLETED / FAILED
+
+    @Column(name = "period_year", nullable = false)
+    private int periodYear;
+
+    @Column(name = "period_month", nullable = false)
+    private int periodMonth;
+
+    private Long customerId; // Only this customer, or null for all customers
+
+    private Integer customers;
+
+    private Long sizeBytes;
+
+    @Column(length = 500)
+    private String error;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime completedAt;
+
+    @Column(name = "owner_id", length = 36)
+    private String ownerId; // Instance that runs the job
+
+    private LocalDateTime heartbeatAt;
+}
@@ -7,7 +7,12 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions",
+        indexes = {
+                @Index(name = "idx_transactions_account_time", columnList = "account_id, transaction_time"),
+                // Month-wide scans without an account, e.g. rebuilding the monthly aggregates
+                @Index(name = "idx_transactions_time", columnList = "transaction_time")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,8 +20,10 @@ import java.time.LocalDateTime;
 @Builder
 public class Transaction {
 
+    // Pooled sequence ids let Hibernate batch ledger inserts (IDENTITY disables JDBC batching)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -33,4 +40,8 @@ public class Transaction {
 
     @Column(columnDefinition = "TEXT")
     private String description;
+
+    // Links the withdrawal and deposit legs of a transfer; null for standalone transactions
+    @Column(length = 36)
+    private String reference;
 }
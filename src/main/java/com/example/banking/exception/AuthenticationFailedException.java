@@ -0,0 +1,15 @@
+package com.example.banking.exception;
+
+/**
+ * The supplied credentials do not identify a user.
+ */
+public class AuthenticationFailedException extends BankingException {
+
+    public AuthenticationFailedException(ErrorCode code) {
+        super(code);
+    }
+
+    public AuthenticationFailedException(ErrorCode code, String message) {
+        super(code, message);
+    }
+}
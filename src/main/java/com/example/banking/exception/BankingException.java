@@ -0,0 +1,48 @@
+package com.example.banking.exception;
+
+/**
+ * Base class of the exceptions that refuse a request for an expected reason,
+ * e.g. an unknown account or an insufficient balance.
+ *
+ * <p>These exceptions carry no stack trace and no suppressed exceptions: they
+ * describe an outcome, not a bug, and filling in the stack on every refused
+ * request would dominate the cost of refusing it. They are mapped to the
+ * status of their {@link ErrorCode} by {@link GlobalExceptionHandler}.</p>
+ */
+public class BankingException extends RuntimeException {
+
+    private final ErrorCode code;
+
+    public BankingException(ErrorCode code) {
+        this(code, code.getDefaultMessage());
+    }
+
+    public BankingException(ErrorCode code, String message) {
+        super(message, null, false, false);
+        this.code = code;
+    }
+
+    public ErrorCode getCode() {
+        return code;
+    }
+
+    /**
+     * Creates the exception type matching the status of a code, for outcomes
+     * that were recorded as a code and are thrown later, e.g. a failed posting
+     * of a group commit.
+     *
+     * @param code    the error code
+     * @param message the message, or {@code null} for the default one
+     * @return the exception, not thrown
+     */
+    public static BankingException of(ErrorCode code, String message) {
+        String text = message != null ? message : code.getDefaultMessage();
+        return switch (code.getStatus()) {
+            case BAD_REQUEST -> new InvalidRequestException(code, text);
+            case UNAUTHORIZED -> new AuthenticationFailedException(code, text);
+            case NOT_FOUND, GONE -> new ResourceNotFoundException(code, text);
+            case SERVICE_UNAVAILABLE -> new ServiceBusyException(code, text);
+            default -> new BusinessRuleException(code, text);
+        };
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.banking.exception;
+
+/**
+ * The request is well-formed but breaks a business rule, e.g. an insufficient balance.
+ */
+public class BusinessRuleException extends BankingException {
+
+    public BusinessRuleException(ErrorCode code) {
+        super(code);
+    }
+
+    public BusinessRuleException(ErrorCode code, String message) {
+        super(code, message);
+    }
+}
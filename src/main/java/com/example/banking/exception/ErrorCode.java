@@ -0,0 +1,54 @@
+package com.example.banking.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Expected outcomes that refuse a request, with the HTTP status they are
+ * answered with and the message used when the throw site gives none.
+ *
+ * <p>The code name is returned to clients in the {@code data} field of the
+ * error response, so it must not change once published.</p>
+ */
+public enum ErrorCode {
+
+    INVALID_REQUEST(HttpStatus.BAD_REQUEST, "Invalid request"),
+    INVALID_AMOUNT(HttpStatus.BAD_REQUEST, "Amount must be greater than zero"),
+    INVALID_ACCOUNT_NUMBER(HttpStatus.BAD_REQUEST, "Invalid account number"),
+    SAME_ACCOUNT(HttpStatus.BAD_REQUEST, "Source and destination accounts must be different"),
+    UNSUPPORTED_TRANSACTION_TYPE(HttpStatus.BAD_REQUEST, "Unsupported transaction type"),
+    INVALID_CURSOR(HttpStatus.BAD_REQUEST, "Invalid cursor"),
+    INVALID_CREDENTIALS(HttpStatus.UNAUTHORIZED, "Invalid username or password"),
+    ACCOUNT_NOT_FOUND(HttpStatus.NOT_FOUND, "Account not found"),
+    CUSTOMER_NOT_FOUND(HttpStatus.NOT_FOUND, "Customer not found"),
+    USER_NOT_FOUND(HttpStatus.NOT_FOUND, "User not found"),
+    REPORT_JOB_NOT_FOUND(HttpStatus.NOT_FOUND, "Report job not found"),
+    USERNAME_TAKEN(HttpStatus.CONFLICT, "Username already taken!"),
+    ACCOUNT_BUSY(HttpStatus.CONFLICT, "Account is busy, please retry"),
+    REPORT_NOT_READY(HttpStatus.CONFLICT, "Report job has no result available"),
+    REPORT_RESULT_GONE(HttpStatus.GONE, "Report job result is no longer available"),
+    IDEMPOTENCY_KEY_REUSED(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key was already used for a different request"),
+    INSUFFICIENT_BALANCE(HttpStatus.UNPROCESSABLE_ENTITY, "Insufficient balance"),
+    LEDGER_BUSY(HttpStatus.SERVICE_UNAVAILABLE, "Ledger is busy, please retry"),
+    REPORT_QUEUE_FULL(HttpStatus.SERVICE_UNAVAILABLE, "Too many report jobs in progress, please retry later"),
+    LOGIN_BUSY(HttpStatus.SERVICE_UNAVAILABLE, "Too many logins in progress, please retry"),
+    IDEMPOTENCY_KEY_IN_PROGRESS(HttpStatus.SERVICE_UNAVAILABLE,
+            "A request with this Idempotency-Key is still in progress, please retry"),
+    INTERRUPTED(HttpStatus.SERVICE_UNAVAILABLE, "Request was interrupted, please retry");
+
+    private final HttpStatus status;
+
+    private final String defaultMessage;
+
+    ErrorCode(HttpStatus status, String defaultMessage) {
+        this.status = status;
+        this.defaultMessage = defaultMessage;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public String getDefaultMessage() {
+        return defaultMessage;
+    }
+}
@@ -4,16 +4,63 @@ import com.example.banking.dto.ApiResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.*;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    /**
+     * Handles {@link BankingException} exceptions.
+     *
+     * <p>Returns the HTTP status of the exception's {@link ErrorCode}, e.g.
+     * 404 for an unknown account or 422 for an insufficient balance, with the
+     * code name as data so clients need not parse the message.</p>
+     *
+     * @param ex the domain exception thrown
+     * @return a {@link ResponseEntity} containing an {@link ApiResponse}
+     * with the error message and code
+     */
+    @ExceptionHandler(BankingException.class)
+    public ResponseEntity<ApiResponse<String>> handleBankingException(BankingException ex) {
+        HttpStatus status = ex.getCode().getStatus();
+        ApiResponse<String> response = ApiResponse.<String>builder()
+                .status(status.value())
+                .message(ex.getMessage())
+                .data(ex.getCode().name())
+                .build();
+
+        return ResponseEntity.status(status).body(response);
+    }
+
+    /**
+     * Handles {@link CannotCreateTransactionException} exceptions.
+     *
+     * <p>Raised when no database connection could be obtained, e.g. because
+     * the connection bulkhead is saturated. Returns HTTP 503 Service
+     * Unavailable so that clients retry instead of treating it as a bad
+     * request.</p>
+     *
+     * @param ex the exception thrown
+     * @return a {@link ResponseEntity} containing an {@link ApiResponse}
+     * with the error message and status code 503
+     */
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<ApiResponse<String>> handleUnavailable(CannotCreateTransactionException ex) {
+        ApiResponse<String> response = ApiResponse.<String>builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .message("Service is busy, please retry")
+                .data(null)
+                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+
     /**
      * Handles {@link RuntimeException} exceptions.
      *
-     * <p>Examples include validation failures, "Username already taken!",
-     * or "Role not found". Returns HTTP 400 Bad Request.</p>
+     * <p>Covers request errors raised outside the domain, e.g. a malformed
+     * path variable or an invalid month. Returns HTTP 400 Bad Request.</p>
      *
      * @param ex the runtime exception thrown
      * @return a {@link ResponseEntity} containing an {@link ApiResponse}
@@ -0,0 +1,15 @@
+package com.example.banking.exception;
+
+/**
+ * The request is malformed or out of range, e.g. a non-positive amount.
+ */
+public class InvalidRequestException extends BankingException {
+
+    public InvalidRequestException(ErrorCode code) {
+        super(code);
+    }
+
+    public InvalidRequestException(ErrorCode code, String message) {
+        super(code, message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.banking.exception;
+
+/**
+ * A referenced account, customer, user or report does not exist (any more).
+ */
+public class ResourceNotFoundException extends BankingException {
+
+    public ResourceNotFoundException(ErrorCode code) {
+        super(code);
+    }
+
+    public ResourceNotFoundException(ErrorCode code, String message) {
+        super(code, message);
+    }
+}
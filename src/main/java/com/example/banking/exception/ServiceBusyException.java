@@ -0,0 +1,15 @@
+package com.example.banking.exception;
+
+/**
+ * The request could not be served now and should be retried, e.g. because a queue is full.
+ */
+public class ServiceBusyException extends BankingException {
+
+    public ServiceBusyException(ErrorCode code) {
+        super(code);
+    }
+
+    public ServiceBusyException(ErrorCode code, String message) {
+        super(code, message);
+    }
+}
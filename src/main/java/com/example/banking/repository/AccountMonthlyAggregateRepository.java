@@ -0,0 +1,82 @@
+package com.example.banking.repository;
+
+import com.example.banking.entity.AccountMonthlyAggregate;
+import com.example.banking.repository.projection.CustomerMonthTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface AccountMonthlyAggregateRepository extends JpaRepository<AccountMonthlyAggregate, Long> {
+
+    /**
+     * Adds the given counts and sums to an aggregate row, creating it if needed.
+     * The update reuses the bound parameters rather than the deprecated
+     * {@code VALUES(col)}; H2 does not support MySQL's row alias.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO account_monthly_aggregates " +
+            "(account_id, period_year, period_month, slot, deposit_count, deposit_total, " +
+            "withdrawal_count, withdrawal_total, min_amount, max_amount) " +
+            "VALUES (:accountId, :year, :month, :slot, :depositCount, :depositTotal, " +
+            ":withdrawalCount, :withdrawalTotal, :minAmount, :maxAmount) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "deposit_count = deposit_count + :depositCount, " +
+            "deposit_total = deposit_total + :depositTotal, " +
+            "withdrawal_count = withdrawal_count + :withdrawalCount, " +
+            "withdrawal_total = withdrawal_total + :withdrawalTotal, " +
+            "min_amount = LEAST(min_amount, :minAmount), " +
+            "max_amount = GREATEST(max_amount, :maxAmount)")
+    int upsert(@Param("accountId") Long accountId,
+               @Param("year") int year,
+               @Param("month") int month,
+               @Param("slot") int slot,
+               @Param("depositCount") long depositCount,
+               @Param("depositTotal") BigDecimal depositTotal,
+               @Param("withdrawalCount") long withdrawalCount,
+               @Param("withdrawalTotal") BigDecimal withdrawalTotal,
+               @Param("minAmount") BigDecimal minAmount,
+               @Param("maxAmount") BigDecimal maxAmount);
+
+    @Modifying
+    @Query(nativeQuery = true, value = "DELETE FROM account_monthly_aggregates " +
+            "WHERE period_year = :year AND period_month = :month")
+    int deleteByPeriod(@Param("year") int year, @Param("month") int month);
+
+    /**
+     * Recomputes the aggregates of one month from the ledger into slot 0.
+     * The month must have been deleted first.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO account_monthly_aggregates " +
+            "(account_id, period_year, period_month, slot, deposit_count, deposit_total, " +
+            "withdrawal_count, withdrawal_total, min_amount, max_amount) " +
+            "SELECT t.account_id, :year, :month, 0, " +
+            "SUM(CASE WHEN t.type = 'DEPOSIT' THEN 1 ELSE 0 END), " +
+            "COALESCE(SUM(CASE WHEN t.type = 'DEPOSIT' THEN t.amount END), 0), " +
+            "SUM(CASE WHEN t.type = 'WITHDRAWAL' THEN 1 ELSE 0 END), " +
+            "COALESCE(SUM(CASE WHEN t.type = 'WITHDRAWAL' THEN t.amount END), 0), " +
+            "MIN(t.amount), MAX(t.amount) " +
+            "FROM transactions t " +
+            "WHERE t.transaction_time >= :start AND t.transaction_time < :end " +
+            "GROUP BY t.account_id")
+    int insertFromLedger(@Param("year") int year,
+                         @Param("month") int month,
+                         @Param("start") LocalDateTime start,
+                         @Param("end") LocalDateTime end);
+
+    @Query("SELECT a.account.customer.id AS customerId, SUM(a.depositTotal) AS depositTotal, " +
+            "SUM(a.withdrawalTotal) AS withdrawalTotal " +
+            "FROM AccountMonthlyAggregate a " +
+            "WHERE a.periodYear = :year AND a.periodMonth = :month " +
+            "AND a.account.customer.id > :afterId AND a.account.customer.id <= :lastId " +
+            "GROUP BY a.account.customer.id")
+    List<CustomerMonthTotal> sumByCustomerIdRange(@Param("year") int year,
+                                                  @Param("month") int month,
+                                                  @Param("afterId") Long afterId,
+                                                  @Param("lastId") Long lastId);
+}
@@ -1,14 +1,85 @@
 package com.example.banking.repository;
 
+import com.example.banking.dto.AccountResponse;
 import com.example.banking.entity.Account;
+import com.example.banking.repository.projection.AccountRow;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AccountRepository extends JpaRepository<Account, Long> {
     Optional<Account> findByAccountNumber(String accountNumber);
 
-    List<Account> findByCustomerId(Long customerId);
+    // Constructor projections: one join to customer, no Account or Customer entities are loaded;
+    // the balance includes the stripes of striped accounts
+    String RESPONSE_SELECT = "SELECT new com.example.banking.dto.AccountResponse(" +
+            "a.id, a.accountNumber, a.accountType, " +
+            "a.balance + COALESCE((SELECT SUM(s.balance) FROM AccountStripe s WHERE s.account = a), 0), " +
+            "c.id, c.fullName) " +
+            "FROM Account a JOIN a.customer c ";
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(RESPONSE_SELECT + "ORDER BY a.id")
+    Stream<AccountResponse> streamAllResponses();
+
+    @Query(value = RESPONSE_SELECT + "ORDER BY a.id",
+            countQuery = "SELECT COUNT(a) FROM Account a")
+    Page<AccountResponse> findResponses(Pageable pageable);
+
+    @Query(RESPONSE_SELECT + "WHERE c.id = :customerId ORDER BY a.id")
+    List<AccountResponse> findResponsesByCustomerId(@Param("customerId") Long customerId);
+
+    @Query("SELECT a.customer.id AS customerId, a.id AS id, a.accountNumber AS accountNumber, " +
+            "a.accountType AS accountType, a.createdAt AS createdAt, " +
+            "a.balance + COALESCE((SELECT SUM(s.balance) FROM AccountStripe s WHERE s.account = a), 0) AS balance " +
+            "FROM Account a WHERE a.customer.id > :afterId AND a.customer.id <= :lastId " +
+            "ORDER BY a.customer.id, a.id")
+    List<AccountRow> findRowsByCustomerIdRange(@Param("afterId") Long afterId,
+                                               @Param("lastId") Long lastId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<Account> findByAccountNumberForUpdate(@Param("accountNumber") String accountNumber);
+
+    @Query("SELECT a.id FROM Account a WHERE a.accountNumber IN :accountNumbers")
+    List<Long> findIdsByAccountNumberIn(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    // Scanning the primary key makes the database take the row locks in ascending id order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> findByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Atomically adds {@code delta} to the balance of an account, but only if
+     * the resulting balance does not go negative.
+     *
+     * <p>The version is bumped as well so that optimistic writers working on a
+     * stale copy of the same row still detect the change.</p>
+     *
+     * @param id    the account ID
+     * @param delta the signed amount to apply
+     * @return {@code 1} if the balance was updated, {@code 0} if funds were insufficient
+     */
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + :delta, a.version = a.version + 1 " +
+            "WHERE a.id = :id AND a.balance + :delta >= 0")
+    int applyBalanceDelta(@Param("id") Long id, @Param("delta") BigDecimal delta);
 
 }
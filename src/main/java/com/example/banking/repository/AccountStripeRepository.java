@@ -0,0 +1,33 @@
+package com.example.banking.repository;
+
+import com.example.banking.entity.AccountStripe;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface AccountStripeRepository extends JpaRepository<AccountStripe, Long> {
+
+    @Modifying
+    @Query("UPDATE AccountStripe s SET s.balance = s.balance + :amount " +
+            "WHERE s.account.id = :accountId AND s.stripeIndex = :stripeIndex")
+    int creditStripe(@Param("accountId") Long accountId,
+                     @Param("stripeIndex") int stripeIndex,
+                     @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("UPDATE AccountStripe s SET s.balance = 0 WHERE s.account.id = :accountId")
+    int resetBalances(@Param("accountId") Long accountId);
+
+    @Query("SELECT COALESCE(SUM(s.balance), 0) FROM AccountStripe s WHERE s.account.id = :accountId")
+    BigDecimal sumBalance(@Param("accountId") Long accountId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountStripe s WHERE s.account.id = :accountId ORDER BY s.stripeIndex")
+    List<AccountStripe> findByAccountIdForUpdate(@Param("accountId") Long accountId);
+}
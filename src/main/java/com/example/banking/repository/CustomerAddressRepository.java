@@ -1,11 +1,22 @@
 package com.example.banking.repository;
 
 import com.example.banking.entity.CustomerAddress;
+import com.example.banking.repository.projection.CustomerAddressRow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface CustomerAddressRepository extends JpaRepository<CustomerAddress, Long> {
 
     List<CustomerAddress> findByCustomerId(Long customerId);
+
+    @Query("SELECT a.customer.id AS customerId, a.id AS id, a.addressLine1 AS addressLine1, " +
+            "a.addressLine2 AS addressLine2, a.city AS city, a.state AS state, a.postalCode AS postalCode, " +
+            "a.country AS country, a.addressType AS addressType " +
+            "FROM CustomerAddress a WHERE a.customer.id > :afterId AND a.customer.id <= :lastId " +
+            "ORDER BY a.customer.id, a.id")
+    List<CustomerAddressRow> findRowsByCustomerIdRange(@Param("afterId") Long afterId,
+                                                       @Param("lastId") Long lastId);
 }
@@ -1,12 +1,61 @@
 package com.example.banking.repository;
 
+import com.example.banking.dto.CustomerResponse;
 import com.example.banking.entity.Customer;
+import com.example.banking.repository.projection.CustomerIdBounds;
+import com.example.banking.repository.projection.CustomerSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
     Optional<Customer> findByUsername(String username);
     boolean existsByUsername(String username);
     Optional<Customer> findByEmail(String email);
+
+    /**
+     * Loads a customer together with its roles in a single query, for login.
+     */
+    @EntityGraph(attributePaths = "roles")
+    Optional<Customer> findWithRolesByUsername(String username);
+
+    /**
+     * Replaces a password hash, unless the password was changed in the meantime.
+     *
+     * @return {@code 1} if the hash was replaced, otherwise {@code 0}
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Customer c SET c.password = :newHash WHERE c.id = :id AND c.password = :oldHash")
+    int replacePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.banking.dto.CustomerResponse(c.id, c.username, c.email) " +
+            "FROM Customer c ORDER BY c.id")
+    Stream<CustomerResponse> streamAllResponses();
+
+    @Query("SELECT c.id AS id, c.username AS username, c.email AS email FROM Customer c " +
+            "WHERE c.id > :afterId ORDER BY c.id")
+    List<CustomerSummary> findSummariesAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT c.id AS id, c.username AS username, c.email AS email FROM Customer c " +
+            "WHERE c.id > :afterId AND c.id <= :lastId ORDER BY c.id")
+    List<CustomerSummary> findSummariesByIdRange(@Param("afterId") Long afterId, @Param("lastId") Long lastId);
+
+    @Query("SELECT MIN(c.id) AS minId, MAX(c.id) AS maxId FROM Customer c")
+    CustomerIdBounds findIdBounds();
 }
@@ -0,0 +1,23 @@
+package com.example.banking.repository;
+
+import com.example.banking.entity.MaintenanceMarker;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface MaintenanceMarkerRepository extends JpaRepository<MaintenanceMarker, String> {
+
+    /**
+     * Inserts the marker unless it already exists.
+     *
+     * @return 1 for the single caller that inserted it, 0 for everyone else
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT IGNORE INTO maintenance_markers (name, claimed_at) VALUES (:name, :now)")
+    int claim(@Param("name") String name, @Param("now") LocalDateTime now);
+}
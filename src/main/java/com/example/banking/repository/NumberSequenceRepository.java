@@ -0,0 +1,27 @@
+package com.example.banking.repository;
+
+import com.example.banking.entity.NumberSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface NumberSequenceRepository extends JpaRepository<NumberSequence, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM NumberSequence s WHERE s.name = :name")
+    Optional<NumberSequence> findByNameForUpdate(@Param("name") String name);
+
+    /**
+     * Creates the sequence unless it already exists.
+     *
+     * @return 1 if the sequence was created, 0 if it already existed
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT IGNORE INTO number_sequences (name, next_value) VALUES (:name, :firstValue)")
+    int createIfAbsent(@Param("name") String name, @Param("firstValue") long firstValue);
+}
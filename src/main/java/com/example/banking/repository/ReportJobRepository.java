@@ -0,0 +1,51 @@
+package com.example.banking.repository;
+
+import com.example.banking.entity.ReportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface ReportJobRepository extends JpaRepository<ReportJob, String> {
+
+    // Status transitions only apply from the expected status, so a job failed as stale
+    // by another instance is never revived by its original owner
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = 'RUNNING', j.heartbeatAt = :now WHERE j.id = :id AND j.status = 'QUEUED'")
+    int markRunning(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = 'COMPLETED', j.customers = :customers, j.sizeBytes = :sizeBytes, " +
+            "j.completedAt = :now, j.heartbeatAt = :now WHERE j.id = :id AND j.status = 'RUNNING'")
+    int markCompleted(@Param("id") String id, @Param("customers") int customers,
+                      @Param("sizeBytes") long sizeBytes, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = 'FAILED', j.error = :error, j.completedAt = :now, j.heartbeatAt = :now " +
+            "WHERE j.id = :id AND j.status IN ('QUEUED', 'RUNNING')")
+    int markFailed(@Param("id") String id, @Param("error") String error, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.heartbeatAt = :now " +
+            "WHERE j.ownerId = :ownerId AND j.status IN ('QUEUED', 'RUNNING')")
+    int touchOwned(@Param("ownerId") String ownerId, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = 'FAILED', j.error = :error, j.completedAt = :now " +
+            "WHERE j.status IN ('QUEUED', 'RUNNING') AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)")
+    int failStale(@Param("error") String error, @Param("now") LocalDateTime now,
+                  @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ReportJob j WHERE j.status IN ('COMPLETED', 'FAILED') AND j.completedAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,19 +1,86 @@
 package com.example.banking.repository;
 
+import com.example.banking.dto.TransactionDTO;
 import com.example.banking.entity.Transaction;
+import com.example.banking.repository.projection.TransactionRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     List<Transaction> findByAccountId(Long accountId);
 
-    @Query("SELECT t FROM Transaction t WHERE t.account.customer.id = :customerId " +
-            "AND MONTH(t.transactionTime) = :month AND YEAR(t.transactionTime) = :year")
-    List<Transaction> findByCustomerIdAndMonthAndYear(@Param("customerId") Long customerId,
-                                                      @Param("month") int month,
-                                                      @Param("year") int year);
+    @Query("SELECT t FROM Transaction t WHERE t.account.id = :accountId " +
+            "AND t.transactionTime >= :start AND t.transactionTime < :end " +
+            "ORDER BY t.transactionTime, t.id")
+    List<Transaction> findByAccountIdAndTimeRange(@Param("accountId") Long accountId,
+                                                  @Param("start") LocalDateTime start,
+                                                  @Param("end") LocalDateTime end);
+
+    /**
+     * Returns the next page of an account's history after the given
+     * {@code (transactionTime, id)} keyset position, oldest first.
+     *
+     * <p>The leading {@code transactionTime >= :afterTime} predicate keeps the
+     * seek on the {@code (account_id, transaction_time)} index regardless of
+     * how deep into the history the page is.</p>
+     */
+    @Query("SELECT new com.example.banking.dto.TransactionDTO(t.id, a.accountNumber, t.amount, t.description, " +
+            "t.transactionTime, t.type) " +
+            "FROM Transaction t JOIN t.account a WHERE a.id = :accountId " +
+            "AND t.transactionTime >= :afterTime AND t.transactionTime < :end " +
+            "AND (t.transactionTime > :afterTime OR t.id > :afterId) " +
+            "AND (:type IS NULL OR t.type = :type) " +
+            "ORDER BY t.transactionTime, t.id")
+    List<TransactionDTO> findHistoryPage(@Param("accountId") Long accountId,
+                                         @Param("afterTime") LocalDateTime afterTime,
+                                         @Param("afterId") Long afterId,
+                                         @Param("end") LocalDateTime end,
+                                         @Param("type") String type,
+                                         Limit limit);
+
+    /**
+     * Streams an account's history from a database cursor, oldest first.
+     * Must be consumed inside a read-only transaction and closed afterwards.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.banking.dto.TransactionDTO(t.id, a.accountNumber, t.amount, t.description, " +
+            "t.transactionTime, t.type) " +
+            "FROM Transaction t JOIN t.account a WHERE a.id = :accountId " +
+            "AND t.transactionTime >= :start AND t.transactionTime < :end " +
+            "AND (:type IS NULL OR t.type = :type) " +
+            "ORDER BY t.transactionTime, t.id")
+    Stream<TransactionDTO> streamHistory(@Param("accountId") Long accountId,
+                                         @Param("start") LocalDateTime start,
+                                         @Param("end") LocalDateTime end,
+                                         @Param("type") String type);
+
+    @Query("SELECT a.customer.id AS customerId, t.id AS id, a.accountNumber AS accountNumber, " +
+            "t.amount AS amount, t.description AS description, t.transactionTime AS transactionTime, t.type AS type " +
+            "FROM Transaction t JOIN t.account a " +
+            "WHERE a.customer.id > :afterId AND a.customer.id <= :lastId " +
+            "AND t.transactionTime >= :start AND t.transactionTime < :end " +
+            "ORDER BY a.customer.id, t.transactionTime, t.id")
+    List<TransactionRow> findRowsByCustomerIdRangeAndTimeRange(@Param("afterId") Long afterId,
+                                                               @Param("lastId") Long lastId,
+                                                               @Param("start") LocalDateTime start,
+                                                               @Param("end") LocalDateTime end);
+
+    @Query("SELECT MIN(t.transactionTime) FROM Transaction t")
+    LocalDateTime findFirstTransactionTime();
+
+    @Query("SELECT MAX(t.transactionTime) FROM Transaction t")
+    LocalDateTime findLastTransactionTime();
 
 }
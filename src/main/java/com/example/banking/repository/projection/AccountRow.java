@@ -0,0 +1,21 @@
+package com.example.banking.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Account columns keyed by the owning customer. The balance includes any stripes.
+ */
+public interface AccountRow {
+    Long getCustomerId();
+
+    Long getId();
+
+    String getAccountNumber();
+
+    String getAccountType();
+
+    BigDecimal getBalance();
+
+    LocalDateTime getCreatedAt();
+}
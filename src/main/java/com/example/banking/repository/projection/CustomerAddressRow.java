@@ -0,0 +1,24 @@
+package com.example.banking.repository.projection;
+
+/**
+ * Address columns keyed by the owning customer.
+ */
+public interface CustomerAddressRow {
+    Long getCustomerId();
+
+    Long getId();
+
+    String getAddressLine1();
+
+    String getAddressLine2();
+
+    String getCity();
+
+    String getState();
+
+    String getPostalCode();
+
+    String getCountry();
+
+    String getAddressType();
+}
@@ -0,0 +1,10 @@
+package com.example.banking.repository.projection;
+
+/**
+ * Smallest and largest customer id, both {@code null} when there are no customers.
+ */
+public interface CustomerIdBounds {
+    Long getMinId();
+
+    Long getMaxId();
+}
@@ -0,0 +1,15 @@
+package com.example.banking.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Deposit and withdrawal totals of one customer for a month, summed from the
+ * monthly aggregates of the customer's accounts.
+ */
+public interface CustomerMonthTotal {
+    Long getCustomerId();
+
+    BigDecimal getDepositTotal();
+
+    BigDecimal getWithdrawalTotal();
+}
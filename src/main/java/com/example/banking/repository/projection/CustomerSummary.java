@@ -0,0 +1,12 @@
+package com.example.banking.repository.projection;
+
+/**
+ * Narrow view of a customer used by reports, without addresses, accounts or roles.
+ */
+public interface CustomerSummary {
+    Long getId();
+
+    String getUsername();
+
+    String getEmail();
+}
@@ -0,0 +1,23 @@
+package com.example.banking.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ledger columns together with the account number and owning customer.
+ */
+public interface TransactionRow {
+    Long getCustomerId();
+
+    Long getId();
+
+    String getAccountNumber();
+
+    BigDecimal getAmount();
+
+    String getDescription();
+
+    LocalDateTime getTransactionTime();
+
+    String getType();
+}
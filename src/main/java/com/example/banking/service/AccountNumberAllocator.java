@@ -0,0 +1,155 @@
+package com.example.banking.service;
+
+import com.example.banking.entity.NumberSequence;
+import com.example.banking.repository.NumberSequenceRepository;
+import com.example.banking.util.AccountNumbers;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Allocates account numbers in the format of {@link AccountNumbers}.
+ *
+ * <p>Each node reserves blocks of {@code app.accounts.number.block-size}
+ * values from the {@code account_number} row of {@code number_sequences}
+ * (created on first use if missing), in a short transaction of its own, and
+ * hands them out from memory with a
+ * single atomic increment. Numbers therefore never collide, across threads
+ * or nodes, and opening an account only touches the sequence once per
+ * block. Values left in a block when the node stops are never used, so
+ * numbers have gaps.</p>
+ */
+@Component
+@Slf4j
+public class AccountNumberAllocator {
+
+    static final String SEQUENCE = "account_number";
+
+    private record Block(AtomicLong next, long end) {
+    }
+
+    // Reserves the given number of values and returns the first one
+    private final LongUnaryOperator reserve;
+
+    private final int blockSize;
+
+    private final ReentrantLock refillLock = new ReentrantLock();
+
+    private volatile Block block = new Block(new AtomicLong(), 0);
+
+    @Autowired
+    public AccountNumberAllocator(NumberSequenceRepository sequenceRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.accounts.number.block-size:1000}") int blockSize) {
+        this(reserveFrom(sequenceRepository, transactionManager), blockSize);
+    }
+
+    AccountNumberAllocator(LongUnaryOperator reserve, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be at least 1, was " + blockSize);
+        }
+        this.reserve = reserve;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Allocates one account number.
+     *
+     * @return a new account number
+     */
+    public String next() {
+        while (true) {
+            Block current = block;
+            long value = current.next().getAndIncrement();
+            if (value < current.end()) {
+                return AccountNumbers.format(value);
+            }
+            refill(current);
+        }
+    }
+
+    /**
+     * Allocates consecutive account numbers, e.g. to open accounts in bulk.
+     *
+     * <p>Requests up to the block size are served from the current block;
+     * larger ones reserve a range of their own.</p>
+     *
+     * @param count the number of account numbers
+     * @return {@code count} new account numbers, in ascending order
+     */
+    public List<String> next(int count) {
+        long first;
+        if (count > blockSize) {
+            first = reserve.applyAsLong(count);
+        } else {
+            while (true) {
+                Block current = block;
+                first = current.next().getAndAdd(count);
+                if (first + count <= current.end()) {
+                    break;
+                }
+                // The rest of this block is skipped
+                refill(current);
+            }
+        }
+
+        List<String> numbers = new ArrayList<>(count);
+        for (long value = first; value < first + count; value++) {
+            numbers.add(AccountNumbers.format(value));
+        }
+        return numbers;
+    }
+
+    private void refill(Block exhausted) {
+        refillLock.lock();
+        try {
+            // Another thread may have refilled while this one waited
+            if (block == exhausted) {
+                long first = reserve.applyAsLong(blockSize);
+                block = new Block(new AtomicLong(first), first + blockSize);
+                log.debug("Reserved account numbers {} to {}", first, first + blockSize - 1);
+            }
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private static LongUnaryOperator reserveFrom(NumberSequenceRepository sequenceRepository,
+                                                 PlatformTransactionManager transactionManager) {
+        // Never join the caller's transaction, which would hold the row lock until it commits
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicBoolean created = new AtomicBoolean();
+        return size -> {
+            // Make sure the row exists first, in a transaction of its own: locking a missing row takes a
+            // gap lock, and two nodes inserting into the same gap deadlock
+            if (!created.get()) {
+                template.executeWithoutResult(status ->
+                        sequenceRepository.createIfAbsent(SEQUENCE, AccountNumbers.FIRST_VALUE));
+                created.set(true);
+            }
+            return template.execute(status -> {
+                NumberSequence sequence = sequenceRepository.findByNameForUpdate(SEQUENCE)
+                        .orElseThrow(() -> new IllegalStateException("Sequence " + SEQUENCE + " is missing"));
+                long first = sequence.getNextValue();
+                if (first + size - 1 > AccountNumbers.MAX_VALUE) {
+                    throw new IllegalStateException("Account numbers are exhausted");
+                }
+                sequence.setNextValue(first + size);
+                sequenceRepository.saveAndFlush(sequence);
+                return first;
+            });
+        };
+    }
+}
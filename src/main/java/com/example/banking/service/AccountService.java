@@ -1,22 +1,36 @@
 package com.example.banking.service;
 
+import com.example.banking.cache.BalanceCache;
+import com.example.banking.cache.BalanceCacheStats;
+import com.example.banking.config.BankingMetrics;
 import com.example.banking.dto.AccountResponse;
 import com.example.banking.entity.Account;
 import com.example.banking.entity.Customer;
+import com.example.banking.exception.ErrorCode;
+import com.example.banking.exception.InvalidRequestException;
+import com.example.banking.exception.ResourceNotFoundException;
 import com.example.banking.repository.AccountRepository;
 import com.example.banking.repository.CustomerRepository;
+import com.example.banking.util.AccountNumbers;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -28,30 +42,45 @@ public class AccountService {
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private BalanceEngine balanceEngine;
+
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Autowired
+    private BankingMetrics metrics;
+
+    @Value("${app.accounts.bulk.max-items:1000}")
+    private int bulkMaxItems;
+
     /**
      * Creates a new account for a given customer.
      *
-     * <p>The account number is generated as a 12-character UUID substring,
+     * <p>The account number is taken from the {@link AccountNumberAllocator},
      * the initial balance is set to zero, and the creation timestamp is
      * recorded.</p>
      *
      * @param customerId  the ID of the customer for whom the account is created
      * @param accountType the type of account (e.g., "SAVINGS", "CURRENT")
      * @return the created {@link Account} entity
-     * @throws RuntimeException if the customer with the given ID does not exist
+     * @throws ResourceNotFoundException if the customer with the given ID does not exist
      */
     public Account createAccount(Long customerId, String accountType) {
         log.info("Starting account creation for customerId={}, accountType={}", customerId, accountType);
 
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> {
-                    log.error("Customer not found with id={}", customerId);
-                    return new RuntimeException("Customer not found");
+                    log.warn("Customer not found with id={}", customerId);
+                    return new ResourceNotFoundException(ErrorCode.CUSTOMER_NOT_FOUND);
                 });
 
         Account account = Account.builder()
                 .customer(customer)
-                .accountNumber(UUID.randomUUID().toString().substring(0, 12))
+                .accountNumber(accountNumberAllocator.next())
                 .accountType(accountType)
                 .balance(BigDecimal.ZERO)
                 .createdAt(LocalDateTime.now())
@@ -63,55 +92,162 @@ public class AccountService {
         return savedAccount;
     }
 
+    /**
+     * Opens one account of the same type for each of the given customers.
+     *
+     * <p>The customers are loaded with one query and the account numbers are
+     * allocated as one consecutive range before the accounts are inserted in
+     * a single transaction, so either all of them are opened or none.</p>
+     *
+     * @param customerIds the customers to open an account for, in order; a
+     *                    customer listed twice gets two accounts
+     * @param accountType the type of the accounts (e.g., "SAVINGS", "CURRENT")
+     * @return the created accounts, in the order of {@code customerIds}
+     * @throws InvalidRequestException   if the list is empty or larger than the configured limit
+     * @throws ResourceNotFoundException if a customer does not exist
+     */
+    public List<Account> createAccounts(List<Long> customerIds, String accountType) {
+        if (customerIds == null || customerIds.isEmpty()) {
+            throw new InvalidRequestException(ErrorCode.INVALID_REQUEST, "At least one customer is required");
+        }
+        if (customerIds.size() > bulkMaxItems) {
+            throw new InvalidRequestException(ErrorCode.INVALID_REQUEST,
+                    "Cannot open more than " + bulkMaxItems + " accounts at once");
+        }
+        log.info("Starting bulk account creation: accounts={}, accountType={}", customerIds.size(), accountType);
+
+        Map<Long, Customer> customers = new HashMap<>();
+        for (Customer customer : customerRepository.findAllById(new HashSet<>(customerIds))) {
+            customers.put(customer.getId(), customer);
+        }
+
+        List<String> accountNumbers = accountNumberAllocator.next(customerIds.size());
+        LocalDateTime now = LocalDateTime.now();
+        List<Account> accounts = new ArrayList<>(customerIds.size());
+        for (int i = 0; i < customerIds.size(); i++) {
+            Customer customer = customers.get(customerIds.get(i));
+            if (customer == null) {
+                log.warn("Customer not found with id={}", customerIds.get(i));
+                throw new ResourceNotFoundException(ErrorCode.CUSTOMER_NOT_FOUND,
+                        "Customer not found: " + customerIds.get(i));
+            }
+            accounts.add(Account.builder()
+                    .customer(customer)
+                    .accountNumber(accountNumbers.get(i))
+                    .accountType(accountType)
+                    .balance(BigDecimal.ZERO)
+                    .createdAt(now)
+                    .build());
+        }
+
+        List<Account> savedAccounts = balanceEngine.inTransaction(() -> accountRepository.saveAll(accounts));
+        log.info("Accounts created successfully: accounts={}, first={}, last={}", savedAccounts.size(),
+                accountNumbers.get(0), accountNumbers.get(accountNumbers.size() - 1));
+        return savedAccounts;
+    }
+
     /**
      * Retrieves the balance of an account by its account number.
      *
+     * <p>Balances are served from the balance cache when possible. On a miss
+     * the committed balance is read from the database and cached; for
+     * striped accounts the stripes are summed into the result.</p>
+     *
      * @param accountNumber the unique account number
      * @return the current balance as {@link BigDecimal}
-     * @throws RuntimeException if the account with the given number does not exist
+     * @throws InvalidRequestException   if the account number is malformed
+     * @throws ResourceNotFoundException if the account with the given number does not exist
      */
+    @Timed(value = BankingMetrics.SERVICE_TIMER, histogram = true)
     public BigDecimal getBalance(String accountNumber) {
-        log.info("Fetching balance for accountNumber={}", accountNumber);
+        log.debug("Fetching balance for accountNumber={}", accountNumber);
+        requireWellFormed(accountNumber);
+
+        Optional<BigDecimal> cached = balanceEngine.cachedBalance(accountNumber);
+        if (cached.isPresent()) {
+            log.debug("Balance cache hit for accountNumber={}", accountNumber);
+            return cached.get();
+        }
+
+        BigDecimal balance = balanceEngine.loadBalance(accountNumber);
+        log.info("Balance retrieved for accountNumber={}: {}", accountNumber, balance);
+        return balance;
+    }
 
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> {
-                    log.error("Account not found with accountNumber={}", accountNumber);
-                    return new RuntimeException("Account not found");
-                });
+    /**
+     * Splits the balance of a hot account across several stripe rows so that
+     * concurrent deposits do not all contend on the same database row.
+     *
+     * <p>Setting the stripe count back to 1 sweeps all stripes into the
+     * account row and disables striping.</p>
+     *
+     * @param accountNumber the unique account number
+     * @param stripes       the number of stripes, including the account row itself
+     * @return the updated {@link Account} entity
+     * @throws ResourceNotFoundException if the account is not found
+     * @throws InvalidRequestException   if the account number is malformed or the stripe count is out of range
+     */
+    public Account configureStripes(String accountNumber, int stripes) {
+        log.info("Configuring {} stripes for accountNumber={}", stripes, accountNumber);
+        requireWellFormed(accountNumber);
+        return balanceEngine.inTransaction(() -> balanceEngine.configureStripes(accountNumber, stripes));
+    }
 
-        log.info("Balance retrieved for accountNumber={}: {}", accountNumber, account.getBalance());
-        return account.getBalance();
+    /**
+     * Returns hit, miss and eviction counters of the balance cache.
+     *
+     * @return a snapshot of the {@link BalanceCacheStats}
+     */
+    public BalanceCacheStats getBalanceCacheStats() {
+        return balanceCache.stats();
     }
 
-    //get All Accounts
-    public List<Account> getAllAccounts() {
-        return accountRepository.findAll();
+    /**
+     * Streams all accounts with the name of their owner.
+     *
+     * <p>Selects exactly the {@link AccountResponse} columns with one join,
+     * without loading any {@link Account} or {@link Customer} entity, with a
+     * bounded JDBC fetch size, and hands the rows to {@code sink} one at a
+     * time, so memory use stays flat regardless of the number of accounts.</p>
+     *
+     * @param sink receives each account, ordered by id
+     */
+    @Transactional(readOnly = true)
+    public void streamAllAccounts(Consumer<AccountResponse> sink) {
+        try (Stream<AccountResponse> rows = accountRepository.streamAllResponses()) {
+            rows.forEach(sink);
+        }
     }
 
-    // Get paginated accounts
+    /**
+     * Retrieves one page of accounts with the name of their owner.
+     *
+     * @param page the zero-based page number
+     * @param size the page size
+     * @return the page of accounts, ordered by id
+     */
     public Page<AccountResponse> getAccounts(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-
-        Page<Account> accountPage = accountRepository.findAll(pageable);
-
-        // Map Account → AccountResponse
-        List<AccountResponse> accountResponses = accountPage.stream().map(account ->
-                AccountResponse.builder()
-                        .id(account.getId())
-                        .accountNumber(account.getAccountNumber())
-                        .accountType(account.getAccountType())
-                        .balance(account.getBalance())
-                        .customerId(account.getCustomer().getId())
-                        .customerName(account.getCustomer().getFullName())
-                        .build()
-        ).toList();
-
-        // Return new PageImpl to keep pagination info
-        return new PageImpl<>(accountResponses, pageable, accountPage.getTotalElements());
+        return accountRepository.findResponses(PageRequest.of(page, size));
     }
 
-    public List<Account> getAccountsByCustomerId(Long customerId) {
-        return accountRepository.findByCustomerId(customerId);
+    /**
+     * Retrieves the accounts of one customer.
+     *
+     * @param customerId the ID of the customer
+     * @return the customer's accounts, ordered by id
+     */
+    public List<AccountResponse> getAccountsByCustomerId(Long customerId) {
+        return accountRepository.findResponsesByCustomerId(customerId);
     }
 
+    /**
+     * Refuses an account number that cannot exist before any lookup is made.
+     */
+    private void requireWellFormed(String accountNumber) {
+        if (!AccountNumbers.isWellFormed(accountNumber)) {
+            log.debug("Malformed account number: accountNumber={}", accountNumber);
+            metrics.rejected(BankingMetrics.INVALID_ACCOUNT_NUMBER);
+            throw new InvalidRequestException(ErrorCode.INVALID_ACCOUNT_NUMBER);
+        }
+    }
 }
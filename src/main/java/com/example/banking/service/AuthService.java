@@ -6,15 +6,21 @@ import com.example.banking.dto.RegisterRequest;
 import com.example.banking.dto.AuthResponse;
 import com.example.banking.entity.Customer;
 import com.example.banking.entity.Role;
+import com.example.banking.exception.AuthenticationFailedException;
+import com.example.banking.exception.BusinessRuleException;
+import com.example.banking.exception.ErrorCode;
+import com.example.banking.exception.ResourceNotFoundException;
+import com.example.banking.exception.ServiceBusyException;
 import com.example.banking.repository.CustomerRepository;
 import com.example.banking.repository.RoleRepository;
+import com.example.banking.config.BankingMetrics;
 import com.example.banking.config.JwtUtil;
+import com.example.banking.config.TokenPrincipalCache;
+import com.example.banking.config.TokenRevocationList;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -31,31 +37,38 @@ public class AuthService {
     private RoleRepository roleRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
 
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private JwtUtil jwtUtil;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private TokenPrincipalCache tokenPrincipalCache;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private BankingMetrics metrics;
 
     /**
      * Registers a new user in the system.
      *
-     * <p>If the username already exists, a {@link RuntimeException} is thrown.
+     * <p>If the username already exists, a {@link BusinessRuleException} is thrown.
      * If the role specified in the request does not exist, it is created automatically.</p>
      *
      * @param request the registration request containing username, password, full name, email, phone, and role
      * @return an {@link ApiResponse} containing the username and success message
-     * @throws RuntimeException if the username is already taken
+     * @throws BusinessRuleException if the username is already taken
+     * @throws ServiceBusyException  if too many passwords are being hashed
      */
 
     public ApiResponse<String> register(RegisterRequest request) {
         log.info("Registering new user: username={}, role={}", request.getUsername(), request.getRole());
 
         if (customerRepository.existsByUsername(request.getUsername())) {
-            log.error("Username {} already taken", request.getUsername());
-            throw new RuntimeException("Username already taken!");
+            log.warn("Username {} already taken", request.getUsername());
+            throw new BusinessRuleException(ErrorCode.USERNAME_TAKEN);
         }
 
         String roleName = request.getRole() != null ? request.getRole().toUpperCase() : "CUSTOMER";
@@ -71,7 +84,7 @@ public class AuthService {
 
         Customer customer = Customer.builder()
                 .username(request.getUsername())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(passwordHasher.encode(request.getPassword()))
                 .fullName(request.getFullName())
                 .email(request.getEmail())
                 .phoneNumber(request.getPhoneNumber())
@@ -94,29 +107,36 @@ public class AuthService {
      * Authenticates a user and generates a JWT token.
      *
      * <p>The login request must contain the username and password. If authentication
-     * fails or the user does not exist, a {@link RuntimeException} is thrown.</p>
+     * fails or the user does not exist, an {@link AuthenticationFailedException} is thrown.</p>
+     *
+     * <p>The customer and its roles are loaded once, and the password is verified
+     * on the {@link PasswordHasher} pool. A hash of a lower cost than
+     * {@code app.auth.bcrypt.strength} is replaced with one of the current cost.</p>
      *
      * @param request the login request containing username and password
      * @return an {@link AuthResponse} containing the JWT token
-     * @throws RuntimeException if the user is not found
+     * @throws AuthenticationFailedException if the credentials are wrong or the user is not found
+     * @throws ServiceBusyException          if too many logins are in progress
      */
+    @Timed(value = BankingMetrics.SERVICE_TIMER, histogram = true)
     public AuthResponse login(LoginRequest request) {
         log.info("Authenticating user: username={}", request.getUsername());
 
-        try {
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
-            );
-        } catch (Exception ex) {
-            log.error("Authentication failed for username={}: {}", request.getUsername(), ex.getMessage());
-            throw new RuntimeException("Invalid username or password");
+        Customer userDetails = customerRepository.findWithRolesByUsername(request.getUsername()).orElse(null);
+        PasswordHasher.Verification verification = passwordHasher.verify(
+                request.getPassword() != null ? request.getPassword() : "",
+                userDetails != null ? userDetails.getPassword() : null);
+        if (!verification.matches()) {
+            log.warn("Authentication failed for username={}: {}", request.getUsername(),
+                    userDetails != null ? "bad credentials" : "user not found");
+            metrics.rejected(BankingMetrics.INVALID_CREDENTIALS);
+            throw new AuthenticationFailedException(ErrorCode.INVALID_CREDENTIALS);
         }
 
-        var userDetails = customerRepository.findByUsername(request.getUsername())
-                .orElseThrow(() -> {
-                    log.error("User not found: username={}", request.getUsername());
-                    return new RuntimeException("User not found");
-                });
+        if (verification.rehash() != null
+                && customerRepository.replacePasswordHash(userDetails.getId(), userDetails.getPassword(), verification.rehash()) == 1) {
+            log.info("Password hash upgraded to the current cost for username={}", request.getUsername());
+        }
 
         var springUser = new org.springframework.security.core.userdetails.User(
                 userDetails.getUsername(),
@@ -126,7 +146,7 @@ public class AuthService {
                         .toList()
         );
 
-        String token = jwtUtil.generateToken(springUser);
+        String token = jwtUtil.generateToken(springUser, userDetails.getId());
         log.info("JWT token generated for username={}", request.getUsername());
 
         // Extract role names as a list of strings
@@ -137,4 +157,23 @@ public class AuthService {
         // Return token, username, and roles
         return new AuthResponse(userDetails.getId(), token, userDetails.getUsername(), roles);
     }
+
+    /**
+     * Revokes every token issued to a user so far.
+     *
+     * <p>Subsequent requests carrying one of those tokens are rejected, even
+     * when authorization is built from token claims alone. The user has to
+     * log in again to obtain a new token.</p>
+     *
+     * @param username the user whose tokens are revoked
+     * @throws ResourceNotFoundException if the user does not exist
+     */
+    public void revokeTokens(String username) {
+        if (customerRepository.findByUsername(username).isEmpty()) {
+            log.warn("User not found: username={}", username);
+            throw new ResourceNotFoundException(ErrorCode.USER_NOT_FOUND);
+        }
+        tokenRevocationList.revoke(username);
+        tokenPrincipalCache.evictUser(username);
+    }
 }
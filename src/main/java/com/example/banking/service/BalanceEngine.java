@@ -0,0 +1,613 @@
+package com.example.banking.service;
+
+import com.example.banking.cache.BalanceCache;
+import com.example.banking.config.BankingMetrics;
+import com.example.banking.dto.BatchTransactionItem;
+import com.example.banking.dto.BatchTransactionResult;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.AccountStripe;
+import com.example.banking.entity.Transaction;
+import com.example.banking.exception.BankingException;
+import com.example.banking.exception.BusinessRuleException;
+import com.example.banking.exception.ErrorCode;
+import com.example.banking.exception.InvalidRequestException;
+import com.example.banking.exception.ResourceNotFoundException;
+import com.example.banking.exception.ServiceBusyException;
+import com.example.banking.repository.AccountRepository;
+import com.example.banking.repository.AccountStripeRepository;
+import com.example.banking.repository.TransactionRepository;
+import com.example.banking.util.AccountNumbers;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Applies balance mutations to accounts and writes the matching ledger rows.
+ *
+ * <p>Two strategies are supported, selected with {@code app.balance.strategy}:</p>
+ * <ul>
+ *     <li>{@link Strategy#ATOMIC} issues a single conditional
+ *     {@code UPDATE ... SET balance = balance + ? WHERE ... AND balance + ? >= 0},
+ *     so the database serializes writers on the row and no update can be lost.</li>
+ *     <li>{@link Strategy#OPTIMISTIC} reads the account, mutates it in memory and
+ *     relies on the {@code @Version} column to detect a concurrent writer, in which
+ *     case the whole unit of work is retried.</li>
+ * </ul>
+ *
+ * <p>Hot accounts can be striped: the balance is split between the account row
+ * and {@code stripeCount - 1} rows in {@code account_stripes}. Credits land on a
+ * random stripe, while debits run against the account row and sweep the stripes
+ * into it only when it runs short.</p>
+ *
+ * <p>Every ledger row is also added to its monthly aggregate through the
+ * {@link MonthlyAggregateService}, in the same transaction.</p>
+ *
+ * <p>Every mutation publishes the new balance to the {@link BalanceCache} once
+ * its transaction has committed, so cached reads never see uncommitted or
+ * rolled-back balances. Striped accounts are evicted rather than cached,
+ * because stripe credits do not bump the account row version.</p>
+ */
+@Component
+@Slf4j
+public class BalanceEngine {
+
+    public static final String DEPOSIT = "DEPOSIT";
+    public static final String WITHDRAWAL = "WITHDRAWAL";
+
+    public enum Strategy {
+        OPTIMISTIC,
+        ATOMIC
+    }
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountStripeRepository stripeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private MonthlyAggregateService monthlyAggregates;
+
+    @Autowired
+    private BankingMetrics metrics;
+
+    @Value("${app.balance.strategy:ATOMIC}")
+    private Strategy strategy;
+
+    @Value("${app.balance.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.balance.retry-backoff-ms:5}")
+    private long retryBackoffMs;
+
+    @Value("${app.balance.max-stripes:64}")
+    private int maxStripes;
+
+    /**
+     * Runs the given unit of work in a new database transaction, retrying it
+     * when it loses a race against a concurrent writer.
+     *
+     * <p>The work must be safe to re-execute: every attempt starts from a
+     * fresh persistence context and nothing is committed until it succeeds.</p>
+     *
+     * @param work the unit of work to execute
+     * @param <T>  the result type
+     * @return the result of the first successful attempt
+     * @throws BusinessRuleException if the work still conflicts after the configured number of attempts
+     */
+    public <T> T inTransaction(Supplier<T> work) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return template.execute(status -> work.get());
+            } catch (ConcurrencyFailureException ex) {
+                if (attempt >= maxAttempts) {
+                    log.error("Giving up after {} attempts due to concurrent updates: {}", attempt, ex.getMessage());
+                    metrics.rejected(BankingMetrics.ACCOUNT_BUSY);
+                    throw new BusinessRuleException(ErrorCode.ACCOUNT_BUSY);
+                }
+                log.debug("Concurrent update detected on attempt {}, retrying: {}", attempt, ex.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Credits an account and records a {@code DEPOSIT} ledger row.
+     * Must be called inside a transaction.
+     *
+     * @param accountNumber the account to credit
+     * @param amount        the positive amount to add
+     * @param description   optional ledger description
+     * @return the saved {@link Transaction}; its account carries the new balance
+     * @throws ResourceNotFoundException if the account is not found
+     * @throws InvalidRequestException   if the amount is not positive
+     */
+    public Transaction credit(String accountNumber, BigDecimal amount, String description) {
+        return post(accountNumber, amount, DEPOSIT, description);
+    }
+
+    /**
+     * Debits an account and records a {@code WITHDRAWAL} ledger row.
+     * Must be called inside a transaction.
+     *
+     * @param accountNumber the account to debit
+     * @param amount        the positive amount to subtract
+     * @param description   optional ledger description
+     * @return the saved {@link Transaction}; its account carries the new balance
+     * @throws ResourceNotFoundException if the account is not found
+     * @throws InvalidRequestException   if the amount is not positive
+     * @throws BusinessRuleException     if the balance is insufficient
+     */
+    public Transaction debit(String accountNumber, BigDecimal amount, String description) {
+        return post(accountNumber, amount, WITHDRAWAL, description);
+    }
+
+    /**
+     * Moves money between two accounts and records a {@code WITHDRAWAL} and a
+     * {@code DEPOSIT} ledger row sharing one reference.
+     * Must be called inside a transaction.
+     *
+     * <p>Both account rows are locked in ascending id order, the same order
+     * used by {@link #postBatch(List, int)}, so crossing transfers between the
+     * same accounts wait for each other instead of deadlocking.</p>
+     *
+     * @param fromAccountNumber the account to debit
+     * @param toAccountNumber   the account to credit
+     * @param amount            the positive amount to move
+     * @param description       optional ledger description
+     * @return the two saved ledger rows, withdrawal first; their accounts carry the new balances
+     * @throws ResourceNotFoundException if an account is not found
+     * @throws InvalidRequestException   if both accounts are the same or the amount is not positive
+     * @throws BusinessRuleException     if the balance is insufficient
+     */
+    public List<Transaction> transfer(String fromAccountNumber, String toAccountNumber,
+                                      BigDecimal amount, String description) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new InvalidRequestException(ErrorCode.INVALID_AMOUNT);
+        }
+        if (fromAccountNumber == null || fromAccountNumber.equals(toAccountNumber)) {
+            throw new InvalidRequestException(ErrorCode.SAME_ACCOUNT);
+        }
+
+        Map<String, Account> accounts = lockAccounts(List.of(fromAccountNumber, toAccountNumber));
+        Account from = accounts.get(fromAccountNumber);
+        Account to = accounts.get(toAccountNumber);
+        if (from == null || to == null) {
+            log.debug("Account not found for transfer: from={}, to={}", fromAccountNumber, toAccountNumber);
+            metrics.rejected(BankingMetrics.ACCOUNT_NOT_FOUND);
+            throw new ResourceNotFoundException(ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+
+        // Both rows are locked, so balances can be changed in memory; debit first because
+        // sweeping stripes refreshes the source account
+        if (from.getBalance().compareTo(amount) < 0 && isStriped(from)) {
+            consolidateStripes(from);
+        }
+        if (from.getBalance().compareTo(amount) < 0) {
+            throw insufficientBalance(from, amount);
+        }
+        from.setBalance(from.getBalance().subtract(amount));
+        to.setBalance(to.getBalance().add(amount));
+
+        String reference = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        List<Transaction> legs = transactionRepository.saveAll(List.of(
+                Transaction.builder()
+                        .account(from)
+                        .type(WITHDRAWAL)
+                        .amount(amount)
+                        .description(description)
+                        .transactionTime(now)
+                        .reference(reference)
+                        .build(),
+                Transaction.builder()
+                        .account(to)
+                        .type(DEPOSIT)
+                        .amount(amount)
+                        .description(description)
+                        .transactionTime(now)
+                        .reference(reference)
+                        .build()));
+
+        monthlyAggregates.record(legs, 0);
+        publishOnCommit(from);
+        publishOnCommit(to);
+        return legs;
+    }
+
+    /**
+     * Applies a chunk of deposits and withdrawals in the current transaction.
+     * Must be called inside a transaction.
+     *
+     * <p>All accounts referenced by the chunk are loaded and locked together,
+     * in ascending id order so that concurrent chunks cannot deadlock.
+     * Balances are then updated in memory and the ledger rows are saved
+     * together, which lets Hibernate send both as JDBC batches on commit.
+     * Striped accounts go through the regular row-level path.</p>
+     *
+     * <p>Items that cannot be applied (malformed or unknown account, bad
+     * amount or type, insufficient balance) are reported as failed without
+     * affecting the rest of the chunk.</p>
+     *
+     * @param items  the chunk to apply, in submission order
+     * @param offset the index of the first item within the whole batch
+     * @return one {@link BatchTransactionResult} per item, in the same order
+     */
+    public List<BatchTransactionResult> postBatch(List<BatchTransactionItem> items, int offset) {
+        Set<String> accountNumbers = new HashSet<>();
+        for (BatchTransactionItem item : items) {
+            if (AccountNumbers.isWellFormed(item.getAccountNumber())) {
+                accountNumbers.add(item.getAccountNumber());
+            }
+        }
+
+        Map<String, Account> accounts = lockAccounts(accountNumbers);
+
+        Set<Account> touched = new HashSet<>();
+        List<Transaction> ledger = new ArrayList<>(items.size());
+        List<BatchTransactionResult> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            BatchTransactionItem item = items.get(i);
+            String type = item.getType() != null ? item.getType().toUpperCase() : null;
+            BatchTransactionResult.BatchTransactionResultBuilder result = BatchTransactionResult.builder()
+                    .index(offset + i)
+                    .accountNumber(item.getAccountNumber())
+                    .type(type)
+                    .amount(item.getAmount());
+
+            Account account = accounts.get(item.getAccountNumber());
+            ErrorCode failure = null;
+            String message = null;
+            if (!DEPOSIT.equals(type) && !WITHDRAWAL.equals(type)) {
+                failure = ErrorCode.UNSUPPORTED_TRANSACTION_TYPE;
+            } else if (item.getAmount() == null || item.getAmount().signum() <= 0) {
+                failure = ErrorCode.INVALID_AMOUNT;
+            } else if (!AccountNumbers.isWellFormed(item.getAccountNumber())) {
+                failure = ErrorCode.INVALID_ACCOUNT_NUMBER;
+                metrics.rejected(BankingMetrics.INVALID_ACCOUNT_NUMBER);
+            } else if (account == null) {
+                failure = ErrorCode.ACCOUNT_NOT_FOUND;
+                metrics.rejected(BankingMetrics.ACCOUNT_NOT_FOUND);
+            } else if (isStriped(account)) {
+                try {
+                    post(account.getAccountNumber(), item.getAmount(), type, item.getDescription());
+                    results.add(result.success(true).balanceAfter(totalBalance(account)).build());
+                    continue;
+                } catch (BankingException ex) {
+                    failure = ex.getCode();
+                    message = ex.getMessage();
+                }
+            } else {
+                BigDecimal newBalance = WITHDRAWAL.equals(type)
+                        ? account.getBalance().subtract(item.getAmount())
+                        : account.getBalance().add(item.getAmount());
+                if (newBalance.signum() < 0) {
+                    failure = ErrorCode.INSUFFICIENT_BALANCE;
+                    metrics.rejected(BankingMetrics.INSUFFICIENT_BALANCE);
+                } else {
+                    account.setBalance(newBalance);
+                    touched.add(account);
+                    ledger.add(Transaction.builder()
+                            .account(account)
+                            .type(type)
+                            .amount(item.getAmount())
+                            .description(item.getDescription())
+                            .transactionTime(LocalDateTime.now())
+                            .build());
+                    results.add(result.success(true).balanceAfter(newBalance).build());
+                    continue;
+                }
+            }
+
+            if (message == null) {
+                message = failure.getDefaultMessage();
+            }
+            log.debug("Batch item {} rejected: accountNumber={}, reason={}", offset + i, item.getAccountNumber(), message);
+            results.add(result.success(false).errorCode(failure).message(message).build());
+        }
+
+        transactionRepository.saveAll(ledger);
+        monthlyAggregates.record(ledger, 0);
+        touched.forEach(this::publishOnCommit);
+        return results;
+    }
+
+    /**
+     * Returns the full balance of an account, including any stripes.
+     * Must be called inside a transaction when the account is striped.
+     *
+     * @param account the account
+     * @return the balance of the account row plus the sum of its stripes
+     */
+    public BigDecimal totalBalance(Account account) {
+        if (!isStriped(account)) {
+            return account.getBalance();
+        }
+        return account.getBalance().add(stripeRepository.sumBalance(account.getId()));
+    }
+
+    /**
+     * Reads the committed balance of an account from the database and stores
+     * it in the {@link BalanceCache}, unless the account is striped.
+     *
+     * @param accountNumber the unique account number
+     * @return the balance of the account, including any stripes
+     * @throws ResourceNotFoundException if the account is not found
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal loadBalance(String accountNumber) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> {
+                    log.debug("Account not found: accountNumber={}", accountNumber);
+                    metrics.rejected(BankingMetrics.ACCOUNT_NOT_FOUND);
+                    return new ResourceNotFoundException(ErrorCode.ACCOUNT_NOT_FOUND);
+                });
+
+        BigDecimal balance = totalBalance(account);
+        if (!isStriped(account) && account.getVersion() != null) {
+            balanceCache.put(accountNumber, balance, account.getVersion());
+        }
+        return balance;
+    }
+
+    /**
+     * Returns the cached balance of an account, if any.
+     *
+     * @param accountNumber the unique account number
+     * @return the cached balance, or empty on a miss
+     */
+    public Optional<BigDecimal> cachedBalance(String accountNumber) {
+        return balanceCache.get(accountNumber);
+    }
+
+    /**
+     * Changes the number of balance stripes of an account.
+     * Must be called inside a transaction.
+     *
+     * <p>Missing stripes are created with a zero balance. Stripes that are no
+     * longer needed are swept into the account row and removed, so
+     * {@code stripes = 1} turns striping off without moving any money.</p>
+     *
+     * @param accountNumber the account to re-stripe
+     * @param stripes       the new number of stripes, including the account row itself
+     * @return the updated {@link Account}
+     * @throws ResourceNotFoundException if the account is not found
+     * @throws InvalidRequestException   if the stripe count is out of range
+     */
+    public Account configureStripes(String accountNumber, int stripes) {
+        if (stripes < 1 || stripes > maxStripes) {
+            throw new InvalidRequestException(ErrorCode.INVALID_REQUEST, "Stripe count must be between 1 and " + maxStripes);
+        }
+
+        Account account = accountRepository.findByAccountNumberForUpdate(accountNumber)
+                .orElseThrow(() -> {
+                    log.debug("Account not found: accountNumber={}", accountNumber);
+                    metrics.rejected(BankingMetrics.ACCOUNT_NOT_FOUND);
+                    return new ResourceNotFoundException(ErrorCode.ACCOUNT_NOT_FOUND);
+                });
+
+        List<AccountStripe> existing = stripeRepository.findByAccountIdForUpdate(account.getId());
+        BigDecimal swept = BigDecimal.ZERO;
+        for (AccountStripe stripe : existing) {
+            if (stripe.getStripeIndex() >= stripes) {
+                swept = swept.add(stripe.getBalance());
+                stripeRepository.delete(stripe);
+            }
+        }
+        for (int index = existing.size() + 1; index < stripes; index++) {
+            stripeRepository.save(AccountStripe.builder()
+                    .account(account)
+                    .stripeIndex(index)
+                    .balance(BigDecimal.ZERO)
+                    .build());
+        }
+
+        account.setBalance(account.getBalance().add(swept));
+        account.setStripeCount(stripes > 1 ? stripes : null);
+        publishOnCommit(account);
+        log.info("Account re-striped: accountNumber={}, stripes={}, swept={}", accountNumber, stripes, swept);
+        return account;
+    }
+
+    private Transaction post(String accountNumber, BigDecimal amount, String type, String description) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new InvalidRequestException(ErrorCode.INVALID_AMOUNT);
+        }
+
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> {
+                    log.debug("Account not found: accountNumber={}", accountNumber);
+                    metrics.rejected(BankingMetrics.ACCOUNT_NOT_FOUND);
+                    return new ResourceNotFoundException(ErrorCode.ACCOUNT_NOT_FOUND);
+                });
+
+        Transaction transaction = Transaction.builder()
+                .account(account)
+                .type(type)
+                .amount(amount)
+                .description(description)
+                .transactionTime(LocalDateTime.now())
+                .build();
+
+        if (WITHDRAWAL.equals(type)) {
+            BigDecimal delta = amount.negate();
+            boolean applied = applyToAccountRow(account, delta);
+            if (!applied && isStriped(account)) {
+                // The locked re-read also picks up stripes already swept by a concurrent debit
+                consolidateStripes(account);
+                applied = applyToAccountRow(account, delta);
+            }
+            if (!applied) {
+                throw insufficientBalance(account, amount);
+            }
+            publishOnCommit(account);
+            return record(transactionRepository.save(transaction), 0);
+        }
+
+        // Spread credits on hot accounts so concurrent deposits rarely wait on the same row
+        int stripe = isStriped(account) ? ThreadLocalRandom.current().nextInt(account.getStripeCount()) : 0;
+        publishOnCommit(account);
+        if (stripe == 0) {
+            applyToAccountRow(account, amount);
+            return record(transactionRepository.save(transaction), 0);
+        }
+
+        // Insert the ledger row first so locks are always taken account row before stripe
+        Transaction saved = transactionRepository.saveAndFlush(transaction);
+        if (stripeRepository.creditStripe(account.getId(), stripe, amount) == 0) {
+            applyToAccountRow(account, amount);
+            stripe = 0;
+        }
+        return record(saved, stripe);
+    }
+
+    /**
+     * Adds a saved ledger row to its monthly aggregate, in the given slot.
+     */
+    private Transaction record(Transaction transaction, int slot) {
+        monthlyAggregates.record(List.of(transaction), slot);
+        return transaction;
+    }
+
+    /**
+     * Applies a signed delta to the balance column of the account row using
+     * the configured strategy.
+     *
+     * @return {@code false} if the delta would make the balance negative
+     */
+    private boolean applyToAccountRow(Account account, BigDecimal delta) {
+        if (strategy == Strategy.ATOMIC) {
+            if (accountRepository.applyBalanceDelta(account.getId(), delta) == 0) {
+                return false;
+            }
+            entityManager.refresh(account);
+            return true;
+        }
+
+        BigDecimal newBalance = account.getBalance().add(delta);
+        if (newBalance.signum() < 0) {
+            return false;
+        }
+        account.setBalance(newBalance);
+        return true;
+    }
+
+    /**
+     * Sweeps every stripe of a striped account into the account row so that a
+     * withdrawal can see the whole balance. The account is re-read under a
+     * row lock even when there is nothing to sweep.
+     */
+    private void consolidateStripes(Account account) {
+        entityManager.refresh(account, LockModeType.PESSIMISTIC_WRITE);
+        stripeRepository.findByAccountIdForUpdate(account.getId());
+
+        // Stripe entities may be stale after bulk credits in this transaction, so read and reset in SQL
+        BigDecimal swept = stripeRepository.sumBalance(account.getId());
+        if (swept.signum() <= 0) {
+            return;
+        }
+
+        stripeRepository.resetBalances(account.getId());
+        accountRepository.applyBalanceDelta(account.getId(), swept);
+        entityManager.refresh(account);
+        log.debug("Consolidated stripes: accountNumber={}, swept={}", account.getAccountNumber(), swept);
+    }
+
+    /**
+     * Updates the {@link BalanceCache} with the state of the account once the
+     * current transaction commits. Nothing is published on rollback.
+     */
+    private void publishOnCommit(Account account) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            balanceCache.evict(account.getAccountNumber());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (isStriped(account) || account.getVersion() == null) {
+                    balanceCache.evict(account.getAccountNumber());
+                } else {
+                    balanceCache.put(account.getAccountNumber(), account.getBalance(), account.getVersion());
+                }
+            }
+        });
+    }
+
+    /**
+     * Locks the given accounts in ascending id order, the canonical order
+     * shared by every operation that locks more than one account row.
+     *
+     * @return the locked accounts by account number; unknown numbers are absent
+     */
+    private Map<String, Account> lockAccounts(Collection<String> accountNumbers) {
+        Map<String, Account> accounts = new HashMap<>();
+        if (accountNumbers.isEmpty()) {
+            return accounts;
+        }
+        List<Long> ids = accountRepository.findIdsByAccountNumberIn(accountNumbers);
+        if (ids.isEmpty()) {
+            return accounts;
+        }
+        for (Account account : accountRepository.findByIdInForUpdate(ids)) {
+            accounts.put(account.getAccountNumber(), account);
+        }
+        return accounts;
+    }
+
+    private boolean isStriped(Account account) {
+        return account.getStripeCount() != null && account.getStripeCount() > 1;
+    }
+
+    private BusinessRuleException insufficientBalance(Account account, BigDecimal amount) {
+        log.debug("Insufficient balance for withdrawal: accountNumber={}, requestedAmount={}, currentBalance={}",
+                account.getAccountNumber(), amount, account.getBalance());
+        metrics.rejected(BankingMetrics.INSUFFICIENT_BALANCE);
+        return new BusinessRuleException(ErrorCode.INSUFFICIENT_BALANCE);
+    }
+
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(retryBackoffMs * attempt + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException(ErrorCode.INTERRUPTED, "Interrupted while retrying balance update");
+        }
+    }
+}
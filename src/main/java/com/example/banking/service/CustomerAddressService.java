@@ -3,6 +3,8 @@ package com.example.banking.service;
 import com.example.banking.dto.CustomerAddressDTO;
 import com.example.banking.entity.Customer;
 import com.example.banking.entity.CustomerAddress;
+import com.example.banking.exception.ErrorCode;
+import com.example.banking.exception.ResourceNotFoundException;
 import com.example.banking.repository.CustomerAddressRepository;
 import com.example.banking.repository.CustomerRepository;
 import lombok.extern.slf4j.Slf4j;
@@ -24,21 +26,21 @@ public class CustomerAddressService {
     /**
      * Adds a new address for a specific customer.
      *
-     * <p>Throws {@link RuntimeException} if the customer with the given ID
+     * <p>Throws {@link ResourceNotFoundException} if the customer with the given ID
      * does not exist.</p>
      *
      * @param customerId the ID of the customer
      * @param dto        the address details to add
      * @return the saved {@link CustomerAddressDTO} object
-     * @throws RuntimeException if the customer is not found
+     * @throws ResourceNotFoundException if the customer is not found
      */
     public CustomerAddressDTO addAddress(Long customerId, CustomerAddressDTO dto) {
         log.info("Adding address for customerId={}", customerId);
 
         Customer customer = customerRepo.findById(customerId)
                 .orElseThrow(() -> {
-                    log.error("Customer not found with id={}", customerId);
-                    return new RuntimeException("Customer not found");
+                    log.warn("Customer not found with id={}", customerId);
+                    return new ResourceNotFoundException(ErrorCode.CUSTOMER_NOT_FOUND);
                 });
 
         CustomerAddress address = CustomerAddress.builder()
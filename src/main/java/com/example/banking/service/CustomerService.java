@@ -1,11 +1,14 @@
 package com.example.banking.service;
 
+import com.example.banking.dto.CustomerResponse;
 import com.example.banking.entity.Customer;
 import com.example.banking.repository.CustomerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class CustomerService {
@@ -14,12 +17,19 @@ public class CustomerService {
     private CustomerRepository customerRepository;
 
     /**
-     * Fetch all customers from the database.
+     * Streams all customers as {@link CustomerResponse} rows.
      *
-     * @return list of customers
+     * <p>Rows are read as DTO projections with a bounded JDBC fetch size and
+     * handed to {@code sink} one at a time, so memory use stays flat
+     * regardless of the number of customers.</p>
+     *
+     * @param sink receives each customer, ordered by id
      */
-    public List<Customer> getAllCustomers() {
-        return customerRepository.findAll();
+    @Transactional(readOnly = true)
+    public void streamAllCustomers(Consumer<CustomerResponse> sink) {
+        try (Stream<CustomerResponse> rows = customerRepository.streamAllResponses()) {
+            rows.forEach(sink);
+        }
     }
 
     /**
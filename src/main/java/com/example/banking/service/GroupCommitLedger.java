@@ -0,0 +1,218 @@
+package com.example.banking.service;
+
+import com.example.banking.config.BankingMetrics;
+import com.example.banking.dto.BatchTransactionItem;
+import com.example.banking.dto.BatchTransactionResult;
+import com.example.banking.exception.BankingException;
+import com.example.banking.exception.ErrorCode;
+import com.example.banking.exception.ResourceNotFoundException;
+import com.example.banking.exception.ServiceBusyException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Optional group-commit pipeline for deposits and withdrawals, enabled with
+ * {@code app.ledger.group-commit.enabled}.
+ *
+ * <p>Postings are enqueued into one of {@code app.ledger.group-commit.shards}
+ * bounded queues, chosen by account number, so every account is always
+ * written by the same single writer thread. Each writer drains up to
+ * {@code max-batch} postings at a time and applies them with
+ * {@link BalanceEngine#postBatch(List, int)} in one database transaction,
+ * turning many commits into one.</p>
+ *
+ * <p>Durability is unchanged: a caller's future is only completed after the
+ * transaction holding its posting has committed, and fails if it rolls
+ * back.</p>
+ */
+@Component
+@Slf4j
+public class GroupCommitLedger {
+
+    private record Posting(BatchTransactionItem item, CompletableFuture<BatchTransactionResult> result) {
+    }
+
+    @Autowired
+    private BalanceEngine balanceEngine;
+
+    @Autowired
+    private BankingMetrics metrics;
+
+    @Value("${app.ledger.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.ledger.group-commit.shards:4}")
+    private int shards;
+
+    @Value("${app.ledger.group-commit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.ledger.group-commit.max-batch:500}")
+    private int maxBatch;
+
+    @Value("${app.ledger.group-commit.enqueue-timeout-ms:100}")
+    private long enqueueTimeoutMs;
+
+    @Value("${app.ledger.group-commit.commit-timeout-ms:5000}")
+    private long commitTimeoutMs;
+
+    private final List<BlockingQueue<Posting>> queues = new ArrayList<>();
+
+    private final List<Thread> writers = new ArrayList<>();
+
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int shard = 0; shard < shards; shard++) {
+            BlockingQueue<Posting> queue = new ArrayBlockingQueue<>(queueCapacity);
+            Thread writer = new Thread(() -> drain(queue), "ledger-writer-" + shard);
+            writer.setDaemon(true);
+            queues.add(queue);
+            writers.add(writer);
+            writer.start();
+        }
+        log.info("Group-commit ledger started: shards={}, queueCapacity={}, maxBatch={}", shards, queueCapacity, maxBatch);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        writers.forEach(Thread::interrupt);
+        for (Thread writer : writers) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (BlockingQueue<Posting> queue : queues) {
+            List<Posting> abandoned = new ArrayList<>();
+            queue.drainTo(abandoned);
+            abandoned.forEach(posting -> posting.result().completeExceptionally(
+                    new ServiceBusyException(ErrorCode.LEDGER_BUSY, "Ledger is shutting down")));
+        }
+    }
+
+    /**
+     * Tells whether postings should go through this pipeline.
+     *
+     * @return {@code true} if group commit is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Posts a deposit or withdrawal and waits until it has been committed.
+     *
+     * <p>The wait is bounded by {@code app.ledger.group-commit.commit-timeout-ms}.
+     * A posting still queued when it times out is withdrawn and never applied;
+     * one whose batch is already being committed may still be applied, so
+     * clients should retry with an idempotency key.</p>
+     *
+     * @param type          {@link BalanceEngine#DEPOSIT} or {@link BalanceEngine#WITHDRAWAL}
+     * @param accountNumber the account to post to
+     * @param amount        the positive amount
+     * @param description   optional ledger description
+     * @return the committed result, including the balance after the posting
+     * @throws BankingException    if the posting was rejected
+     * @throws ServiceBusyException if the queue of its shard is full, the
+     *                              ledger is stopping, or the commit timed out
+     * @throws RuntimeException     if its commit failed
+     */
+    public BatchTransactionResult post(String type, String accountNumber, BigDecimal amount, String description) {
+        if (accountNumber == null) {
+            metrics.rejected(BankingMetrics.ACCOUNT_NOT_FOUND);
+            throw new ResourceNotFoundException(ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+        Posting posting = new Posting(
+                BatchTransactionItem.builder()
+                        .type(type)
+                        .accountNumber(accountNumber)
+                        .amount(amount)
+                        .description(description)
+                        .build(),
+                new CompletableFuture<>());
+
+        BlockingQueue<Posting> queue = queues.get(Math.floorMod(accountNumber.hashCode(), queues.size()));
+        try {
+            if (!running || !queue.offer(posting, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Ledger queue full, rejecting posting: accountNumber={}", accountNumber);
+                metrics.rejected(BankingMetrics.LEDGER_BUSY);
+                throw new ServiceBusyException(ErrorCode.LEDGER_BUSY);
+            }
+            // stop() drains the queues once, so a posting enqueued after that would wait forever
+            if (!running && queue.remove(posting)) {
+                metrics.rejected(BankingMetrics.LEDGER_BUSY);
+                throw new ServiceBusyException(ErrorCode.LEDGER_BUSY, "Ledger is shutting down");
+            }
+            BatchTransactionResult result = posting.result().get(commitTimeoutMs, TimeUnit.MILLISECONDS);
+            if (!result.isSuccess()) {
+                throw BankingException.of(result.getErrorCode(), result.getMessage());
+            }
+            return result;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException(ErrorCode.INTERRUPTED, "Interrupted while waiting for the ledger");
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(ex.getCause());
+        } catch (TimeoutException ex) {
+            boolean withdrawn = queue.remove(posting);
+            log.warn("Timed out waiting for the ledger: accountNumber={}, withdrawn={}", accountNumber, withdrawn);
+            metrics.rejected(BankingMetrics.LEDGER_BUSY);
+            throw new ServiceBusyException(ErrorCode.LEDGER_BUSY, "Timed out waiting for the ledger");
+        }
+    }
+
+    /**
+     * Writer loop of one shard: blocks for the first posting, then takes
+     * whatever else is already queued and commits it all at once.
+     */
+    private void drain(BlockingQueue<Posting> queue) {
+        List<Posting> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException ex) {
+                break;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void commit(List<Posting> batch) {
+        List<BatchTransactionItem> items = new ArrayList<>(batch.size());
+        batch.forEach(posting -> items.add(posting.item()));
+        try {
+            List<BatchTransactionResult> results = balanceEngine.inTransaction(() -> balanceEngine.postBatch(items, 0));
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(results.get(i));
+            }
+            log.debug("Group commit of {} postings on {}", batch.size(), Thread.currentThread().getName());
+        } catch (RuntimeException ex) {
+            log.error("Group commit of {} postings failed: {}", batch.size(), ex.getMessage());
+            batch.forEach(posting -> posting.result().completeExceptionally(ex));
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.banking.service;
+
+import com.example.banking.dto.TransactionRequest;
+import com.example.banking.dto.TransactionResponse;
+import com.example.banking.entity.IdempotencyRecord;
+import com.example.banking.exception.BusinessRuleException;
+import com.example.banking.exception.ErrorCode;
+import com.example.banking.exception.InvalidRequestException;
+import com.example.banking.exception.ServiceBusyException;
+import com.example.banking.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates deposits and withdrawals submitted with an
+ * {@code Idempotency-Key} header.
+ *
+ * <p>Keys are first looked up in a bounded, expiring in-memory index. A key
+ * that is already being processed makes the caller wait for the original
+ * request and return its result; a key that has already completed returns
+ * the stored result without touching the database. The wait lasts at most
+ * {@code app.idempotency.wait-timeout-ms}, after which the caller is answered
+ * with {@link ErrorCode#IDEMPOTENCY_KEY_IN_PROGRESS} and may retry.</p>
+ *
+ * <p>Keys that are not in memory are executed directly: the outcome is
+ * written to the {@code idempotency_keys} table in the same transaction as the
+ * posting, so the common case costs one insert and no extra read. Only when
+ * that insert collides with an earlier request (after a restart, on another
+ * instance, or once the in-memory entry has expired), or when the posting
+ * fails, is the table read, and the stored result returned instead.</p>
+ *
+ * <p>Keys are scoped to the authenticated user, so one user's key never
+ * replays or blocks another user's request. Stored keys are purged every
+ * {@code app.idempotency.purge-interval-ms} once they are older than
+ * {@code app.idempotency.retention-hours}, which should be well above the
+ * longest time a client keeps retrying.</p>
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    static final int MAX_KEY_LENGTH = 64;
+
+    /**
+     * In-memory entry for a key: what it was used for, and the result once done.
+     */
+    private record Entry(String type, String accountNumber, BigDecimal amount,
+                         CompletableFuture<TransactionResponse> response) {
+    }
+
+    private final Cache<IdempotencyRecord.Key, Entry> entries;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private BalanceEngine balanceEngine;
+
+    @Value("${app.idempotency.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${app.idempotency.wait-timeout-ms:5000}")
+    private long waitTimeoutMs;
+
+    public IdempotencyService(@Value("${app.idempotency.cache.max-size:100000}") long maxSize,
+                              @Value("${app.idempotency.cache.ttl-seconds:3600}") long ttlSeconds) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Executes a posting at most once per user and idempotency key.
+     *
+     * @param principal the username of the authenticated caller
+     * @param key       the client-supplied idempotency key
+     * @param type      {@link BalanceEngine#DEPOSIT} or {@link BalanceEngine#WITHDRAWAL}
+     * @param request   the deposit or withdrawal request
+     * @param posting   performs the posting; runs inside the transaction that stores the key
+     * @return the result of the first request made with this key
+     * @throws InvalidRequestException if the key is invalid
+     * @throws BusinessRuleException   if the key was used for a different request
+     * @throws ServiceBusyException    if the original request is still in progress after the wait timeout
+     * @throws RuntimeException        if the posting failed
+     */
+    public TransactionResponse execute(String principal, String key, String type, TransactionRequest request,
+                                       Supplier<TransactionResponse> posting) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidRequestException(ErrorCode.INVALID_REQUEST,
+                    "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        IdempotencyRecord.Key scoped = new IdempotencyRecord.Key(principal, key);
+        Entry mine = new Entry(type, request.getAccountNumber(), request.getAmount(), new CompletableFuture<>());
+        Entry existing = entries.asMap().putIfAbsent(scoped, mine);
+        if (existing != null) {
+            ensureSameRequest(existing.type(), existing.accountNumber(), existing.amount(), type, request);
+            log.info("Replaying idempotent {} from memory: principal={}, key={}", type, principal, key);
+            return await(existing.response());
+        }
+
+        try {
+            TransactionResponse response = executeOnce(scoped, type, request, posting);
+            mine.response().complete(response);
+            return response;
+        } catch (RuntimeException ex) {
+            // Failed postings are not remembered, so the client may retry them with the same key
+            entries.asMap().remove(scoped, mine);
+            mine.response().completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Deletes stored keys older than {@code app.idempotency.retention-hours}.
+     * Runs on every instance; the delete is harmless when another instance
+     * already purged the same rows.
+     *
+     * @return the number of keys deleted
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}",
+            initialDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+    public int purgeExpired() {
+        int purged = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (purged > 0) {
+            log.info("Purged {} idempotency keys older than {} hours", purged, retentionHours);
+        }
+        return purged;
+    }
+
+    private TransactionResponse executeOnce(IdempotencyRecord.Key key, String type, TransactionRequest request,
+                                            Supplier<TransactionResponse> posting) {
+        try {
+            return balanceEngine.inTransaction(() -> {
+                TransactionResponse response = posting.get();
+                idempotencyRecordRepository.save(IdempotencyRecord.builder()
+                        .principal(key.getPrincipal())
+                        .idempotencyKey(key.getIdempotencyKey())
+                        .type(type)
+                        .accountNumber(response.getAccountNumber())
+                        .amount(response.getAmount())
+                        .balanceAfter(response.getBalanceAfter())
+                        .createdAt(LocalDateTime.now())
+                        .build());
+                return response;
+            });
+        } catch (RuntimeException ex) {
+            // Either a duplicate key (the insert collided and everything rolled back) or a
+            // posting that failed, e.g. a replayed withdrawal that no longer has the funds
+            Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(key);
+            if (stored.isEmpty()) {
+                throw ex;
+            }
+            IdempotencyRecord record = stored.get();
+            ensureSameRequest(record.getType(), record.getAccountNumber(), record.getAmount(), type, request);
+            log.info("Replaying idempotent {} from the database: principal={}, key={}",
+                    type, key.getPrincipal(), key.getIdempotencyKey());
+            return new TransactionResponse(record.getAccountNumber(), record.getType(),
+                    record.getAmount(), record.getBalanceAfter());
+        }
+    }
+
+    private static void ensureSameRequest(String type, String accountNumber, BigDecimal amount,
+                                          String requestedType, TransactionRequest request) {
+        boolean same = Objects.equals(type, requestedType)
+                && Objects.equals(accountNumber, request.getAccountNumber())
+                && amount != null && request.getAmount() != null
+                && amount.compareTo(request.getAmount()) == 0;
+        if (!same) {
+            throw new BusinessRuleException(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+        }
+    }
+
+    private TransactionResponse await(CompletableFuture<TransactionResponse> response) {
+        try {
+            return response.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            log.warn("Original request still in progress after {} ms, rejecting duplicate", waitTimeoutMs);
+            throw new ServiceBusyException(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException(ErrorCode.INTERRUPTED, "Interrupted while waiting for the original request");
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(ex.getCause());
+        }
+    }
+}
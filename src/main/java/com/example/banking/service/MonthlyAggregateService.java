@@ -0,0 +1,176 @@
+package com.example.banking.service;
+
+import com.example.banking.entity.MaintenanceMarker;
+import com.example.banking.entity.Transaction;
+import com.example.banking.repository.AccountMonthlyAggregateRepository;
+import com.example.banking.repository.MaintenanceMarkerRepository;
+import com.example.banking.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains the {@code account_monthly_aggregates} table.
+ *
+ * <p>{@link BalanceEngine} calls {@link #record(Collection, int)} in the same
+ * transaction as every ledger write, so the aggregates commit or roll back
+ * together with the postings they count. Rows are upserted in ascending
+ * account order, after the account rows themselves have been locked.</p>
+ *
+ * <p>{@link #rebuild(YearMonth)} and {@link #rebuildAll()} recompute the
+ * aggregates from the {@code transactions} table, to backfill ledger rows
+ * written before the table existed or by other means. A rebuild of a month
+ * that is still receiving postings may fail on a concurrent upsert and
+ * should then simply be retried.</p>
+ *
+ * <p>The startup backfill is claimed through a {@link MaintenanceMarker}, so
+ * when several instances start against an empty table only one of them runs
+ * it. If that instance stops before finishing, rebuild through
+ * {@code POST /reports/aggregates/rebuild}.</p>
+ */
+@Service
+@Slf4j
+public class MonthlyAggregateService {
+
+    /**
+     * Identifies one aggregate row; ordered so that rows are always locked in the same order.
+     */
+    static final String BACKFILL_MARKER = "monthly-aggregates-backfill";
+
+    private record Key(long accountId, int year, int month, int slot) {
+        static final Comparator<Key> ORDER = Comparator.comparingLong(Key::accountId)
+                .thenComparingInt(Key::year)
+                .thenComparingInt(Key::month)
+                .thenComparingInt(Key::slot);
+    }
+
+    /**
+     * Counts and sums to add to one aggregate row.
+     */
+    private static final class Delta {
+        long depositCount;
+        BigDecimal depositTotal = BigDecimal.ZERO;
+        long withdrawalCount;
+        BigDecimal withdrawalTotal = BigDecimal.ZERO;
+        BigDecimal minAmount;
+        BigDecimal maxAmount;
+
+        void add(Transaction transaction) {
+            BigDecimal amount = transaction.getAmount();
+            if (BalanceEngine.WITHDRAWAL.equals(transaction.getType())) {
+                withdrawalCount++;
+                withdrawalTotal = withdrawalTotal.add(amount);
+            } else {
+                depositCount++;
+                depositTotal = depositTotal.add(amount);
+            }
+            minAmount = minAmount == null ? amount : minAmount.min(amount);
+            maxAmount = maxAmount == null ? amount : maxAmount.max(amount);
+        }
+    }
+
+    @Autowired
+    private AccountMonthlyAggregateRepository aggregateRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MaintenanceMarkerRepository maintenanceMarkerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.reports.aggregates.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    /**
+     * Adds ledger rows to their monthly aggregates.
+     * Must be called inside the transaction that writes the ledger rows.
+     *
+     * @param ledger the ledger rows just written; their accounts must have ids
+     * @param slot   the aggregate slot, i.e. the stripe a credit landed on, or 0
+     */
+    public void record(Collection<Transaction> ledger, int slot) {
+        Map<Key, Delta> deltas = new TreeMap<>(Key.ORDER);
+        for (Transaction transaction : ledger) {
+            LocalDateTime time = transaction.getTransactionTime();
+            Key key = new Key(transaction.getAccount().getId(), time.getYear(), time.getMonthValue(), slot);
+            deltas.computeIfAbsent(key, k -> new Delta()).add(transaction);
+        }
+        deltas.forEach((key, delta) -> aggregateRepository.upsert(
+                key.accountId(), key.year(), key.month(), key.slot(),
+                delta.depositCount, delta.depositTotal,
+                delta.withdrawalCount, delta.withdrawalTotal,
+                delta.minAmount, delta.maxAmount));
+    }
+
+    /**
+     * Recomputes the aggregates of one month from the ledger, in one transaction.
+     *
+     * @param period the month to rebuild
+     * @return the number of aggregate rows written
+     */
+    public int rebuild(YearMonth period) {
+        LocalDateTime start = period.atDay(1).atStartOfDay();
+        LocalDateTime end = period.plusMonths(1).atDay(1).atStartOfDay();
+        Integer rows = new TransactionTemplate(transactionManager).execute(status -> {
+            aggregateRepository.deleteByPeriod(period.getYear(), period.getMonthValue());
+            return aggregateRepository.insertFromLedger(period.getYear(), period.getMonthValue(), start, end);
+        });
+        log.info("Monthly aggregates rebuilt: period={}, rows={}", period, rows);
+        return rows;
+    }
+
+    /**
+     * Recomputes the aggregates of every month that has ledger rows, one
+     * month per transaction.
+     *
+     * @return the number of aggregate rows written
+     */
+    public int rebuildAll() {
+        LocalDateTime first = transactionRepository.findFirstTransactionTime();
+        LocalDateTime last = transactionRepository.findLastTransactionTime();
+        if (first == null || last == null) {
+            return 0;
+        }
+        int rows = 0;
+        YearMonth lastPeriod = YearMonth.from(last);
+        for (YearMonth period = YearMonth.from(first); !period.isAfter(lastPeriod); period = period.plusMonths(1)) {
+            rows += rebuild(period);
+        }
+        return rows;
+    }
+
+    /**
+     * Backfills the aggregates on the first start after the table was added,
+     * i.e. while it is still empty, on the one instance that claims it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!backfillOnStartup || aggregateRepository.count() > 0) {
+            return;
+        }
+        if (maintenanceMarkerRepository.claim(BACKFILL_MARKER, LocalDateTime.now()) == 0) {
+            log.info("Monthly aggregate backfill already claimed, skipping");
+            return;
+        }
+        int rows = rebuildAll();
+        if (rows > 0) {
+            log.info("Backfilled {} monthly aggregate rows from the ledger", rows);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.banking.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Generates reports over the customer id space in parallel.
+ *
+ * <p>The id range is split in halves with fork/join until a piece spans at
+ * most {@code app.reports.partition-size} ids; each piece is generated on
+ * one of {@code app.reports.parallelism} dedicated workers and the pieces are
+ * concatenated in id order, so the result is the same as a sequential run.
+ * Once a piece fails, the pieces not yet started are skipped and the
+ * failure is rethrown to the caller.
+ * Workers block on the database and are not compensated, so at most
+ * {@code parallelism} pieces, and therefore connections, are in use at any
+ * time across all callers; keep it well below the connection pool size.</p>
+ */
+@Component
+public class PartitionedReportEngine {
+
+    /**
+     * Generates the rows of the customers whose id lies in {@code (afterId, lastId]}, in id order.
+     */
+    @FunctionalInterface
+    public interface RangeReport<T> {
+        List<T> generate(long afterId, long lastId);
+    }
+
+    @Value("${app.reports.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.reports.partition-size:1000}")
+    private int partitionSize;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void start() {
+        pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("report-partition-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Generates a report for the customer ids {@code [minId, maxId]}.
+     *
+     * @param minId  the smallest customer id, or {@code null} if there are no customers
+     * @param maxId  the largest customer id
+     * @param report generates one piece of the id range; called concurrently
+     * @return the rows of all pieces, in id order
+     */
+    public <T> List<T> generate(Long minId, Long maxId, RangeReport<T> report) {
+        if (minId == null || maxId == null) {
+            return List.of();
+        }
+        try {
+            return pool.invoke(new RangeTask<>(minId - 1, maxId, report, new AtomicBoolean()));
+        } catch (RuntimeException ex) {
+            // Fork/join rethrows a copy that wraps the exception thrown on the worker; rethrow the original
+            throw ex.getCause() != null && ex.getCause().getClass() == ex.getClass() ? (RuntimeException) ex.getCause() : ex;
+        }
+    }
+
+    private final class RangeTask<T> extends RecursiveTask<List<T>> {
+
+        private final long afterId;
+        private final long lastId;
+        private final RangeReport<T> report;
+        private final AtomicBoolean failed; // Shared by all pieces of one report
+
+        RangeTask(long afterId, long lastId, RangeReport<T> report, AtomicBoolean failed) {
+            this.afterId = afterId;
+            this.lastId = lastId;
+            this.report = report;
+            this.failed = failed;
+        }
+
+        @Override
+        protected List<T> compute() {
+            if (lastId - afterId <= partitionSize) {
+                if (failed.get()) {
+                    return List.of(); // The report fails anyway; the failing piece rethrows
+                }
+                try {
+                    return report.generate(afterId, lastId);
+                } catch (RuntimeException | Error ex) {
+                    failed.set(true);
+                    throw ex;
+                }
+            }
+            long middle = afterId + (lastId - afterId) / 2;
+            RangeTask<T> upper = new RangeTask<>(middle, lastId, report, failed);
+            upper.fork();
+            List<T> lowerRows = new RangeTask<>(afterId, middle, report, failed).compute();
+            List<T> upperRows = upper.join();
+
+            List<T> rows = new ArrayList<>(lowerRows.size() + upperRows.size());
+            rows.addAll(lowerRows);
+            rows.addAll(upperRows);
+            return rows;
+        }
+    }
+}
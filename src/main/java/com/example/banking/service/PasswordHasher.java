@@ -0,0 +1,150 @@
+package com.example.banking.service;
+
+import com.example.banking.config.BankingMetrics;
+import com.example.banking.exception.ErrorCode;
+import com.example.banking.exception.ServiceBusyException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashes and verifies passwords on a dedicated, bounded pool.
+ *
+ * <p>BCrypt deliberately burns tens of milliseconds of CPU per call, so a
+ * burst of logins run on request threads would starve every other
+ * endpoint. Here at most {@code app.auth.hashing.threads} hashes run at a
+ * time (the number of cores by default) and up to
+ * {@code app.auth.hashing.queue-capacity} more wait; further calls are
+ * refused at once with {@link ErrorCode#LOGIN_BUSY} instead of queueing
+ * behind work that would outlast the client's patience. A call that has
+ * waited {@code app.auth.hashing.wait-timeout-ms} for its hash gives up with
+ * the same error, so a stalled pool cannot pin request threads.</p>
+ */
+@Component
+@Slf4j
+public class PasswordHasher {
+
+    /**
+     * Result of {@link #verify}.
+     *
+     * @param matches whether the password matches the stored hash
+     * @param rehash  a new hash at the current cost when the stored one used a
+     *                lower cost, otherwise {@code null}
+     */
+    public record Verification(boolean matches, String rehash) {
+    }
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final BankingMetrics metrics;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long waitTimeoutMs;
+
+    // Verified for unknown users so that they take as long as known ones
+    private final String unknownUserHash;
+
+    @Autowired
+    public PasswordHasher(PasswordEncoder passwordEncoder, BankingMetrics metrics,
+                          @Value("${app.auth.hashing.threads:0}") int threads,
+                          @Value("${app.auth.hashing.queue-capacity:100}") int queueCapacity,
+                          @Value("${app.auth.hashing.wait-timeout-ms:5000}") long waitTimeoutMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.metrics = metrics;
+        this.waitTimeoutMs = waitTimeoutMs;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.unknownUserHash = passwordEncoder.encode("unknown-user-password");
+        log.info("Password hasher started: threads={}, queueCapacity={}", poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Hashes a new password at the current cost.
+     *
+     * @param rawPassword the password as entered
+     * @return the hash to store
+     * @throws ServiceBusyException if the hashing pool and its queue are full, or the hash took too long
+     */
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Verifies a password and, if it matches a hash of a lower cost than the
+     * current one, hashes it again in the same task.
+     *
+     * @param rawPassword     the password as entered
+     * @param encodedPassword the stored hash, or {@code null} for an unknown
+     *                        user, which never matches but costs the same
+     * @return whether the password matches, and the upgraded hash if any
+     * @throws ServiceBusyException if the hashing pool and its queue are full, or the hash took too long
+     */
+    public Verification verify(String rawPassword, String encodedPassword) {
+        return run(() -> {
+            if (encodedPassword == null) {
+                passwordEncoder.matches(rawPassword, unknownUserHash);
+                return new Verification(false, null);
+            }
+            if (!passwordEncoder.matches(rawPassword, encodedPassword)) {
+                return new Verification(false, null);
+            }
+            return new Verification(true, passwordEncoder.upgradeEncoding(encodedPassword)
+                    ? passwordEncoder.encode(rawPassword)
+                    : null);
+        });
+    }
+
+    int queuedTasks() {
+        return executor.getQueue().size();
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException ex) {
+            log.warn("Password hashing queue full, rejecting request");
+            metrics.rejected(BankingMetrics.LOGIN_BUSY);
+            throw new ServiceBusyException(ErrorCode.LOGIN_BUSY);
+        }
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            log.warn("Password hashing took more than {} ms, rejecting request", waitTimeoutMs);
+            metrics.rejected(BankingMetrics.LOGIN_BUSY);
+            throw new ServiceBusyException(ErrorCode.LOGIN_BUSY);
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException(ErrorCode.INTERRUPTED, "Interrupted while hashing a password");
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(ex.getCause());
+        }
+    }
+}
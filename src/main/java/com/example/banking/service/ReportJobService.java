@@ -0,0 +1,407 @@
+package com.example.banking.service;
+
+import com.example.banking.dto.MonthlyReportRequestDTO;
+import com.example.banking.dto.MonthlyTransactionReportDTO;
+import com.example.banking.dto.ReportJobResponse;
+import com.example.banking.entity.ReportJob;
+import com.example.banking.exception.BusinessRuleException;
+import com.example.banking.exception.ErrorCode;
+import com.example.banking.exception.InvalidRequestException;
+import com.example.banking.exception.ResourceNotFoundException;
+import com.example.banking.exception.ServiceBusyException;
+import com.example.banking.repository.CustomerRepository;
+import com.example.banking.repository.ReportJobRepository;
+import com.example.banking.repository.projection.CustomerIdBounds;
+import com.example.banking.util.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Runs monthly reports in the background so that month-end reports do not
+ * hold a request thread.
+ *
+ * <p>Jobs run on a bounded pool of {@code app.reports.jobs.threads} threads
+ * with a queue of {@code app.reports.jobs.queue-capacity}; submissions beyond
+ * that are rejected. A job generates its customer id ranges on the
+ * {@link PartitionedReportEngine}, so jobs and synchronous reports share the
+ * same {@code app.reports.parallelism} workers and connections.
+ * Every range is written as its own gzip member, and the members are
+ * concatenated in id order, which is itself a valid gzip file, so the
+ * result is never held in memory or recompressed.</p>
+ *
+ * <p>Job state is stored in the {@code report_jobs} table and results under
+ * {@code app.reports.jobs.output-dir}. Submitting a request identical to one
+ * that is still queued or running returns the existing job. If one range
+ * fails, the ranges not yet started are cancelled and the job fails.</p>
+ *
+ * <p>Every instance refreshes the heartbeat of the jobs it owns each
+ * {@code app.reports.jobs.heartbeat-interval-ms}. An unfinished job whose
+ * heartbeat is older than {@code app.reports.jobs.stale-after-ms} was cut
+ * short by a stop or crash of its owner and is marked as failed by whichever
+ * instance notices first. Status changes only apply from the expected
+ * status, so an owner that was merely slow cannot complete a job that has
+ * already been reported as failed; it drops the result instead. Finished jobs and their results are deleted once
+ * older than {@code app.reports.jobs.retention-hours}.</p>
+ */
+@Service
+@Slf4j
+public class ReportJobService {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    /**
+     * Identifies this instance as the owner of the jobs it accepts.
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ReportJobRepository reportJobRepository;
+
+    @Autowired
+    private PartitionedReportEngine reportEngine;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.reports.jobs.threads:2}")
+    private int threads;
+
+    @Value("${app.reports.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${app.reports.jobs.output-dir:${java.io.tmpdir}/banking-reports}")
+    private Path outputDir;
+
+    @Value("${app.reports.jobs.stale-after-ms:120000}")
+    private long staleAfterMs;
+
+    @Value("${app.reports.jobs.retention-hours:24}")
+    private long retentionHours;
+
+    private TransactionTemplate readOnly;
+
+    private ThreadPoolExecutor jobExecutor;
+
+    /**
+     * Identical requests that are queued or running, mapped to their job id.
+     */
+    private final Map<String, String> inFlight = new HashMap<>();
+
+    @PostConstruct
+    void start() throws IOException {
+        Files.createDirectories(outputDir);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        jobExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads("report-job-"));
+    }
+
+    @PreDestroy
+    void stop() {
+        jobExecutor.shutdownNow();
+    }
+
+    /**
+     * Refreshes the heartbeat of the jobs this instance owns, then fails the
+     * jobs whose owner has stopped refreshing theirs.
+     */
+    @Scheduled(fixedDelayString = "${app.reports.jobs.heartbeat-interval-ms:30000}",
+            initialDelayString = "${app.reports.jobs.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        reportJobRepository.touchOwned(instanceId, LocalDateTime.now());
+        failInterruptedJobs();
+    }
+
+    /**
+     * Marks unfinished jobs without a recent heartbeat as failed, so clients
+     * stop polling them. Jobs of other instances that are still alive are
+     * left alone.
+     *
+     * @return the number of jobs marked as failed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int failInterruptedJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        int failed = reportJobRepository.failStale("Interrupted by a restart, please resubmit", now,
+                now.minusNanos(staleAfterMs * 1_000_000));
+        if (failed > 0) {
+            log.info("Marked {} interrupted report jobs as failed", failed);
+        }
+        return failed;
+    }
+
+    /**
+     * Deletes finished jobs older than {@code app.reports.jobs.retention-hours},
+     * and the result and part files in the output directory that are older
+     * than that, except those of jobs still running here. Runs on every
+     * instance; each one cleans its own output directory.
+     *
+     * @return the number of jobs deleted
+     */
+    @Scheduled(fixedDelayString = "${app.reports.jobs.purge-interval-ms:3600000}",
+            initialDelayString = "${app.reports.jobs.purge-interval-ms:3600000}")
+    public int purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        long cutoffMillis = cutoff.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        int files = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(outputDir)) {
+            for (Path file : entries) {
+                String name = file.getFileName().toString();
+                if (!isInFlight(name.substring(0, Math.max(name.indexOf('.'), 0)))
+                        && Files.getLastModifiedTime(file).toMillis() < cutoffMillis) {
+                    deleteQuietly(file);
+                    files++;
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("Could not list report results in {}", outputDir, ex);
+        }
+        int purged = reportJobRepository.deleteFinishedBefore(cutoff);
+        if (purged > 0 || files > 0) {
+            log.info("Purged {} report jobs and {} files older than {} hours", purged, files, retentionHours);
+        }
+        return purged;
+    }
+
+    /**
+     * Submits a monthly report job, or returns the identical job already in progress.
+     *
+     * @param request the month, year and optional customer to report on
+     * @return the status of the submitted or existing job
+     * @throws InvalidRequestException if the month or year is missing
+     * @throws DateTimeException        if the month or year is invalid
+     * @throws ServiceBusyException    if the job queue is full
+     */
+    public synchronized ReportJobResponse submit(MonthlyReportRequestDTO request) {
+        if (request.getMonth() == null || request.getYear() == null) {
+            throw new InvalidRequestException(ErrorCode.INVALID_REQUEST, "Month and year are required");
+        }
+        YearMonth period = YearMonth.of(request.getYear(), request.getMonth());
+        String requestKey = period + "/" + (request.getCustomerId() == null ? "all" : request.getCustomerId());
+
+        String existing = inFlight.get(requestKey);
+        if (existing != null) {
+            log.info("Report job already in progress: jobId={}, request={}", existing, requestKey);
+            return getStatus(existing);
+        }
+
+        ReportJob job = reportJobRepository.save(ReportJob.builder()
+                .id(UUID.randomUUID().toString())
+                .status(QUEUED)
+                .periodYear(period.getYear())
+                .periodMonth(period.getMonthValue())
+                .customerId(request.getCustomerId())
+                .createdAt(LocalDateTime.now())
+                .ownerId(instanceId)
+                .heartbeatAt(LocalDateTime.now())
+                .build());
+        ReportJobResponse response = toResponse(job);
+        try {
+            jobExecutor.execute(() -> run(job, requestKey));
+        } catch (RejectedExecutionException ex) {
+            fail(job, "Report job queue is full");
+            throw new ServiceBusyException(ErrorCode.REPORT_QUEUE_FULL);
+        }
+        inFlight.put(requestKey, job.getId());
+
+        log.info("Report job submitted: jobId={}, request={}", job.getId(), requestKey);
+        return response;
+    }
+
+    /**
+     * @param jobId the job id returned on submission
+     * @return the current status of the job
+     * @throws ResourceNotFoundException if there is no such job
+     */
+    public ReportJobResponse getStatus(String jobId) {
+        return toResponse(findJob(jobId));
+    }
+
+    /**
+     * @param jobId the job id returned on submission
+     * @return the gzip-compressed NDJSON result of a completed job
+     * @throws ResourceNotFoundException if there is no such job or its result has expired
+     * @throws BusinessRuleException     if the job has not completed
+     */
+    public Path getResult(String jobId) {
+        ReportJob job = findJob(jobId);
+        if (!COMPLETED.equals(job.getStatus())) {
+            throw new BusinessRuleException(ErrorCode.REPORT_NOT_READY,
+                    "Report job is " + job.getStatus().toLowerCase() + ", no result available");
+        }
+        Path result = resultFile(jobId);
+        if (!Files.exists(result)) {
+            throw new ResourceNotFoundException(ErrorCode.REPORT_RESULT_GONE);
+        }
+        return result;
+    }
+
+    private void run(ReportJob job, String requestKey) {
+        try {
+            if (reportJobRepository.markRunning(job.getId(), LocalDateTime.now()) == 0) {
+                log.warn("Report job no longer queued, skipping: jobId={}", job.getId());
+                return;
+            }
+
+            Long customerId = job.getCustomerId();
+            CustomerIdBounds bounds = customerId == null ? customerRepository.findIdBounds() : null;
+            List<Part> parts = reportEngine.generate(customerId == null ? bounds.getMinId() : customerId,
+                    customerId == null ? bounds.getMaxId() : customerId,
+                    (afterId, lastId) -> List.of(writePart(job, afterId, lastId)));
+
+            int customers = 0;
+            Path result = resultFile(job.getId());
+            try (OutputStream out = Files.newOutputStream(result)) {
+                for (Part part : parts) {
+                    Files.copy(part.file(), out);
+                    customers += part.customers();
+                }
+                if (parts.isEmpty()) {
+                    // No customers: an empty gzip member, since a 0-byte file is not valid gzip
+                    new GZIPOutputStream(out).finish();
+                }
+            }
+            long sizeBytes = Files.size(result);
+            if (reportJobRepository.markCompleted(job.getId(), customers, sizeBytes, LocalDateTime.now()) == 0) {
+                // Failed as stale by another instance meanwhile; clients were told so, keep it that way
+                log.warn("Report job was failed while running, dropping its result: jobId={}", job.getId());
+                deleteQuietly(result);
+                return;
+            }
+            log.info("Report job completed: jobId={}, customers={}, bytes={}", job.getId(), customers, sizeBytes);
+        } catch (Exception ex) {
+            log.error("Report job failed: jobId={}", job.getId(), ex);
+            fail(job, String.valueOf(ex.getMessage()));
+        } finally {
+            deleteParts(job.getId());
+            synchronized (this) {
+                inFlight.remove(requestKey, job.getId());
+            }
+        }
+    }
+
+    /**
+     * A gzip member holding the report rows of one customer id range.
+     */
+    private record Part(Path file, int customers) {
+    }
+
+    private Part writePart(ReportJob job, long afterId, long lastId) {
+        // One read-only transaction, so all queries of the range see the same snapshot
+        List<MonthlyTransactionReportDTO> rows = readOnly.execute(status ->
+                reportService.getMonthlyReportForRange(job.getPeriodMonth(), job.getPeriodYear(), afterId, lastId));
+        Path part = outputDir.resolve(job.getId() + ".part" + afterId);
+        try (OutputStream file = Files.newOutputStream(part, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+             NdjsonWriter writer = new NdjsonWriter(objectMapper, new GZIPOutputStream(file, 64 * 1024))) {
+            rows.forEach(writer::write);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return new Part(part, rows.size());
+    }
+
+    private void deleteParts(String jobId) {
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(outputDir, jobId + ".part*")) {
+            parts.forEach(ReportJobService::deleteQuietly);
+        } catch (IOException ex) {
+            log.warn("Could not delete the parts of report job {}", jobId, ex);
+        }
+    }
+
+    private void fail(ReportJob job, String error) {
+        reportJobRepository.markFailed(job.getId(),
+                error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH), LocalDateTime.now());
+    }
+
+    private synchronized boolean isInFlight(String jobId) {
+        return inFlight.containsValue(jobId);
+    }
+
+    private ReportJob findJob(String jobId) {
+        return reportJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.REPORT_JOB_NOT_FOUND));
+    }
+
+    private Path resultFile(String jobId) {
+        return outputDir.resolve(jobId + ".ndjson.gz");
+    }
+
+    private static ReportJobResponse toResponse(ReportJob job) {
+        return ReportJobResponse.builder()
+                .jobId(job.getId())
+                .status(job.getStatus())
+                .month(job.getPeriodMonth())
+                .year(job.getPeriodYear())
+                .customerId(job.getCustomerId())
+                .customers(job.getCustomers())
+                .sizeBytes(job.getSizeBytes())
+                .error(job.getError())
+                .createdAt(job.getCreatedAt())
+                .completedAt(job.getCompletedAt())
+                .build();
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            log.warn("Could not delete {}", path, ex);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
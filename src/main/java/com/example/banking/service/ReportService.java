@@ -1,19 +1,38 @@
 package com.example.banking.service;
 
 import com.example.banking.dto.AccountDTO;
+import com.example.banking.config.BankingMetrics;
 import com.example.banking.dto.CustomerAddressDTO;
 import com.example.banking.dto.MonthlyTransactionReportDTO;
 import com.example.banking.dto.TransactionDTO;
-import com.example.banking.entity.Customer;
+import com.example.banking.repository.AccountMonthlyAggregateRepository;
+import com.example.banking.repository.AccountRepository;
 import com.example.banking.repository.CustomerAddressRepository;
 import com.example.banking.repository.CustomerRepository;
 import com.example.banking.repository.TransactionRepository;
+import com.example.banking.repository.projection.AccountRow;
+import com.example.banking.repository.projection.CustomerAddressRow;
+import com.example.banking.repository.projection.CustomerIdBounds;
+import com.example.banking.repository.projection.CustomerSummary;
+import com.example.banking.repository.projection.CustomerMonthTotal;
+import com.example.banking.repository.projection.TransactionRow;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
@@ -25,9 +44,24 @@ public class ReportService {
     @Autowired
     private CustomerAddressRepository addressRepo;
 
+    @Autowired
+    private AccountRepository accountRepo;
+
     @Autowired
     private TransactionRepository transactionRepo;
 
+    @Autowired
+    private AccountMonthlyAggregateRepository aggregateRepo;
+
+    @Autowired
+    private PartitionedReportEngine reportEngine;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.reports.export.chunk-size:500}")
+    private int exportChunkSize;
+
     /**
      * Generates a monthly transaction report for all customers.
      *
@@ -40,84 +74,192 @@ public class ReportService {
      *     <li>Total deposit and withdrawal amounts</li>
      * </ul>
      *
+     * <p>The customer id space is split into ranges that are generated in
+     * parallel by the {@link PartitionedReportEngine} and merged in customer
+     * id order. Each range is fetched in its own read-only transaction, on one
+     * connection, with a fixed number of set-based projection queries
+     * (customers, addresses, accounts, transactions and per-customer totals),
+     * so the number of statements grows with the number of ranges, not with
+     * the number of customers. The totals are summed from the per-account
+     * monthly aggregates rather than from the ledger, so they cost one row per
+     * account instead of one per transaction.</p>
+     *
      * @param month the month for which the report is generated (1-12)
      * @param year  the year for which the report is generated
      * @return a list of {@link MonthlyTransactionReportDTO} containing the report data for each customer
      */
+    @Timed(value = BankingMetrics.SERVICE_TIMER, histogram = true)
     public List<MonthlyTransactionReportDTO> getMonthlyReport(int month, int year) {
         log.info("Generating monthly transaction report for month={} and year={}", month, year);
+        YearMonth.of(year, month); // Reject an invalid month before starting any worker
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        CustomerIdBounds bounds = customerRepo.findIdBounds();
+        List<MonthlyTransactionReportDTO> report = reportEngine.generate(bounds.getMinId(), bounds.getMaxId(),
+                (afterId, lastId) -> readOnly.execute(status -> getMonthlyReportForRange(month, year, afterId, lastId)));
 
-        List<Customer> customers = customerRepo.findAll();
-        log.info("Found {} customers", customers.size());
-
-        return customers.stream().map(customer -> {
-            log.info("Processing report for customerId={}, username={}", customer.getId(), customer.getUsername());
-
-            // Fetch addresses
-            List<CustomerAddressDTO> addresses = addressRepo.findByCustomerId(customer.getId())
-                    .stream()
-                    .map(addr -> CustomerAddressDTO.builder()
-                            .id(addr.getId())
-                            .addressLine1(addr.getAddressLine1())
-                            .addressLine2(addr.getAddressLine2())
-                            .city(addr.getCity())
-                            .state(addr.getState())
-                            .postalCode(addr.getPostalCode())
-                            .country(addr.getCountry())
-                            .addressType(addr.getAddressType())
-                            .build())
-                    .toList();
-            log.info("Found {} addresses for customerId={}", addresses.size(), customer.getId());
-
-            List<AccountDTO> accounts = customer.getAccounts().stream()
-                    .map(acc -> AccountDTO.builder()
-                            .id(acc.getId())
-                            .accountNumber(acc.getAccountNumber())
-                            .accountType(acc.getAccountType())
-                            .balance(acc.getBalance())
-                            .createdAt(acc.getCreatedAt())
-                            .build())
-                    .toList();
-            log.info("Found {} accounts for customerId={}", accounts.size(), customer.getId());
-
-            // Fetch transactions for the month
-            List<TransactionDTO> transactions = transactionRepo.findByCustomerIdAndMonthAndYear(customer.getId(), month, year)
-                    .stream()
-                    .map(tx -> TransactionDTO.builder()
-                            .id(tx.getId())
-                            .accountNumber(tx.getAccount().getAccountNumber())
-                            .amount(tx.getAmount())
-                            .description(tx.getDescription())
-                            .transactionTime(tx.getTransactionTime())
-                            .type(tx.getType())
-                            .build())
-                    .toList();
-            log.info("Found {} transactions for customerId={} in month={}", transactions.size(), customer.getId(), month);
-
-            // Calculate totals
-            BigDecimal totalDeposit = transactions.stream()
-                    .filter(tx -> tx.getType().equalsIgnoreCase("DEPOSIT"))
-                    .map(TransactionDTO::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal totalWithdrawal = transactions.stream()
-                    .filter(tx -> tx.getType().equalsIgnoreCase("WITHDRAWAL"))
-                    .map(TransactionDTO::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            log.info("CustomerId={} totalDeposit={} totalWithdrawal={}", customer.getId(), totalDeposit, totalWithdrawal);
-
-            return MonthlyTransactionReportDTO.builder()
-                    .customerId(customer.getId())
-                    .customerName(customer.getUsername())
-                    .email(customer.getEmail())
-                    .addresses(addresses)
-                    .transactions(transactions)
-                    .accounts(accounts)
-                    .totalDeposit(totalDeposit)
-                    .totalWithdrawal(totalWithdrawal)
-                    .build();
-        }).toList();
+        log.info("Monthly report generated: customers={}, transactions={}",
+                report.size(), report.stream().mapToInt(row -> row.getTransactions().size()).sum());
+        return report;
     }
-}
 
+    /**
+     * Streams the monthly transaction report for all customers, one customer at a time.
+     *
+     * <p>Produces the same rows as {@link #getMonthlyReport(int, int)}, but walks
+     * the customers in id order, {@code app.reports.export.chunk-size} at a
+     * time: each chunk is fetched with the same set-based queries restricted
+     * to its id range, handed to {@code sink} and released before the next one
+     * is read, so memory is bounded by the chunk size rather than by the
+     * number of customers or transactions.</p>
+     *
+     * <p>Each chunk is read in its own short read-only transaction and handed
+     * to {@code sink} only after it has ended, so a long export never holds a
+     * connection while the client drains the output; rows posted while an
+     * export is running may or may not be included.</p>
+     *
+     * @param month the month for which the report is generated (1-12)
+     * @param year  the year for which the report is generated
+     * @param sink  receives the report row of each customer, in customer id order
+     * @return the number of customers exported
+     */
+    public int exportMonthlyReport(int month, int year, Consumer<MonthlyTransactionReportDTO> sink) {
+        log.info("Exporting monthly transaction report for month={} and year={}", month, year);
+
+        YearMonth period = YearMonth.of(year, month);
+        LocalDateTime start = period.atDay(1).atStartOfDay();
+        LocalDateTime end = period.plusMonths(1).atDay(1).atStartOfDay();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        int exported = 0;
+        long afterId = 0L;
+        while (true) {
+            long chunkAfterId = afterId;
+            List<MonthlyTransactionReportDTO> chunk = readOnly.execute(status -> {
+                List<CustomerSummary> customers = customerRepo.findSummariesAfter(chunkAfterId, Limit.of(exportChunkSize));
+                if (customers.isEmpty()) {
+                    return List.of();
+                }
+                long lastId = customers.get(customers.size() - 1).getId();
+                return assembleRange(customers, chunkAfterId, lastId, period, start, end);
+            });
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            // Handed over after the commit, so a slow client never holds the connection
+            chunk.forEach(sink);
+
+            exported += chunk.size();
+            afterId = chunk.get(chunk.size() - 1).getCustomerId();
+        }
+
+        log.info("Monthly report exported: customers={}", exported);
+        return exported;
+    }
+
+    /**
+     * Generates the monthly transaction report for the customers whose id lies
+     * in {@code (afterId, lastId]}, in customer id order.
+     *
+     * <p>Runs the same set-based queries as {@link #getMonthlyReport(int, int)},
+     * restricted to the id range, so a report can be split into independent
+     * pieces. Unless called in a transaction, each query runs in its own short
+     * read-only transaction.</p>
+     *
+     * @param month   the month for which the report is generated (1-12)
+     * @param year    the year for which the report is generated
+     * @param afterId exclusive lower bound of the customer ids
+     * @param lastId  inclusive upper bound of the customer ids
+     * @return one report row per customer in the range
+     */
+    public List<MonthlyTransactionReportDTO> getMonthlyReportForRange(int month, int year, long afterId, long lastId) {
+        // Half-open range on the raw column so the (account_id, transaction_time) index can be used
+        YearMonth period = YearMonth.of(year, month);
+        LocalDateTime start = period.atDay(1).atStartOfDay();
+        LocalDateTime end = period.plusMonths(1).atDay(1).atStartOfDay();
+
+        List<CustomerSummary> customers = customerRepo.findSummariesByIdRange(afterId, lastId);
+        if (customers.isEmpty()) {
+            return List.of();
+        }
+        return assembleRange(customers, afterId, lastId, period, start, end);
+    }
+
+    private List<MonthlyTransactionReportDTO> assembleRange(List<CustomerSummary> customers, long afterId, long lastId,
+                                                            YearMonth period, LocalDateTime start, LocalDateTime end) {
+        return assemble(customers,
+                addressRepo.findRowsByCustomerIdRange(afterId, lastId),
+                accountRepo.findRowsByCustomerIdRange(afterId, lastId),
+                transactionRepo.findRowsByCustomerIdRangeAndTimeRange(afterId, lastId, start, end),
+                aggregateRepo.sumByCustomerIdRange(period.getYear(), period.getMonthValue(), afterId, lastId));
+    }
+
+    /**
+     * Joins the projection rows of a set of customers into one report row per customer.
+     */
+    private static List<MonthlyTransactionReportDTO> assemble(List<CustomerSummary> customers,
+                                                              List<CustomerAddressRow> addressRows,
+                                                              List<AccountRow> accountRows,
+                                                              List<TransactionRow> transactionRows,
+                                                              List<CustomerMonthTotal> totals) {
+        Map<Long, List<CustomerAddressDTO>> addresses = new HashMap<>();
+        addressRows.forEach(addr -> addresses
+                .computeIfAbsent(addr.getCustomerId(), id -> new ArrayList<>())
+                .add(CustomerAddressDTO.builder()
+                        .id(addr.getId())
+                        .addressLine1(addr.getAddressLine1())
+                        .addressLine2(addr.getAddressLine2())
+                        .city(addr.getCity())
+                        .state(addr.getState())
+                        .postalCode(addr.getPostalCode())
+                        .country(addr.getCountry())
+                        .addressType(addr.getAddressType())
+                        .build()));
+
+        Map<Long, List<AccountDTO>> accounts = new HashMap<>();
+        accountRows.forEach(acc -> accounts
+                .computeIfAbsent(acc.getCustomerId(), id -> new ArrayList<>())
+                .add(AccountDTO.builder()
+                        .id(acc.getId())
+                        .accountNumber(acc.getAccountNumber())
+                        .accountType(acc.getAccountType())
+                        .balance(acc.getBalance())
+                        .createdAt(acc.getCreatedAt())
+                        .build()));
+
+        Map<Long, List<TransactionDTO>> transactions = new HashMap<>();
+        transactionRows.forEach(tx -> transactions
+                .computeIfAbsent(tx.getCustomerId(), id -> new ArrayList<>())
+                .add(TransactionDTO.builder()
+                        .id(tx.getId())
+                        .accountNumber(tx.getAccountNumber())
+                        .amount(tx.getAmount())
+                        .description(tx.getDescription())
+                        .transactionTime(tx.getTransactionTime())
+                        .type(tx.getType())
+                        .build()));
+
+        Map<Long, BigDecimal> deposits = new HashMap<>();
+        Map<Long, BigDecimal> withdrawals = new HashMap<>();
+        for (CustomerMonthTotal total : totals) {
+            deposits.put(total.getCustomerId(), total.getDepositTotal());
+            withdrawals.put(total.getCustomerId(), total.getWithdrawalTotal());
+        }
+
+        return customers.stream()
+                .map(customer -> MonthlyTransactionReportDTO.builder()
+                        .customerId(customer.getId())
+                        .customerName(customer.getUsername())
+                        .email(customer.getEmail())
+                        .addresses(addresses.getOrDefault(customer.getId(), List.of()))
+                        .transactions(transactions.getOrDefault(customer.getId(), List.of()))
+                        .accounts(accounts.getOrDefault(customer.getId(), List.of()))
+                        .totalDeposit(deposits.getOrDefault(customer.getId(), BigDecimal.ZERO))
+                        .totalWithdrawal(withdrawals.getOrDefault(customer.getId(), BigDecimal.ZERO))
+                        .build())
+                .toList();
+    }
+}
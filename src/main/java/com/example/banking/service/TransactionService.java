@@ -1,144 +1,339 @@
 package com.example.banking.service;
 
+import com.example.banking.config.BankingMetrics;
+import com.example.banking.dto.BatchTransactionItem;
+import com.example.banking.dto.BatchTransactionResult;
 import com.example.banking.dto.TransactionDTO;
+import com.example.banking.dto.TransactionPage;
 import com.example.banking.dto.TransactionRequest;
 import com.example.banking.dto.TransactionResponse;
+import com.example.banking.dto.TransferRequest;
+import com.example.banking.dto.TransferResponse;
 import com.example.banking.entity.Account;
 import com.example.banking.entity.Transaction;
+import com.example.banking.exception.BusinessRuleException;
+import com.example.banking.exception.ErrorCode;
+import com.example.banking.exception.InvalidRequestException;
+import com.example.banking.exception.ResourceNotFoundException;
 import com.example.banking.repository.AccountRepository;
 import com.example.banking.repository.TransactionRepository;
-import jakarta.transaction.Transactional;
+import com.example.banking.util.AccountNumbers;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class TransactionService {
 
+    // Bounds used when the history is not restricted in time (the DATETIME range supported by MySQL)
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59);
+
     @Autowired
     private AccountRepository accountRepository;
 
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private BalanceEngine balanceEngine;
+
+    @Autowired
+    private GroupCommitLedger groupCommitLedger;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private BankingMetrics metrics;
+
+    @Value("${app.transactions.batch.max-items:10000}")
+    private int batchMaxItems;
+
+    @Value("${app.transactions.batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    @Value("${app.transactions.history.max-page-size:500}")
+    private int historyMaxPageSize;
+
     /**
      * Deposits a specified amount into an account.
      *
-     * <p>The account balance is updated, and a corresponding transaction
-     * record is created.</p>
-     *
      * @param request the deposit request containing account number, amount, and description
      * @return a {@link TransactionResponse} containing updated account balance and transaction details
-     * @throws RuntimeException if the account is not found
+     * @throws ResourceNotFoundException if the account is not found
+     * @see #deposit(TransactionRequest, String, String)
      */
-
-    @Transactional
+    @Timed(value = BankingMetrics.SERVICE_TIMER, histogram = true)
     public TransactionResponse deposit(TransactionRequest request) {
-        log.info("Deposit request received: accountNumber={}, amount={}", request.getAccountNumber(), request.getAmount());
-
-        Account account = accountRepository.findByAccountNumber(request.getAccountNumber())
-                .orElseThrow(() -> {
-                    log.error("Account not found: accountNumber={}", request.getAccountNumber());
-                    return new RuntimeException("Account not found");
-                });
-
-        account.setBalance(account.getBalance().add(request.getAmount()));
+        return deposit(request, null, null);
+    }
 
-        Transaction transaction = Transaction.builder()
-                .account(account)
-                .type("DEPOSIT")
-                .amount(request.getAmount())
-                .description(request.getDescription())
-                .transactionTime(LocalDateTime.now())
-                .build();
+    /**
+     * Deposits a specified amount into an account.
+     *
+     * <p>The account balance is updated, and a corresponding transaction
+     * record is created, atomically through the {@link BalanceEngine}, or
+     * through the {@link GroupCommitLedger} when group commit is enabled.
+     * With an idempotency key the deposit is executed at most once per key
+     * by the {@link IdempotencyService}, always on the direct path so that the
+     * key is stored in the same transaction; repeated requests return the
+     * original result.</p>
+     *
+     * @param request        the deposit request containing account number, amount, and description
+     * @param principal      the username of the caller, the scope of the idempotency key
+     * @param idempotencyKey the client's {@code Idempotency-Key}, or {@code null}
+     * @return a {@link TransactionResponse} containing updated account balance and transaction details
+     * @throws InvalidRequestException   if the account number is malformed
+     * @throws ResourceNotFoundException if the account is not found
+     * @throws BusinessRuleException     if the key was used for a different request
+     */
+    @Timed(value = BankingMetrics.SERVICE_TIMER, histogram = true)
+    public TransactionResponse deposit(TransactionRequest request, String principal, String idempotencyKey) {
+        log.debug("Deposit request received: accountNumber={}, amount={}", request.getAccountNumber(), request.getAmount());
+        requireWellFormed(request.getAccountNumber());
 
-        transactionRepository.save(transaction);
-        accountRepository.save(account);
+        TransactionResponse response;
+        if (idempotencyKey != null) {
+            response = idempotencyService.execute(principal, idempotencyKey, BalanceEngine.DEPOSIT, request, () -> credit(request));
+        } else if (groupCommitLedger.isEnabled()) {
+            response = viaGroupCommit(BalanceEngine.DEPOSIT, request);
+        } else {
+            response = balanceEngine.inTransaction(() -> credit(request));
+        }
 
-        log.info("Deposit successful: accountNumber={}, depositedAmount={}, newBalance={}",
-                account.getAccountNumber(), request.getAmount(), account.getBalance());
+        log.atInfo()
+                .setMessage("Deposit successful")
+                .addKeyValue("accountNumber", response.getAccountNumber())
+                .addKeyValue("amount", request.getAmount())
+                .addKeyValue("balanceAfter", response.getBalanceAfter())
+                .log();
 
-        return new TransactionResponse(
-                account.getAccountNumber(),
-                "DEPOSIT",
-                request.getAmount(),
-                account.getBalance()
-        );
+        return response;
     }
 
     /**
      * Withdraws a specified amount from an account.
      *
-     * <p>The account balance is updated, and a corresponding transaction
-     * record is created. Throws an exception if the balance is insufficient.</p>
-     *
      * @param request the withdrawal request containing account number, amount, and description
      * @return a {@link TransactionResponse} containing updated account balance and transaction details
-     * @throws RuntimeException if the account is not found or if balance is insufficient
+     * @throws ResourceNotFoundException if the account is not found
+     * @throws BusinessRuleException     if the balance is insufficient
+     * @see #withdraw(TransactionRequest, String, String)
      */
-
-    @Transactional
+    @Timed(value = BankingMetrics.SERVICE_TIMER, histogram = true)
     public TransactionResponse withdraw(TransactionRequest request) {
-        log.info("Withdrawal request received: accountNumber={}, amount={}", request.getAccountNumber(), request.getAmount());
+        return withdraw(request, null, null);
+    }
 
-        Account account = accountRepository.findByAccountNumber(request.getAccountNumber())
-                .orElseThrow(() -> {
-                    log.error("Account not found: accountNumber={}", request.getAccountNumber());
-                    return new RuntimeException("Account not found");
-                });
+    /**
+     * Withdraws a specified amount from an account.
+     *
+     * <p>The account balance is updated, and a corresponding transaction
+     * record is created, atomically through the {@link BalanceEngine}, or
+     * through the {@link GroupCommitLedger} when group commit is enabled.
+     * With an idempotency key the withdrawal is executed at most once per key,
+     * as for {@link #deposit(TransactionRequest, String, String)}.
+     * Throws an exception if the balance is insufficient.</p>
+     *
+     * @param request        the withdrawal request containing account number, amount, and description
+     * @param principal      the username of the caller, the scope of the idempotency key
+     * @param idempotencyKey the client's {@code Idempotency-Key}, or {@code null}
+     * @return a {@link TransactionResponse} containing updated account balance and transaction details
+     * @throws InvalidRequestException   if the account number is malformed
+     * @throws ResourceNotFoundException if the account is not found
+     * @throws BusinessRuleException     if the balance is insufficient, or the key was used for a different request
+     */
+    @Timed(value = BankingMetrics.SERVICE_TIMER, histogram = true)
+    public TransactionResponse withdraw(TransactionRequest request, String principal, String idempotencyKey) {
+        log.debug("Withdrawal request received: accountNumber={}, amount={}", request.getAccountNumber(), request.getAmount());
+        requireWellFormed(request.getAccountNumber());
 
-        if (account.getBalance().compareTo(request.getAmount()) < 0) {
-            log.error("Insufficient balance for withdrawal: accountNumber={}, requestedAmount={}, currentBalance={}",
-                    account.getAccountNumber(), request.getAmount(), account.getBalance());
-            throw new RuntimeException("Insufficient balance");
+        TransactionResponse response;
+        if (idempotencyKey != null) {
+            response = idempotencyService.execute(principal, idempotencyKey, BalanceEngine.WITHDRAWAL, request, () -> debit(request));
+        } else if (groupCommitLedger.isEnabled()) {
+            response = viaGroupCommit(BalanceEngine.WITHDRAWAL, request);
+        } else {
+            response = balanceEngine.inTransaction(() -> debit(request));
         }
 
-        account.setBalance(account.getBalance().subtract(request.getAmount()));
-
-        Transaction transaction = Transaction.builder()
-                .account(account)
-                .type("WITHDRAWAL")
-                .amount(request.getAmount())
-                .description(request.getDescription())
-                .transactionTime(LocalDateTime.now())
-                .build();
+        log.atInfo()
+                .setMessage("Withdrawal successful")
+                .addKeyValue("accountNumber", response.getAccountNumber())
+                .addKeyValue("amount", request.getAmount())
+                .addKeyValue("balanceAfter", response.getBalanceAfter())
+                .log();
 
-        transactionRepository.save(transaction);
-        accountRepository.save(account);
+        return response;
+    }
 
-        log.info("Withdrawal successful: accountNumber={}, withdrawnAmount={}, newBalance={}",
-                account.getAccountNumber(), request.getAmount(), account.getBalance());
+    /**
+     * Posts a deposit; must run inside a transaction.
+     */
+    private TransactionResponse credit(TransactionRequest request) {
+        Transaction transaction = balanceEngine.credit(
+                request.getAccountNumber(), request.getAmount(), request.getDescription());
+        return new TransactionResponse(
+                transaction.getAccount().getAccountNumber(),
+                "DEPOSIT",
+                request.getAmount(),
+                balanceEngine.totalBalance(transaction.getAccount())
+        );
+    }
 
+    /**
+     * Posts a withdrawal; must run inside a transaction.
+     */
+    private TransactionResponse debit(TransactionRequest request) {
+        Transaction transaction = balanceEngine.debit(
+                request.getAccountNumber(), request.getAmount(), request.getDescription());
         return new TransactionResponse(
-                account.getAccountNumber(),
+                transaction.getAccount().getAccountNumber(),
                 "WITHDRAWAL",
                 request.getAmount(),
-                account.getBalance()
+                balanceEngine.totalBalance(transaction.getAccount())
         );
     }
 
+    /**
+     * Posts a deposit or withdrawal through the {@link GroupCommitLedger} and
+     * returns once the group commit containing it has completed.
+     */
+    private TransactionResponse viaGroupCommit(String type, TransactionRequest request) {
+        BatchTransactionResult result = groupCommitLedger.post(
+                type, request.getAccountNumber(), request.getAmount(), request.getDescription());
+        return new TransactionResponse(result.getAccountNumber(), type, result.getAmount(), result.getBalanceAfter());
+    }
+
+    /**
+     * Transfers a specified amount from one account to another.
+     *
+     * <p>The debit, the credit and both ledger entries are applied in a
+     * single database transaction through the {@link BalanceEngine}, so a
+     * transfer either happens completely or not at all.</p>
+     *
+     * @param request the transfer request containing source and destination account numbers, amount, and description
+     * @return a {@link TransferResponse} containing the transfer reference and both updated balances
+     * @throws ResourceNotFoundException if an account is not found
+     * @throws InvalidRequestException   if an account number is malformed or both accounts are the same
+     * @throws BusinessRuleException     if the balance is insufficient
+     */
+    public TransferResponse transfer(TransferRequest request) {
+        log.debug("Transfer request received: from={}, to={}, amount={}",
+                request.getFromAccountNumber(), request.getToAccountNumber(), request.getAmount());
+        requireWellFormed(request.getFromAccountNumber());
+        requireWellFormed(request.getToAccountNumber());
+
+        TransferResponse response = balanceEngine.inTransaction(() -> {
+            List<Transaction> legs = balanceEngine.transfer(request.getFromAccountNumber(),
+                    request.getToAccountNumber(), request.getAmount(), request.getDescription());
+            Transaction withdrawal = legs.get(0);
+            Transaction deposit = legs.get(1);
+            return TransferResponse.builder()
+                    .reference(withdrawal.getReference())
+                    .fromAccountNumber(withdrawal.getAccount().getAccountNumber())
+                    .toAccountNumber(deposit.getAccount().getAccountNumber())
+                    .amount(request.getAmount())
+                    .fromBalanceAfter(balanceEngine.totalBalance(withdrawal.getAccount()))
+                    .toBalanceAfter(balanceEngine.totalBalance(deposit.getAccount()))
+                    .build();
+        });
+
+        log.atInfo()
+                .setMessage("Transfer successful")
+                .addKeyValue("reference", response.getReference())
+                .addKeyValue("from", response.getFromAccountNumber())
+                .addKeyValue("to", response.getToAccountNumber())
+                .addKeyValue("amount", request.getAmount())
+                .log();
+
+        return response;
+    }
+
+    /**
+     * Applies a large batch of deposits and withdrawals.
+     *
+     * <p>The batch is split into chunks of {@code app.transactions.batch.chunk-size}
+     * items and each chunk is applied in its own database transaction, so a
+     * payroll-sized import needs a handful of commits instead of one per item.
+     * Items are reported individually; a failed item does not fail its chunk.</p>
+     *
+     * @param items the deposits and withdrawals to apply, in order
+     * @return one {@link BatchTransactionResult} per submitted item, in the same order
+     * @throws InvalidRequestException if the batch is empty or larger than the configured limit
+     */
+    public List<BatchTransactionResult> processBatch(List<BatchTransactionItem> items) {
+        if (items == null || items.isEmpty()) {
+            throw new InvalidRequestException(ErrorCode.INVALID_REQUEST, "Batch must contain at least one transaction");
+        }
+        if (items.size() > batchMaxItems) {
+            throw new InvalidRequestException(ErrorCode.INVALID_REQUEST,
+                    "Batch must not contain more than " + batchMaxItems + " transactions");
+        }
+        log.debug("Batch request received: items={}, chunkSize={}", items.size(), batchChunkSize);
+
+        List<BatchTransactionResult> results = new ArrayList<>(items.size());
+        for (int from = 0; from < items.size(); from += batchChunkSize) {
+            List<BatchTransactionItem> chunk = items.subList(from, Math.min(from + batchChunkSize, items.size()));
+            int offset = from;
+            results.addAll(balanceEngine.inTransaction(() -> balanceEngine.postBatch(chunk, offset)));
+        }
+
+        long failed = results.stream().filter(result -> !result.isSuccess()).count();
+        log.atInfo()
+                .setMessage("Batch processed")
+                .addKeyValue("items", items.size())
+                .addKeyValue("succeeded", items.size() - failed)
+                .addKeyValue("failed", failed)
+                .log();
+        return results;
+    }
+
 
     /**
      * Retrieves the transaction history for a given account.
      *
+     * <p>The optional bounds form a half-open range on the transaction time
+     * ({@code from} inclusive, {@code to} exclusive) that is served by the
+     * {@code (account_id, transaction_time)} index.</p>
+     *
      * @param accountNumber the unique account number
-     * @return a list of {@link TransactionDTO} containing transaction details
-     * @throws RuntimeException if the account is not found
+     * @param from          the earliest transaction time to include, or {@code null} for no lower bound
+     * @param to            the transaction time to stop before, or {@code null} for no upper bound
+     * @return a list of {@link TransactionDTO} containing transaction details, oldest first
+     * @throws InvalidRequestException   if the account number is malformed
+     * @throws ResourceNotFoundException if the account is not found
      */
-    public List<TransactionDTO> getTransactionHistory(String accountNumber) {
-        log.info("Fetching transaction history for accountNumber={}", accountNumber);
+    @Timed(value = BankingMetrics.SERVICE_TIMER, histogram = true)
+    public List<TransactionDTO> getTransactionHistory(String accountNumber, LocalDateTime from, LocalDateTime to) {
+        log.debug("Fetching transaction history for accountNumber={}, from={}, to={}", accountNumber, from, to);
+        requireWellFormed(accountNumber);
 
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> {
-                    log.error("Account not found: accountNumber={}", accountNumber);
-                    return new RuntimeException("Account not found");
+                    log.debug("Account not found: accountNumber={}", accountNumber);
+                    metrics.rejected(BankingMetrics.ACCOUNT_NOT_FOUND);
+                    return new ResourceNotFoundException(ErrorCode.ACCOUNT_NOT_FOUND);
                 });
 
-        List<TransactionDTO> transactions = transactionRepository.findByAccountId(account.getId())
+        LocalDateTime start = from != null ? from : EARLIEST;
+        LocalDateTime end = to != null ? to : LATEST;
+
+        List<TransactionDTO> transactions = transactionRepository.findByAccountIdAndTimeRange(account.getId(), start, end)
                 .stream()
                 .map(tx -> TransactionDTO.builder()
                         .id(tx.getId())
@@ -150,8 +345,138 @@ public class TransactionService {
                         .build())
                 .toList();
 
-        log.info("Transaction history retrieved: accountNumber={}, totalTransactions={}", accountNumber, transactions.size());
+        log.atInfo()
+                .setMessage("Transaction history retrieved")
+                .addKeyValue("accountNumber", accountNumber)
+                .addKeyValue("transactions", transactions.size())
+                .log();
 
         return transactions;
     }
+
+    /**
+     * Retrieves one page of an account's transaction history using keyset
+     * pagination on {@code (transactionTime, id)}.
+     *
+     * <p>Unlike offset paging, every page costs the same index seek no matter
+     * how far into the history it is. The returned cursor is opaque to
+     * clients and is {@code null} once the last page has been reached.</p>
+     *
+     * @param accountNumber the unique account number
+     * @param cursor        the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit         the maximum number of transactions to return
+     * @param from          the earliest transaction time to include, or {@code null} for no lower bound
+     * @param to            the transaction time to stop before, or {@code null} for no upper bound
+     * @param type          only return transactions of this type, or {@code null} for all types
+     * @return a {@link TransactionPage} with the transactions and the cursor of the next page
+     * @throws ResourceNotFoundException if the account is not found
+     * @throws InvalidRequestException   if the account number or the cursor is malformed
+     */
+    @Timed(value = BankingMetrics.SERVICE_TIMER, histogram = true)
+    public TransactionPage getTransactionHistoryPage(String accountNumber, String cursor, int limit,
+                                                     LocalDateTime from, LocalDateTime to, String type) {
+        log.debug("Fetching transaction history page for accountNumber={}, cursor={}, limit={}", accountNumber, cursor, limit);
+
+        Long accountId = findAccountId(accountNumber);
+        int pageSize = Math.max(1, Math.min(limit, historyMaxPageSize));
+
+        LocalDateTime afterTime = from != null ? from : EARLIEST;
+        long afterId = 0L;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterTime = LocalDateTime.parse(position[0]);
+            afterId = Long.parseLong(position[1]);
+        }
+
+        // Fetch one extra row to learn whether another page exists
+        List<TransactionDTO> rows = transactionRepository.findHistoryPage(accountId, afterTime, afterId,
+                to != null ? to : LATEST, normalizeType(type), Limit.of(pageSize + 1));
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            TransactionDTO last = rows.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getTransactionTime(), last.getId());
+        }
+
+        return TransactionPage.builder()
+                .items(rows)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Streams an account's transaction history to the given consumer straight
+     * from a database cursor, without materializing the result.
+     *
+     * <p>Rows are read as DTO projections with a bounded JDBC fetch size, so
+     * memory use stays flat regardless of the size of the history.</p>
+     *
+     * @param accountId the account ID, see {@link #findAccountId(String)}
+     * @param from      the earliest transaction time to include, or {@code null} for no lower bound
+     * @param to        the transaction time to stop before, or {@code null} for no upper bound
+     * @param type      only return transactions of this type, or {@code null} for all types
+     * @param sink      receives each transaction, oldest first
+     */
+    @Transactional(readOnly = true)
+    public void streamTransactionHistory(Long accountId, LocalDateTime from, LocalDateTime to, String type,
+                                         Consumer<TransactionDTO> sink) {
+        try (Stream<TransactionDTO> rows = transactionRepository.streamHistory(accountId,
+                from != null ? from : EARLIEST, to != null ? to : LATEST, normalizeType(type))) {
+            rows.forEach(sink);
+        }
+    }
+
+    /**
+     * Resolves an account number to its ID.
+     *
+     * @param accountNumber the unique account number
+     * @return the account ID
+     * @throws InvalidRequestException   if the account number is malformed
+     * @throws ResourceNotFoundException if the account is not found
+     */
+    public Long findAccountId(String accountNumber) {
+        requireWellFormed(accountNumber);
+        return accountRepository.findByAccountNumber(accountNumber)
+                .map(Account::getId)
+                .orElseThrow(() -> {
+                    log.debug("Account not found: accountNumber={}", accountNumber);
+                    metrics.rejected(BankingMetrics.ACCOUNT_NOT_FOUND);
+                    return new ResourceNotFoundException(ErrorCode.ACCOUNT_NOT_FOUND);
+                });
+    }
+
+    /**
+     * Refuses an account number that cannot exist before any query is made.
+     */
+    private void requireWellFormed(String accountNumber) {
+        if (!AccountNumbers.isWellFormed(accountNumber)) {
+            log.debug("Malformed account number: accountNumber={}", accountNumber);
+            metrics.rejected(BankingMetrics.INVALID_ACCOUNT_NUMBER);
+            throw new InvalidRequestException(ErrorCode.INVALID_ACCOUNT_NUMBER);
+        }
+    }
+
+    private String normalizeType(String type) {
+        return type == null || type.isBlank() ? null : type.toUpperCase();
+    }
+
+    private String encodeCursor(LocalDateTime transactionTime, Long id) {
+        String position = transactionTime + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",");
+            if (position.length == 2) {
+                LocalDateTime.parse(position[0]);
+                Long.parseLong(position[1]);
+                return position;
+            }
+        } catch (RuntimeException ex) {
+            // Not Base64, or not a time and an id
+        }
+        throw new InvalidRequestException(ErrorCode.INVALID_CURSOR);
+    }
 }
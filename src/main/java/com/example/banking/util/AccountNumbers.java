@@ -0,0 +1,99 @@
+package com.example.banking.util;
+
+/**
+ * Format of account numbers: 11 digits followed by a Luhn check digit.
+ *
+ * <p>The check digit catches any single mistyped digit and most swapped
+ * neighbours, so a malformed number can be refused without looking it up.
+ * Accounts opened before numbers were allocated this way have a UUID
+ * fragment as their number; those are never all digits and are still
+ * accepted as they are.</p>
+ */
+public final class AccountNumbers {
+
+    public static final int LENGTH = 12;
+
+    // Values are formatted on 11 digits without leading zeros
+    public static final long FIRST_VALUE = 10_000_000_000L;
+    public static final long MAX_VALUE = 99_999_999_999L;
+
+    // Length of the account_number column
+    private static final int MAX_LENGTH = 20;
+
+    private AccountNumbers() {
+    }
+
+    /**
+     * Formats a sequence value as an account number.
+     *
+     * @param value a value between {@link #FIRST_VALUE} and {@link #MAX_VALUE}
+     * @return the 11 digits of the value followed by their check digit
+     * @throws IllegalArgumentException if the value is out of range
+     */
+    public static String format(long value) {
+        if (value < FIRST_VALUE || value > MAX_VALUE) {
+            throw new IllegalArgumentException("Account number value out of range: " + value);
+        }
+        char[] digits = new char[LENGTH];
+        int sum = 0;
+        long rest = value;
+        // Luhn: double every second digit, starting with the one next to the check digit
+        for (int i = LENGTH - 2; i >= 0; i--) {
+            int digit = (int) (rest % 10);
+            rest /= 10;
+            digits[i] = (char) ('0' + digit);
+            sum += (LENGTH - i) % 2 == 0 ? doubled(digit) : digit;
+        }
+        digits[LENGTH - 1] = (char) ('0' + (10 - sum % 10) % 10);
+        return new String(digits);
+    }
+
+    /**
+     * Tells whether a string is a {@link #LENGTH}-digit number whose last
+     * digit is its Luhn check digit.
+     *
+     * @param accountNumber the string to check
+     * @return {@code true} if it has the format of an allocated account number
+     */
+    public static boolean hasValidCheckDigit(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() != LENGTH) {
+            return false;
+        }
+        int sum = 0;
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            sum += (LENGTH - i) % 2 == 0 ? doubled(c - '0') : c - '0';
+        }
+        return sum % 10 == 0;
+    }
+
+    /**
+     * Tells whether an account number may exist, without looking it up.
+     *
+     * <p>Numeric numbers must be allocated ones, i.e. pass
+     * {@link #hasValidCheckDigit(String)}. Other non-blank numbers that fit
+     * the column are legacy numbers and pass.</p>
+     *
+     * @param accountNumber the account number to check
+     * @return {@code false} if no account can have this number
+     */
+    public static boolean isWellFormed(String accountNumber) {
+        if (accountNumber == null || accountNumber.isBlank() || accountNumber.length() > MAX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < accountNumber.length(); i++) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return true;
+            }
+        }
+        return hasValidCheckDigit(accountNumber);
+    }
+
+    private static int doubled(int digit) {
+        return digit < 5 ? digit * 2 : digit * 2 - 9;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.banking.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes an {@code ApiResponse} whose {@code data} is a list, element by
+ * element, through a single {@link JsonGenerator}, so that large lists can be
+ * streamed to the client in the usual envelope without being collected first.
+ *
+ * <p>The envelope is only closed by {@link #finish()}. If the stream fails
+ * halfway, {@link #close()} leaves the JSON unterminated so that clients see
+ * a broken response instead of a silently truncated list.</p>
+ */
+public class ApiResponseStreamWriter implements Closeable {
+
+    private final JsonGenerator generator;
+    private final ObjectWriter writer;
+
+    public ApiResponseStreamWriter(ObjectMapper objectMapper, OutputStream out, int status, String message)
+            throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(out);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        generator.writeStartObject();
+        generator.writeNumberField("status", status);
+        generator.writeStringField("message", message);
+        generator.writeArrayFieldStart("data");
+    }
+
+    /**
+     * Writes one element of the {@code data} list.
+     *
+     * @param value the value to serialize
+     * @throws UncheckedIOException if writing fails, so it can be used from lambdas
+     */
+    public void write(Object value) {
+        try {
+            writer.writeValue(generator, value);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Closes the {@code data} list and the envelope; call once all elements are written.
+     */
+    public void finish() throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.banking.util;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes RFC 4180 CSV records as UTF-8 through a buffered writer, so rows can
+ * be streamed straight to an output stream.
+ *
+ * <p>Fields containing a comma, quote or line break are quoted, with quotes
+ * doubled; {@code null} is written as an empty field. Text that a
+ * spreadsheet would evaluate as a formula (starting with {@code =},
+ * {@code +}, {@code -}, {@code @}, tab or carriage return) is prefixed with
+ * {@code '}. Numbers are written as they are, so negative values stay
+ * numeric.</p>
+ */
+public class CsvWriter implements Closeable {
+
+    private final Writer writer;
+
+    public CsvWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes one record followed by CRLF.
+     *
+     * @param fields the field values, converted with {@link String#valueOf(Object)}
+     * @throws UncheckedIOException if writing fails, so it can be used from lambdas
+     */
+    public void writeRow(Object... fields) {
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (fields[i] instanceof Number) {
+                    writeField(String.valueOf(fields[i]));
+                } else if (fields[i] != null) {
+                    writeField(neutralizeFormula(String.valueOf(fields[i])));
+                }
+            }
+            writer.write("\r\n");
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String neutralizeFormula(String value) {
+        if (value.isEmpty()) {
+            return value;
+        }
+        char first = value.charAt(0);
+        boolean formula = first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+        return formula ? "'" + value : value;
+    }
+
+    private void writeField(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
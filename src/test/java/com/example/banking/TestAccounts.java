@@ -0,0 +1,79 @@
+package com.example.banking;
+
+import com.example.banking.entity.Account;
+import com.example.banking.entity.Customer;
+import com.example.banking.repository.AccountRepository;
+import com.example.banking.repository.CustomerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Shared test fixture for customers and accounts. Every name gets a random suffix so tests sharing
+ * a context do not collide on the unique username and account number columns; the prefix only
+ * makes the rows recognisable when a test fails.
+ */
+@Component
+public class TestAccounts {
+
+    public static final String DEFAULT_ACCOUNT_TYPE = "CURRENT";
+    public static final BigDecimal DEFAULT_BALANCE = new BigDecimal("100.00");
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    public static String suffix() {
+        return UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * A customer that has not been saved yet, for tests that need to set the password hash,
+     * roles or addresses themselves.
+     */
+    public static Customer.CustomerBuilder customerBuilder(String prefix) {
+        String suffix = suffix();
+        return Customer.builder()
+                .username(prefix.toLowerCase() + "-" + suffix)
+                .password("secret")
+                .fullName(prefix + " " + suffix)
+                .email(suffix + "@example.com")
+                .createdAt(LocalDateTime.now());
+    }
+
+    public Customer createCustomer(String prefix) {
+        return customerRepository.save(customerBuilder(prefix).build());
+    }
+
+    public Account createAccount(String prefix) {
+        return createAccount(prefix, DEFAULT_ACCOUNT_TYPE, DEFAULT_BALANCE);
+    }
+
+    public Account createAccount(String prefix, BigDecimal balance) {
+        return createAccount(prefix, DEFAULT_ACCOUNT_TYPE, balance);
+    }
+
+    public Account createAccount(String prefix, String accountType) {
+        return createAccount(prefix, accountType, DEFAULT_BALANCE);
+    }
+
+    public Account createAccount(String prefix, String accountType, BigDecimal balance) {
+        return createAccount(createCustomer(prefix), prefix, accountType, balance);
+    }
+
+    /** An account for an existing customer, e.g. one registered through the API. */
+    public Account createAccount(Customer customer, String prefix, String accountType, BigDecimal balance) {
+        return accountRepository.save(Account.builder()
+                .customer(customer)
+                .accountNumber(prefix.toUpperCase() + "-" + suffix())
+                .accountType(accountType)
+                .balance(balance)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.banking.benchmark;
+
+import com.example.banking.config.JwtAuthenticationFilter;
+import com.example.banking.config.JwtUtil;
+import com.example.banking.entity.Customer;
+import com.example.banking.entity.Role;
+import com.example.banking.repository.CustomerRepository;
+import com.example.banking.repository.RoleRepository;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of {@link JwtAuthenticationFilter} when the
+ * principal is reloaded from the database and when it is built from the
+ * token claims, with and without the verified-token cache.
+ *
+ * <p>A cache size of 0 disables the token cache, so every request pays for
+ * verification plus, in {@code DATABASE} mode, a customer and roles query
+ * against the in-memory test database.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"DATABASE", "CLAIMS"})
+    private String authMode;
+
+    @Param({"0", "10000"})
+    private String tokenCacheSize;
+
+    private ConfigurableApplicationContext context;
+
+    private JwtAuthenticationFilter filter;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "app.jwt.auth-mode=" + authMode,
+                "app.jwt.cache.max-size=" + tokenCacheSize);
+
+        Role role = context.getBean(RoleRepository.class).findByName("CUSTOMER").orElseThrow();
+        Customer customer = context.getBean(CustomerRepository.class).save(Customer.builder()
+                .username("bench-auth")
+                .password("not-used")
+                .fullName("Benchmark User")
+                .roles(new HashSet<>(Set.of(role)))
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        filter = context.getBean(JwtAuthenticationFilter.class);
+        token = context.getBean(JwtUtil.class).generateToken(
+                new User(customer.getUsername(), customer.getPassword(), List.of(new SimpleGrantedAuthority("CUSTOMER"))),
+                customer.getId());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Authentication authenticate() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/accounts/balance/ACC");
+        request.addHeader("Authorization", "Bearer " + token);
+
+        SecurityContextHolder.clearContext();
+        filter.doFilter(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            throw new IllegalStateException("Token was not accepted");
+        }
+        return authentication;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.banking.benchmark;
+
+import com.example.banking.BankingApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Starts the application against the in-memory test database for benchmarks
+ * that need the full Spring context.
+ */
+final class BenchmarkContext {
+
+    private static final String[] QUIET_LOGGING = {
+            "logging.level.root=WARN",
+            "logging.level.com.example.banking=WARN"
+    };
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * Starts the application with logging turned down and the given extra
+     * properties, e.g. {@code "app.jwt.auth-mode=CLAIMS"}.
+     *
+     * @param properties additional {@code key=value} properties
+     * @return the running application context; close it in {@code @TearDown}
+     */
+    static ConfigurableApplicationContext start(String... properties) {
+        return startWith(new Class<?>[0], properties);
+    }
+
+    /**
+     * Starts the application like {@link #start(String...)} with additional
+     * bean sources, e.g. a benchmark-only servlet. The sources must not carry
+     * a stereotype annotation, otherwise component scanning would also pick
+     * them up in the regular tests.
+     *
+     * @param sources    extra classes whose {@code @Bean} methods are registered
+     * @param properties additional {@code key=value} properties
+     * @return the running application context; close it in {@code @TearDown}
+     */
+    static ConfigurableApplicationContext startWith(Class<?>[] sources, String... properties) {
+        return run(sources, Stream.concat(Stream.of(QUIET_LOGGING), Stream.of(properties)));
+    }
+
+    /**
+     * Starts the application like {@link #start(String...)}, but leaves the
+     * logging configuration to the given properties, for benchmarks that
+     * measure logging itself.
+     *
+     * @param properties additional {@code key=value} properties
+     * @return the running application context; close it in {@code @TearDown}
+     */
+    static ConfigurableApplicationContext startWithLogging(String... properties) {
+        return run(new Class<?>[0], Stream.of(properties));
+    }
+
+    private static ConfigurableApplicationContext run(Class<?>[] sources, Stream<String> properties) {
+        // Passed as command-line arguments so that they take precedence over application.properties
+        return new SpringApplicationBuilder(BankingApplication.class)
+                .sources(sources)
+                .run(Stream.concat(Stream.of("server.port=0"), properties)
+                        .map(property -> "--" + property)
+                        .toArray(String[]::new));
+    }
+
+    /**
+     * Authenticates all benchmark threads as an administrator so that
+     * {@code @PreAuthorize}-protected beans can be called directly. The
+     * context is global because JMH may run setup and measurement on
+     * different threads.
+     */
+    static void runAsAdmin() {
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "benchmark-admin", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.banking.benchmark;
+
+import com.example.banking.dto.AccountDTO;
+import com.example.banking.dto.AccountResponse;
+import com.example.banking.dto.ApiResponse;
+import com.example.banking.dto.MonthlyTransactionReportDTO;
+import com.example.banking.dto.TransactionDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures JSON serialization of typical {@link ApiResponse} payloads with an
+ * {@link ObjectMapper} configured the way Spring Boot configures it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private ApiResponse<BigDecimal> balance;
+
+    private ApiResponse<List<AccountResponse>> accounts;
+
+    private ApiResponse<List<MonthlyTransactionReportDTO>> report;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        LocalDateTime now = LocalDateTime.of(2024, 2, 1, 9, 30);
+
+        balance = ApiResponse.<BigDecimal>builder()
+                .status(200)
+                .message("Balance fetched successfully")
+                .data(new BigDecimal("12345.67"))
+                .build();
+
+        List<AccountResponse> accountList = new ArrayList<>();
+        for (long i = 0; i < 100; i++) {
+            accountList.add(AccountResponse.builder()
+                    .id(i)
+                    .accountNumber("ACC-" + i)
+                    .accountType("SAVINGS")
+                    .balance(new BigDecimal("1000.00"))
+                    .customerId(i)
+                    .customerName("Customer " + i)
+                    .build());
+        }
+        accounts = ApiResponse.<List<AccountResponse>>builder()
+                .status(200)
+                .message("Accounts fetched successfully")
+                .data(accountList)
+                .build();
+
+        List<MonthlyTransactionReportDTO> rows = new ArrayList<>();
+        for (long c = 0; c < 20; c++) {
+            List<TransactionDTO> transactions = new ArrayList<>();
+            for (long t = 0; t < 10; t++) {
+                transactions.add(TransactionDTO.builder()
+                        .id(c * 10 + t)
+                        .accountNumber("ACC-" + c)
+                        .amount(new BigDecimal("10.00"))
+                        .description("benchmark")
+                        .transactionTime(now.plusHours(t))
+                        .type(t % 2 == 0 ? "DEPOSIT" : "WITHDRAWAL")
+                        .build());
+            }
+            rows.add(MonthlyTransactionReportDTO.builder()
+                    .customerId(c)
+                    .customerName("customer" + c)
+                    .email("customer" + c + "@example.com")
+                    .addresses(List.of())
+                    .accounts(List.of(AccountDTO.builder()
+                            .id(c)
+                            .accountNumber("ACC-" + c)
+                            .accountType("SAVINGS")
+                            .balance(new BigDecimal("1000.00"))
+                            .createdAt(now)
+                            .build()))
+                    .transactions(transactions)
+                    .totalDeposit(new BigDecimal("50.00"))
+                    .totalWithdrawal(new BigDecimal("50.00"))
+                    .build());
+        }
+        report = ApiResponse.<List<MonthlyTransactionReportDTO>>builder()
+                .status(200)
+                .message("Monthly report generated successfully")
+                .data(rows)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] balance() throws Exception {
+        return objectMapper.writeValueAsBytes(balance);
+    }
+
+    @Benchmark
+    public byte[] accounts() throws Exception {
+        return objectMapper.writeValueAsBytes(accounts);
+    }
+
+    @Benchmark
+    public byte[] monthlyReport() throws Exception {
+        return objectMapper.writeValueAsBytes(report);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.banking.benchmark;
+
+import com.example.banking.config.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures token generation and verification in {@link JwtUtil}, without a
+ * Spring context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+
+    private User user;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", "MySuperSecretKeyForJWTAuthentication123456789!");
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", 86400000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+
+        user = new User("bench-user", "not-used",
+                List.of(new SimpleGrantedAuthority("CUSTOMER"), new SimpleGrantedAuthority("ADMIN")));
+        token = jwtUtil.generateToken(user, 42L);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(user, 42L);
+    }
+
+    @Benchmark
+    public Claims parseClaims() {
+        return jwtUtil.parseClaims(token);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.banking.benchmark;
+
+import com.example.banking.dto.TransactionRequest;
+import com.example.banking.dto.TransactionResponse;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.Customer;
+import com.example.banking.repository.AccountRepository;
+import com.example.banking.repository.CustomerRepository;
+import com.example.banking.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures deposit throughput under each logging configuration:
+ *
+ * <ul>
+ *   <li>{@code SYNC}: the previous setup, a synchronous console appender,
+ *       DEBUG for the application and {@code spring.jpa.show-sql}.</li>
+ *   <li>{@code ASYNC}: the same output through the async appender, with SQL
+ *       logged by {@code org.hibernate.SQL} instead of {@code show-sql}.</li>
+ *   <li>{@code PROD}: the {@code prod} profile, INFO with sampling and no SQL.</li>
+ * </ul>
+ *
+ * <p>Standard output is redirected to a temporary file for the run, so the
+ * console costs a real write without flooding the JMH output.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+
+    @Param({"SYNC", "ASYNC", "PROD"})
+    private String logging;
+
+    private PrintStream stdout;
+
+    private Path logFile;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionService transactionService;
+
+    private TransactionRequest deposit;
+
+    @Setup
+    public void setUp() throws IOException {
+        stdout = System.out;
+        logFile = Files.createTempFile("logging-benchmark", ".log");
+        System.setOut(new PrintStream(new FileOutputStream(logFile.toFile()), true));
+
+        context = switch (logging) {
+            case "SYNC" -> BenchmarkContext.startWithLogging(
+                    "logging.config=classpath:logback-sync.xml",
+                    "logging.level.com.example.banking=DEBUG",
+                    "spring.jpa.show-sql=true");
+            case "ASYNC" -> BenchmarkContext.startWithLogging(
+                    "logging.level.com.example.banking=DEBUG",
+                    "logging.level.org.hibernate.SQL=DEBUG");
+            default -> BenchmarkContext.startWithLogging("spring.profiles.active=prod");
+        };
+        transactionService = context.getBean(TransactionService.class);
+
+        Customer customer = context.getBean(CustomerRepository.class).save(Customer.builder()
+                .username("bench-logging")
+                .password("not-used")
+                .fullName("Benchmark User")
+                .createdAt(LocalDateTime.now())
+                .build());
+        Account account = context.getBean(AccountRepository.class).save(Account.builder()
+                .customer(customer)
+                .accountNumber("BENCH-LOG")
+                .accountType("CURRENT")
+                .balance(BigDecimal.ZERO)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        deposit = new TransactionRequest();
+        deposit.setAccountNumber(account.getAccountNumber());
+        deposit.setAmount(new BigDecimal("10.00"));
+        deposit.setDescription("benchmark deposit");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        System.out.close();
+        System.setOut(stdout);
+        System.out.println("Log output (" + logging + "): " + Files.size(logFile) + " bytes");
+        Files.delete(logFile);
+    }
+
+    @Benchmark
+    public TransactionResponse deposit() {
+        return transactionService.deposit(deposit);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.banking.benchmark;
+
+import com.example.banking.dto.AuthResponse;
+import com.example.banking.dto.LoginRequest;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.Customer;
+import com.example.banking.entity.Role;
+import com.example.banking.exception.AuthenticationFailedException;
+import com.example.banking.repository.AccountRepository;
+import com.example.banking.repository.CustomerRepository;
+import com.example.banking.repository.RoleRepository;
+import com.example.banking.service.AccountService;
+import com.example.banking.service.AuthService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures logins per second and their latency distribution (p99 in the
+ * {@code SampleTime} results) while other threads keep reading balances,
+ * so that the cost of BCrypt on the rest of the application shows up next
+ * to the login numbers.
+ *
+ * <p>One in ten logins uses a wrong password and one in ten an unknown
+ * username; both are verified at full cost. The hashing pool is sized to
+ * the machine and its queue holds every login thread, so none is rejected.</p>
+ */
+@State(Scope.Group)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginBenchmark {
+
+    private static final String PASSWORD = "bench-password";
+
+    @Param({"10", "12"})
+    private String bcryptStrength;
+
+    private ConfigurableApplicationContext context;
+
+    private AuthService authService;
+
+    private AccountService accountService;
+
+    private String accountNumber;
+
+    private final AtomicLong logins = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("app.auth.bcrypt.strength=" + bcryptStrength);
+        authService = context.getBean(AuthService.class);
+        accountService = context.getBean(AccountService.class);
+
+        Role role = context.getBean(RoleRepository.class).findByName("CUSTOMER").orElseThrow();
+        Customer customer = context.getBean(CustomerRepository.class).save(Customer.builder()
+                .username("bench-login")
+                .password(context.getBean(PasswordEncoder.class).encode(PASSWORD))
+                .fullName("Benchmark User")
+                .roles(new HashSet<>(Set.of(role)))
+                .createdAt(LocalDateTime.now())
+                .build());
+        Account account = context.getBean(AccountRepository.class).save(Account.builder()
+                .customer(customer)
+                .accountNumber("BENCH-LOGIN")
+                .accountType("SAVINGS")
+                .balance(new BigDecimal("100.00"))
+                .createdAt(LocalDateTime.now())
+                .build());
+        accountNumber = account.getAccountNumber();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public AuthResponse login() {
+        long n = logins.incrementAndGet() % 10;
+        LoginRequest request = new LoginRequest();
+        request.setUsername(n == 0 ? "bench-unknown" : "bench-login");
+        request.setPassword(n == 1 ? "wrong-password" : PASSWORD);
+        try {
+            return authService.login(request);
+        } catch (AuthenticationFailedException ex) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public BigDecimal balance() {
+        return accountService.getBalance(accountNumber);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.banking.benchmark;
+
+import com.example.banking.controller.AccountController;
+import com.example.banking.dto.MonthlyTransactionReportDTO;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.Customer;
+import com.example.banking.entity.Transaction;
+import com.example.banking.repository.AccountRepository;
+import com.example.banking.repository.CustomerRepository;
+import com.example.banking.repository.TransactionRepository;
+import com.example.banking.service.ReportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building and serializing the response DTOs of
+ * {@link AccountController#getAllAccounts()} and
+ * {@link ReportService#getMonthlyReport(int, int)} on a fixed data set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    private static final int CUSTOMERS = 200;
+    private static final int ACCOUNTS_PER_CUSTOMER = 2;
+    private static final int TRANSACTIONS_PER_ACCOUNT = 5;
+
+    private ConfigurableApplicationContext context;
+
+    private AccountController accountController;
+
+    private ReportService reportService;
+
+    private LocalDateTime now;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        accountController = context.getBean(AccountController.class);
+        reportService = context.getBean(ReportService.class);
+        now = LocalDateTime.now();
+
+        List<Customer> customers = new ArrayList<>();
+        for (int c = 0; c < CUSTOMERS; c++) {
+            customers.add(Customer.builder()
+                    .username("bench-map-" + c)
+                    .password("not-used")
+                    .fullName("Benchmark Customer " + c)
+                    .email("bench-map-" + c + "@example.com")
+                    .createdAt(now)
+                    .build());
+        }
+        customers = context.getBean(CustomerRepository.class).saveAll(customers);
+
+        List<Account> accounts = new ArrayList<>();
+        for (Customer customer : customers) {
+            for (int a = 0; a < ACCOUNTS_PER_CUSTOMER; a++) {
+                accounts.add(Account.builder()
+                        .customer(customer)
+                        .accountNumber("BM-" + customer.getId() + "-" + a)
+                        .accountType(a == 0 ? "SAVINGS" : "CURRENT")
+                        .balance(new BigDecimal("1000.00"))
+                        .createdAt(now)
+                        .build());
+            }
+        }
+        accounts = context.getBean(AccountRepository.class).saveAll(accounts);
+
+        List<Transaction> transactions = new ArrayList<>();
+        for (Account account : accounts) {
+            for (int t = 0; t < TRANSACTIONS_PER_ACCOUNT; t++) {
+                transactions.add(Transaction.builder()
+                        .account(account)
+                        .type(t % 2 == 0 ? "DEPOSIT" : "WITHDRAWAL")
+                        .amount(new BigDecimal("10.00"))
+                        .description("benchmark")
+                        .transactionTime(now.withDayOfMonth(1).plusHours(t))
+                        .build());
+            }
+        }
+        context.getBean(TransactionRepository.class).saveAll(transactions);
+
+        BenchmarkContext.runAsAdmin();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void getAllAccounts() throws IOException {
+        accountController.getAllAccounts().getBody().writeTo(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public List<MonthlyTransactionReportDTO> monthlyReport() {
+        return reportService.getMonthlyReport(now.getMonthValue(), now.getYear());
+    }
+}
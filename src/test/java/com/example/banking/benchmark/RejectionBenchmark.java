@@ -0,0 +1,62 @@
+package com.example.banking.benchmark;
+
+import com.example.banking.exception.BusinessRuleException;
+import com.example.banking.exception.ErrorCode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures throwing and catching a rejection {@code depth} frames below the
+ * catch site, as a plain {@link RuntimeException} and as a stackless
+ * {@link BusinessRuleException}. A rejected request crosses the filter chain,
+ * Spring MVC and the service proxies, so {@code depth = 150} is close to a
+ * real request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RejectionBenchmark {
+
+    @Param({"10", "150"})
+    private int depth;
+
+    @Benchmark
+    public Object runtimeException() {
+        try {
+            return reject(depth, false);
+        } catch (RuntimeException ex) {
+            return ex;
+        }
+    }
+
+    @Benchmark
+    public Object stacklessException() {
+        try {
+            return reject(depth, true);
+        } catch (RuntimeException ex) {
+            return ex;
+        }
+    }
+
+    private static Object reject(int depth, boolean stackless) {
+        if (depth > 0) {
+            return reject(depth - 1, stackless);
+        }
+        throw stackless
+                ? new BusinessRuleException(ErrorCode.INSUFFICIENT_BALANCE)
+                : new RuntimeException("Insufficient balance");
+    }
+}
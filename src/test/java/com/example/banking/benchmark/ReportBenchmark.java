@@ -0,0 +1,117 @@
+package com.example.banking.benchmark;
+
+import com.example.banking.dto.MonthlyTransactionReportDTO;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.Customer;
+import com.example.banking.entity.Transaction;
+import com.example.banking.repository.AccountRepository;
+import com.example.banking.repository.CustomerRepository;
+import com.example.banking.repository.TransactionRepository;
+import com.example.banking.service.BalanceEngine;
+import com.example.banking.service.MonthlyAggregateService;
+import com.example.banking.service.ReportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ReportService#getMonthlyReport} over 20,000 customers with
+ * 10 transactions each, generated with 1 to 8 partition workers, to show how
+ * the partitioned report scales with cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ReportBenchmark {
+
+    private static final int CUSTOMERS = 20_000;
+    private static final int TRANSACTIONS_PER_CUSTOMER = 10;
+    private static final int MONTH = 3;
+    private static final int YEAR = 2024;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private ConfigurableApplicationContext context;
+
+    private ReportService reportService;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "app.reports.parallelism=" + parallelism,
+                "app.reports.partition-size=500",
+                "spring.datasource.hikari.maximum-pool-size=" + (parallelism + 2));
+        reportService = context.getBean(ReportService.class);
+
+        CustomerRepository customers = context.getBean(CustomerRepository.class);
+        AccountRepository accounts = context.getBean(AccountRepository.class);
+        TransactionRepository transactions = context.getBean(TransactionRepository.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        LocalDateTime inMonth = LocalDateTime.of(YEAR, MONTH, 1, 8, 0);
+        for (int from = 0; from < CUSTOMERS; from += 500) {
+            int first = from;
+            tx.executeWithoutResult(status -> {
+                List<Transaction> ledger = new ArrayList<>();
+                for (int i = first; i < first + 500; i++) {
+                    Customer customer = customers.save(Customer.builder()
+                            .username("bench-report-" + i)
+                            .password("not-used")
+                            .email("bench-report-" + i + "@example.com")
+                            .createdAt(LocalDateTime.now())
+                            .build());
+                    Account account = accounts.save(Account.builder()
+                            .customer(customer)
+                            .accountNumber("BENCH-RPT-" + i)
+                            .accountType("SAVINGS")
+                            .balance(BigDecimal.ZERO)
+                            .createdAt(LocalDateTime.now())
+                            .build());
+                    for (int t = 0; t < TRANSACTIONS_PER_CUSTOMER; t++) {
+                        ledger.add(Transaction.builder()
+                                .account(account)
+                                .type(t % 3 == 2 ? BalanceEngine.WITHDRAWAL : BalanceEngine.DEPOSIT)
+                                .amount(new BigDecimal(t + 1 + ".00"))
+                                .description("benchmark row " + t)
+                                .transactionTime(inMonth.plusHours(t))
+                                .build());
+                    }
+                }
+                transactions.saveAll(ledger);
+            });
+        }
+        context.getBean(MonthlyAggregateService.class).rebuild(YearMonth.of(YEAR, MONTH));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MonthlyTransactionReportDTO> monthlyReport() {
+        return reportService.getMonthlyReport(MONTH, YEAR);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.banking.benchmark;
+
+import com.example.banking.dto.TransactionRequest;
+import com.example.banking.dto.TransactionResponse;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.Customer;
+import com.example.banking.repository.AccountRepository;
+import com.example.banking.repository.CustomerRepository;
+import com.example.banking.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TransactionService#deposit} and
+ * {@link TransactionService#withdraw} end to end against the in-memory test
+ * database, for each balance update strategy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionBenchmark {
+
+    @Param({"ATOMIC", "OPTIMISTIC"})
+    private String strategy;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionService transactionService;
+
+    private TransactionRequest deposit;
+
+    private TransactionRequest withdrawal;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("app.balance.strategy=" + strategy);
+        transactionService = context.getBean(TransactionService.class);
+
+        Customer customer = context.getBean(CustomerRepository.class).save(Customer.builder()
+                .username("bench-tx")
+                .password("not-used")
+                .fullName("Benchmark User")
+                .createdAt(LocalDateTime.now())
+                .build());
+        // Large enough that withdrawals never run out during a run
+        Account account = context.getBean(AccountRepository.class).save(Account.builder()
+                .customer(customer)
+                .accountNumber("BENCH-TX")
+                .accountType("CURRENT")
+                .balance(new BigDecimal("1000000000.00"))
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        deposit = new TransactionRequest();
+        deposit.setAccountNumber(account.getAccountNumber());
+        deposit.setAmount(new BigDecimal("10.00"));
+        deposit.setDescription("benchmark deposit");
+
+        withdrawal = new TransactionRequest();
+        withdrawal.setAccountNumber(account.getAccountNumber());
+        withdrawal.setAmount(new BigDecimal("5.00"));
+        withdrawal.setDescription("benchmark withdrawal");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionResponse deposit() {
+        return transactionService.deposit(deposit);
+    }
+
+    @Benchmark
+    public TransactionResponse withdraw() {
+        return transactionService.withdraw(withdrawal);
+    }
+}
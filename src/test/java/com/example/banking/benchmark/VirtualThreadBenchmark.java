@@ -0,0 +1,154 @@
+package com.example.banking.benchmark;
+
+import com.example.banking.config.JwtUtil;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test comparing request handling on the Tomcat platform-thread pool
+ * with {@code spring.threads.virtual.enabled=true}, both forked with the same
+ * heap.
+ *
+ * <p>Each operation fires {@value #CONCURRENT_REQUESTS} concurrent requests
+ * at a servlet that waits {@value #LATENCY_MS} ms, standing in for a slow
+ * downstream call, and then runs a short query through the connection pool
+ * and the database bulkhead. With platform threads at most
+ * {@code server.tomcat.threads.max} requests are in flight and the rest queue
+ * in the acceptor; with virtual threads all of them are. The peak number of
+ * requests in flight is printed at the end of each trial.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+public class VirtualThreadBenchmark {
+
+    private static final int CONCURRENT_REQUESTS = 1000;
+
+    private static final long LATENCY_MS = 50;
+
+    private static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+
+    private static final AtomicInteger PEAK_IN_FLIGHT = new AtomicInteger();
+
+    @Param({"false", "true"})
+    private String virtualThreads;
+
+    private ConfigurableApplicationContext context;
+
+    private ExecutorService clientExecutor;
+
+    private HttpClient client;
+
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.startWith(new Class<?>[]{SlowEndpoint.class},
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "server.tomcat.threads.max=200",
+                "app.datasource.bulkhead.max-waiting=" + CONCURRENT_REQUESTS,
+                "app.jwt.auth-mode=CLAIMS");
+
+        String token = context.getBean(JwtUtil.class).generateToken(
+                new User("bench-load", "not-used", List.of(new SimpleGrantedAuthority("CUSTOMER"))), 1L);
+        int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/bench/slow"))
+                .header("Authorization", "Bearer " + token)
+                .build();
+        PEAK_IN_FLIGHT.set(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println("virtualThreads=" + virtualThreads + ", peak in-flight requests=" + PEAK_IN_FLIGHT.get());
+        client.close();
+        clientExecutor.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public int burst() {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(CONCURRENT_REQUESTS);
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        int ok = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            int status = response.join().statusCode();
+            if (status != 200) {
+                throw new IllegalStateException("Unexpected status " + status);
+            }
+            ok++;
+        }
+        return ok;
+    }
+
+    /**
+     * Registers the benchmark servlet. Deliberately not a {@code @Configuration}
+     * so that component scanning does not add it to the regular tests.
+     */
+    public static class SlowEndpoint {
+
+        @Bean
+        public ServletRegistrationBean<HttpServlet> slowServlet(JdbcTemplate jdbcTemplate) {
+            HttpServlet servlet = new HttpServlet() {
+                @Override
+                protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                    PEAK_IN_FLIGHT.accumulateAndGet(IN_FLIGHT.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(LATENCY_MS);
+                        jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+                        resp.getWriter().write("ok");
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    } finally {
+                        IN_FLIGHT.decrementAndGet();
+                    }
+                }
+            };
+            return new ServletRegistrationBean<>(servlet, "/bench/slow");
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.banking.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LocalBalanceCacheTest {
+
+    private final LocalBalanceCache cache = new LocalBalanceCache(100, 60);
+
+    @Test
+    void olderVersionNeverReplacesNewerBalance() {
+        cache.put("ACC-1", new BigDecimal("20.00"), 2);
+        cache.put("ACC-1", new BigDecimal("10.00"), 1);
+
+        assertEquals(Optional.of(new BigDecimal("20.00")), cache.get("ACC-1"));
+
+        cache.put("ACC-1", new BigDecimal("30.00"), 3);
+        assertEquals(Optional.of(new BigDecimal("30.00")), cache.get("ACC-1"));
+    }
+
+    @Test
+    void evictedAccountIsAMiss() {
+        cache.put("ACC-2", BigDecimal.TEN, 1);
+        cache.evict("ACC-2");
+
+        assertEquals(Optional.empty(), cache.get("ACC-2"));
+        assertEquals(1, cache.stats().getMissCount());
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.banking.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BulkheadDataSourceTest {
+
+    @Test
+    void rejectsCallersBeyondThePermitsUntilAConnectionIsClosed() throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:bulkhead;DB_CLOSE_DELAY=-1");
+        BulkheadDataSource dataSource = new BulkheadDataSource(h2, 2);
+
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        SQLTransientConnectionException ex = assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(BulkheadDataSource.BUSY_MESSAGE, ex.getMessage());
+
+        // Closing twice must only return one permit
+        first.close();
+        first.close();
+        assertEquals(1, dataSource.availablePermits());
+
+        try (Connection third = dataSource.getConnection()) {
+            assertInstanceOf(ConnectionProxy.class, third);
+            assertEquals(1, third.createStatement().executeQuery("SELECT 1").next() ? 1 : 0);
+        }
+        second.close();
+        assertEquals(2, dataSource.availablePermits());
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.banking.config;
+
+import com.example.banking.TestAccounts;
+import com.example.banking.util.AccountNumbers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class JwtAuthenticationFilterTest {
+
+    private static final String ADMIN_ENDPOINT = "/accounts/balance-cache/stats";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoSpyBean
+    private JwtUtil jwtUtil;
+
+    @MockitoSpyBean
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Autowired
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Test
+    void tokenIsParsedOnceAndCacheHitsSkipTheUserLookup() throws Exception {
+        String username = register("ADMIN");
+        String token = login(username);
+        clearInvocations(jwtUtil, customUserDetailsService);
+
+        for (int i = 0; i < 3; i++) {
+            call(token, status().isOk());
+        }
+
+        verify(jwtUtil, times(1)).parseClaims(anyString());
+        verify(customUserDetailsService, times(1)).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void revocationAppliesToTokensAlreadyCached() throws Exception {
+        String admin = login(register("ADMIN"));
+        String username = register("ADMIN");
+        String token = login(username);
+        call(token, status().isOk());
+
+        // A revocation that lands between a verification and its cache put leaves the entry in place
+        tokenRevocationList.revoke(username);
+        call(token, status().isForbidden());
+
+        String other = register("ADMIN");
+        String otherToken = login(other);
+        call(otherToken, status().isOk());
+        mockMvc.perform(post("/auth/revoke/{username}", other).header("Authorization", "Bearer " + admin))
+                .andExpect(status().isOk());
+        call(otherToken, status().isForbidden());
+        call(admin, status().isOk());
+    }
+
+    @Test
+    void claimsModeAuthorizesFromTheTokenAlone() throws Exception {
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "authMode", JwtAuthenticationFilter.AuthMode.CLAIMS);
+        try {
+            String adminName = register("ADMIN");
+            String admin = login(adminName);
+            String customer = login(register("CUSTOMER"));
+            clearInvocations(customUserDetailsService);
+
+            call(admin, status().isOk());
+            call(customer, status().is4xxClientError());
+            // Authenticated as a customer: the lookup runs and finds nothing
+            mockMvc.perform(get("/accounts/balance/{accountNumber}", AccountNumbers.format(AccountNumbers.MAX_VALUE))
+                            .header("Authorization", "Bearer " + customer))
+                    .andExpect(status().isNotFound());
+            verify(customUserDetailsService, never()).loadUserByUsername(anyString());
+
+            tokenRevocationList.revoke(adminName);
+            call(admin, status().isForbidden());
+        } finally {
+            ReflectionTestUtils.setField(jwtAuthenticationFilter, "authMode", JwtAuthenticationFilter.AuthMode.DATABASE);
+        }
+    }
+
+    private void call(String token, ResultMatcher expected) throws Exception {
+        mockMvc.perform(get(ADMIN_ENDPOINT).header("Authorization", "Bearer " + token))
+                .andExpect(expected);
+    }
+
+    private String register(String role) throws Exception {
+        String username = "jwt-" + TestAccounts.suffix();
+        mockMvc.perform(json(post("/auth/register"), Map.of(
+                        "username", username, "password", "secret", "email", username + "@example.com", "role", role)))
+                .andExpect(status().isCreated());
+        return username;
+    }
+
+    private String login(String username) throws Exception {
+        String body = mockMvc.perform(json(post("/auth/login"), Map.of("username", username, "password", "secret")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).path("data").path("token").asText();
+    }
+
+    private MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        return request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+    }
+}
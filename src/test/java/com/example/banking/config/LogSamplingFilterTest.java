@@ -0,0 +1,50 @@
+package com.example.banking.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogSamplingFilterTest {
+
+    private static final int EVENTS = 10_000;
+
+    @Test
+    void keepsOneInNFineEventsOfTheConfiguredLoggerOnly() {
+        LoggerContext context = new LoggerContext();
+        LogSamplingFilter filter = new LogSamplingFilter();
+        filter.setContext(context);
+        filter.setLoggerName("com.example.sampled");
+        filter.setLevel("INFO");
+        filter.setOneIn(10);
+        filter.start();
+        context.addTurboFilter(filter);
+
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.setContext(context);
+        appender.start();
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(appender);
+
+        Logger sampled = context.getLogger("com.example.sampled.Child");
+        for (int i = 0; i < EVENTS; i++) {
+            sampled.atInfo().setMessage("event").addKeyValue("i", i).log();
+        }
+        int kept = appender.list.size();
+        assertTrue(kept > EVENTS / 20 && kept < EVENTS / 5, "kept " + kept + " of " + EVENTS);
+        assertEquals("i", appender.list.get(0).getKeyValuePairs().get(0).key);
+
+        appender.list.clear();
+        for (int i = 0; i < 100; i++) {
+            sampled.warn("warning {}", i);
+            context.getLogger("com.example.sampledOther").info("other {}", i);
+        }
+        assertEquals(200, appender.list.size());
+    }
+}
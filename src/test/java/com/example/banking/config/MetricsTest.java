@@ -0,0 +1,131 @@
+package com.example.banking.config;
+
+import com.example.banking.TestAccounts;
+import com.example.banking.entity.Account;
+import com.example.banking.repository.CustomerRepository;
+import com.example.banking.service.ReportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsTest {
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void requestsAreTimedCountedAndScrapable() throws Exception {
+        mockMvc.perform(json(post("/auth/register"), Map.of(
+                        "username", "metrics", "password", "secret", "email", "metrics@example.com", "role", "ADMIN")))
+                .andExpect(status().isCreated());
+        mockMvc.perform(json(post("/auth/login"), Map.of("username", "metrics", "password", "wrong")))
+                .andExpect(status().isUnauthorized());
+        String token = login();
+        Account account = testAccounts.createAccount(customerRepository.findByUsername("metrics").orElseThrow(),
+                "met", "SAVINGS", BigDecimal.ZERO);
+
+        mockMvc.perform(json(post("/transactions/deposit"), Map.of("accountNumber", account.getAccountNumber(), "amount", 100))
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(json(post("/transactions/withdraw"), Map.of("accountNumber", account.getAccountNumber(), "amount", 500))
+                .header("Authorization", "Bearer " + token));
+        mockMvc.perform(json(post("/transactions/deposit"), Map.of("accountNumber", "MISSING", "amount", 1))
+                .header("Authorization", "Bearer " + token));
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/accounts/balance/" + account.getAccountNumber())
+                            .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk());
+        }
+        reportService.getMonthlyReport(1, 2020);
+
+        assertEquals(2, serviceTimerCount("deposit"));
+        assertEquals(1, serviceTimerCount("withdraw"));
+        assertEquals(2, serviceTimerCount("getBalance"));
+        assertEquals(2, serviceTimerCount("login"));
+        assertEquals(1, serviceTimerCount("getMonthlyReport"));
+
+        assertEquals(1, rejections(BankingMetrics.INSUFFICIENT_BALANCE));
+        assertEquals(1, rejections(BankingMetrics.ACCOUNT_NOT_FOUND));
+        assertEquals(1, rejections(BankingMetrics.INVALID_CREDENTIALS));
+
+        DistributionSummary deposits = registry.get(StatementCountFilter.STATEMENTS)
+                .tags("method", "POST", "uri", "/transactions/deposit")
+                .summary();
+        assertEquals(2, deposits.count());
+        assertTrue(deposits.max() >= 2, "a deposit reads and updates the account");
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        for (String meter : new String[]{
+                "http_server_requests_seconds_bucket",
+                "banking_service_seconds_bucket",
+                "banking_rejections_total",
+                "banking_http_db_statements_count",
+                "hikaricp_connections_active",
+                "cache_gets_total{cache=\"balance\""}) {
+            assertTrue(scrape.contains(meter), "scrape is missing " + meter);
+        }
+        assertTrue(registry.get("cache.gets").tags("cache", "balance", "result", "hit").functionCounter().count() >= 1);
+    }
+
+    private String login() throws Exception {
+        String body = mockMvc.perform(json(post("/auth/login"), Map.of("username", "metrics", "password", "secret")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode response = objectMapper.readTree(body);
+        return response.path("data").path("token").asText();
+    }
+
+    private MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        return request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+    }
+
+    private long serviceTimerCount(String method) {
+        // One timer per outcome, since failures are tagged with their exception
+        return registry.get(BankingMetrics.SERVICE_TIMER).tag("method", method).timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+
+    private double rejections(String reason) {
+        return registry.get(BankingMetrics.REJECTIONS).tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.banking.controller;
+
+import com.example.banking.TestAccounts;
+import com.example.banking.repository.CustomerRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AccountControllerTest {
+
+    private static final BigDecimal TOTAL = new BigDecimal("85.00");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String token;
+
+    private long customerId;
+
+    private String accountNumber;
+
+    @BeforeEach
+    void createStripedAccount() throws Exception {
+        String username = "stripes-" + TestAccounts.suffix();
+        mockMvc.perform(json(post("/auth/register"), Map.of(
+                        "username", username, "password", "secret", "email", username + "@example.com", "role", "ADMIN")))
+                .andExpect(status().isCreated());
+        JsonNode login = read(mockMvc.perform(json(post("/auth/login"), Map.of("username", username, "password", "secret")))
+                .andExpect(status().isOk())
+                .andReturn());
+        token = login.path("data").path("token").asText();
+        customerId = customerRepository.findByUsername(username).orElseThrow().getId();
+
+        JsonNode account = read(mockMvc.perform(authorized(post("/accounts/create/{customerId}", customerId))
+                        .param("accountType", "SAVINGS"))
+                .andExpect(status().isCreated())
+                .andReturn());
+        accountNumber = account.path("data").path("accountNumber").asText();
+        mockMvc.perform(authorized(post("/accounts/{accountNumber}/stripes", accountNumber)).param("count", "4"))
+                .andExpect(status().isOk());
+
+        // 10.00 on the account row and 25.00 on each of the three stripe rows
+        long accountId = account.path("data").path("id").asLong();
+        jdbcTemplate.update("UPDATE accounts SET balance = 10.00 WHERE id = ?", accountId);
+        assertEquals(3, jdbcTemplate.update("UPDATE account_stripes SET balance = 25.00 WHERE account_id = ?", accountId));
+    }
+
+    @Test
+    void listingsIncludeTheStripesOfStripedAccounts() throws Exception {
+        assertBalance(read(mockMvc.perform(authorized(get("/accounts/balance/{accountNumber}", accountNumber)))
+                .andExpect(status().isOk())
+                .andReturn()).path("data"));
+
+        MvcResult started = mockMvc.perform(authorized(get("/accounts/all")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertBalance(find(read(mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn()).path("data")).path("balance"));
+
+        assertBalance(find(read(mockMvc.perform(authorized(get("/accounts/findAccountNumbersByCustId/{customerId}", customerId)))
+                .andExpect(status().isOk())
+                .andReturn()).path("data")).path("balance"));
+    }
+
+    private JsonNode find(JsonNode accounts) {
+        for (JsonNode account : accounts) {
+            if (accountNumber.equals(account.path("accountNumber").asText())) {
+                return account;
+            }
+        }
+        return fail("account " + accountNumber + " not listed");
+    }
+
+    private static void assertBalance(JsonNode balance) {
+        assertEquals(0, TOTAL.compareTo(balance.decimalValue()), "balance was " + balance);
+    }
+
+    private JsonNode read(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request) {
+        return request.header("Authorization", "Bearer " + token);
+    }
+
+    private MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        return request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.banking.controller;
+
+import com.example.banking.TestAccounts;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.Customer;
+import com.example.banking.entity.Transaction;
+import com.example.banking.repository.CustomerRepository;
+import com.example.banking.repository.TransactionRepository;
+import com.example.banking.service.BalanceEngine;
+import com.example.banking.service.MonthlyAggregateService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReportControllerTest {
+
+    private static final int MONTH = 5;
+    private static final int YEAR = 2021;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MonthlyAggregateService monthlyAggregateService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String token;
+
+    private Customer customer;
+
+    @BeforeEach
+    void createCustomerWithFormulas() throws Exception {
+        String username = "report-" + TestAccounts.suffix();
+        mockMvc.perform(json(post("/auth/register"), Map.of(
+                        "username", username, "password", "secret", "email", username + "@example.com", "role", "ADMIN")))
+                .andExpect(status().isCreated());
+        String body = mockMvc.perform(json(post("/auth/login"), Map.of("username", username, "password", "secret")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        token = objectMapper.readTree(body).path("data").path("token").asText();
+
+        customer = customerRepository.findByUsername(username).orElseThrow();
+        customer.setEmail("=HYPERLINK(\"http://example.com\")");
+        customer = customerRepository.save(customer);
+        Account account = testAccounts.createAccount(customer, "rpt", "SAVINGS", BigDecimal.ZERO);
+        transactionRepository.save(Transaction.builder()
+                .account(account)
+                .type(BalanceEngine.DEPOSIT)
+                .amount(new BigDecimal("5.00"))
+                .description("@SUM(A1:A9)")
+                .transactionTime(LocalDateTime.of(YEAR, MONTH, 10, 12, 0))
+                .build());
+        monthlyAggregateService.rebuild(YearMonth.of(YEAR, MONTH));
+    }
+
+    @Test
+    void csvExportNeutralizesFormulasButKeepsNumbers() throws Exception {
+        String csv = export("csv", MediaType.valueOf("text/csv"));
+        String[] lines = csv.split("\r\n");
+        assertEquals("customerId,customerName,email,totalDeposit,totalWithdrawal,"
+                + "transactionId,accountNumber,transactionTime,type,amount,description", lines[0]);
+
+        List<String> mine = Arrays.stream(lines).filter(line -> line.startsWith(customer.getId() + ",")).toList();
+        assertEquals(1, mine.size(), csv);
+        assertEquals(List.of(String.valueOf(customer.getId()), customer.getUsername(),
+                        "\"'=HYPERLINK(\"\"http://example.com\"\")\"", "5.00", "0.00"),
+                Arrays.asList(mine.get(0).split(",", 6)).subList(0, 5));
+        assertTrue(mine.get(0).endsWith(",DEPOSIT,5.00,'@SUM(A1:A9)"), mine.get(0));
+    }
+
+    @Test
+    void ndjsonExportKeepsTheRawValues() throws Exception {
+        String ndjson = export("ndjson", MediaType.APPLICATION_NDJSON);
+
+        JsonNode mine = null;
+        for (String line : ndjson.split("\n")) {
+            JsonNode row = objectMapper.readTree(line);
+            if (row.path("customerId").asLong() == customer.getId()) {
+                mine = row;
+            }
+        }
+        assertEquals(customer.getEmail(), mine.path("email").asText());
+        assertEquals("@SUM(A1:A9)", mine.path("transactions").get(0).path("description").asText());
+    }
+
+    private String export(String format, MediaType contentType) throws Exception {
+        MvcResult started = mockMvc.perform(authorized(get("/reports/export")
+                        .param("month", String.valueOf(MONTH))
+                        .param("year", String.valueOf(YEAR))
+                        .param("format", format)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertTrue(contentType.isCompatibleWith(MediaType.valueOf(result.getResponse().getContentType())));
+        return result.getResponse().getContentAsString();
+    }
+
+    private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request) {
+        return request.header("Authorization", "Bearer " + token);
+    }
+
+    private MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        return request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.banking.controller;
+
+import com.example.banking.TestAccounts;
+import com.example.banking.dto.TransactionDTO;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.Transaction;
+import com.example.banking.repository.CustomerRepository;
+import com.example.banking.repository.TransactionRepository;
+import com.example.banking.service.BalanceEngine;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TransactionControllerTest {
+
+    private static final LocalDateTime JANUARY = LocalDateTime.of(2024, 1, 15, 9, 0);
+    private static final LocalDateTime FEBRUARY = LocalDateTime.of(2024, 2, 1, 0, 0);
+    private static final LocalDateTime MARCH = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String token;
+
+    private Account account;
+
+    /**
+     * The history of the account, oldest first, as the endpoints must return it.
+     */
+    private List<Transaction> history;
+
+    @BeforeEach
+    void createHistory() throws Exception {
+        String username = "history-" + TestAccounts.suffix();
+        mockMvc.perform(json(post("/auth/register"), Map.of(
+                        "username", username, "password", "secret", "email", username + "@example.com", "role", "ADMIN")))
+                .andExpect(status().isCreated());
+        String body = mockMvc.perform(json(post("/auth/login"), Map.of("username", username, "password", "secret")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        token = objectMapper.readTree(body).path("data").path("token").asText();
+
+        account = testAccounts.createAccount(customerRepository.findByUsername(username).orElseThrow(),
+                "hist", "SAVINGS", BigDecimal.ZERO);
+
+        // Several rows share a timestamp, so pages must break ties on the id
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            LocalDateTime time = (i < 4 ? JANUARY : i < 9 ? FEBRUARY.plusDays(i % 2) : MARCH).plusSeconds(i / 3);
+            rows.add(Transaction.builder()
+                    .account(account)
+                    .type(i % 3 == 0 ? BalanceEngine.WITHDRAWAL : BalanceEngine.DEPOSIT)
+                    .amount(BigDecimal.valueOf(i + 1))
+                    .description("history " + i)
+                    .transactionTime(time)
+                    .build());
+        }
+        history = transactionRepository.saveAll(rows).stream()
+                .sorted(Comparator.comparing(Transaction::getTransactionTime).thenComparing(Transaction::getId))
+                .toList();
+    }
+
+    @Test
+    void pagesFollowEachOtherWithoutGapsOrRepeats() throws Exception {
+        assertEquals(ids(history), pageThrough(3, Map.of()));
+        assertEquals(ids(history), pageThrough(1, Map.of()));
+        assertEquals(ids(history), pageThrough(history.size(), Map.of()));
+    }
+
+    @Test
+    void pagesKeepTheirFiltersAcrossCursors() throws Exception {
+        List<Long> deposits = ids(history.stream().filter(tx -> BalanceEngine.DEPOSIT.equals(tx.getType())).toList());
+        List<Long> february = ids(history.stream()
+                .filter(tx -> !tx.getTransactionTime().isBefore(FEBRUARY) && tx.getTransactionTime().isBefore(MARCH))
+                .toList());
+        List<Long> februaryWithdrawals = ids(history.stream()
+                .filter(tx -> february.contains(tx.getId()) && BalanceEngine.WITHDRAWAL.equals(tx.getType()))
+                .toList());
+
+        assertEquals(deposits, pageThrough(2, Map.of("type", "deposit")));
+        assertEquals(february, pageThrough(2, Map.of("from", FEBRUARY.toString(), "to", MARCH.toString())));
+        assertEquals(februaryWithdrawals, pageThrough(1, Map.of(
+                "from", FEBRUARY.toString(), "to", MARCH.toString(), "type", BalanceEngine.WITHDRAWAL)));
+    }
+
+    @Test
+    void streamWritesTheFilteredHistoryAsNdjson() throws Exception {
+        List<TransactionDTO> all = stream(Map.of());
+        assertEquals(ids(history), all.stream().map(TransactionDTO::getId).toList());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals(account.getAccountNumber(), all.get(i).getAccountNumber());
+            assertEquals(history.get(i).getTransactionTime(), all.get(i).getTransactionTime());
+            assertEquals(0, history.get(i).getAmount().compareTo(all.get(i).getAmount()));
+        }
+
+        List<TransactionDTO> januaryDeposits = stream(Map.of("to", FEBRUARY.toString(), "type", "DEPOSIT"));
+        assertEquals(ids(history.stream()
+                        .filter(tx -> tx.getTransactionTime().isBefore(FEBRUARY) && BalanceEngine.DEPOSIT.equals(tx.getType()))
+                        .toList()),
+                januaryDeposits.stream().map(TransactionDTO::getId).toList());
+
+        assertTrue(stream(Map.of("from", MARCH.plusYears(1).toString())).isEmpty());
+    }
+
+    /**
+     * Requests pages of the given size until no cursor is returned.
+     *
+     * @return the ids of all transactions returned, in order
+     */
+    private List<Long> pageThrough(int limit, Map<String, String> filters) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        Set<String> cursors = new HashSet<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = authorized(get("/transactions/history/{accountNumber}/page",
+                    account.getAccountNumber()).param("limit", String.valueOf(limit)));
+            filters.forEach(request::param);
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            JsonNode page = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString()).path("data");
+
+            JsonNode items = page.path("items");
+            assertTrue(items.size() <= limit);
+            items.forEach(item -> ids.add(item.path("id").asLong()));
+            cursor = page.path("nextCursor").isNull() ? null : page.path("nextCursor").asText();
+            if (cursor != null) {
+                assertFalse(items.isEmpty());
+                assertTrue(cursors.add(cursor), "cursor repeated: " + cursor);
+            }
+        } while (cursor != null);
+        assertNull(cursor);
+        return ids;
+    }
+
+    private List<TransactionDTO> stream(Map<String, String> filters) throws Exception {
+        MockHttpServletRequestBuilder request = authorized(get("/transactions/history/{accountNumber}/stream",
+                account.getAccountNumber()));
+        filters.forEach(request::param);
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        List<TransactionDTO> rows = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isBlank()) {
+                rows.add(objectMapper.readValue(line, TransactionDTO.class));
+            }
+        }
+        return rows;
+    }
+
+    private static List<Long> ids(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getId).toList();
+    }
+
+    private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request) {
+        return request.header("Authorization", "Bearer " + token);
+    }
+
+    private MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        return request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.banking.exception;
+
+import com.example.banking.TestAccounts;
+import com.example.banking.dto.TransactionRequest;
+import com.example.banking.entity.Account;
+import com.example.banking.repository.CustomerRepository;
+import com.example.banking.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class GlobalExceptionHandlerTest {
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void rejectionsAreMappedToTheStatusOfTheirCode() throws Exception {
+        Map<String, String> register = Map.of(
+                "username", "errors", "password", "secret", "email", "errors@example.com", "role", "ADMIN");
+        mockMvc.perform(json(post("/auth/register"), register))
+                .andExpect(status().isCreated());
+        String token = login();
+        Account account = testAccounts.createAccount(customerRepository.findByUsername("errors").orElseThrow(),
+                "err", "SAVINGS", BigDecimal.ZERO);
+
+        rejected(json(post("/auth/register"), register), null,
+                409, ErrorCode.USERNAME_TAKEN);
+        rejected(json(post("/auth/login"), Map.of("username", "errors", "password", "wrong")), null,
+                401, ErrorCode.INVALID_CREDENTIALS);
+        rejected(json(post("/transactions/deposit"), Map.of("accountNumber", "MISSING", "amount", 1)), token,
+                404, ErrorCode.ACCOUNT_NOT_FOUND);
+        rejected(json(post("/transactions/deposit"), Map.of("accountNumber", account.getAccountNumber(), "amount", -1)), token,
+                400, ErrorCode.INVALID_AMOUNT);
+        rejected(json(post("/transactions/withdraw"), Map.of("accountNumber", account.getAccountNumber(), "amount", 5)), token,
+                422, ErrorCode.INSUFFICIENT_BALANCE);
+        rejected(get("/transactions/history/" + account.getAccountNumber() + "/page").param("cursor", "bogus"), token,
+                400, ErrorCode.INVALID_CURSOR);
+        rejected(get("/transactions/history/MISSING/stream"), token,
+                404, ErrorCode.ACCOUNT_NOT_FOUND);
+        rejected(get("/reports/jobs/missing"), token,
+                404, ErrorCode.REPORT_JOB_NOT_FOUND);
+        rejected(get("/reports/export").param("month", "13").param("year", "2024"), token,
+                400, ErrorCode.INVALID_REQUEST);
+    }
+
+    @Test
+    void rejectionsCarryNoStackTrace() {
+        TransactionRequest request = new TransactionRequest();
+        request.setAccountNumber("MISSING");
+        request.setAmount(BigDecimal.ONE);
+
+        BankingException ex = assertThrows(ResourceNotFoundException.class, () -> transactionService.deposit(request));
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, ex.getCode());
+        assertEquals("Account not found", ex.getMessage());
+        assertEquals(0, ex.getStackTrace().length);
+    }
+
+    private void rejected(MockHttpServletRequestBuilder request, String token, int status, ErrorCode code) throws Exception {
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        mockMvc.perform(request)
+                .andExpect(status().is(status))
+                .andExpect(jsonPath("$.status").value(status))
+                .andExpect(jsonPath("$.data").value(code.name()));
+    }
+
+    private String login() throws Exception {
+        String body = mockMvc.perform(json(post("/auth/login"), Map.of("username", "errors", "password", "secret")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).path("data").path("token").asText();
+    }
+
+    private MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        return request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+    }
+}
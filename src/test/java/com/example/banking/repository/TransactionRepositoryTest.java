@@ -0,0 +1,118 @@
+package com.example.banking.repository;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the query plans of the SQL that Hibernate generates for the
+ * time-range queries, with the generated parameters bound to literals.
+ */
+@SpringBootTest
+class TransactionRepositoryTest {
+
+    private static final String START = "TIMESTAMP '2024-02-01 00:00:00'";
+    private static final String END = "TIMESTAMP '2024-03-01 00:00:00'";
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 2, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void accountTimeRangeQueryUsesCompositeIndex() {
+        String sql = capture(() -> transactionRepository.findByAccountIdAndTimeRange(1L, FROM, TO));
+
+        assertSeeksAccountTimeIndex(explain(sql, "1", START, END));
+    }
+
+    @Test
+    void historyPageUsesCompositeIndex() {
+        String sql = capture(() -> transactionRepository.findHistoryPage(1L, FROM, 42L, TO, "DEPOSIT", Limit.of(51)));
+
+        assertSeeksAccountTimeIndex(explain(sql, "1", START, END, START, "42", "'DEPOSIT'", "'DEPOSIT'", "51"));
+    }
+
+    @Test
+    @Transactional(readOnly = true)
+    void historyStreamUsesCompositeIndex() {
+        String sql = capture(() -> {
+            try (Stream<?> rows = transactionRepository.streamHistory(1L, FROM, TO, null)) {
+                rows.forEach(row -> { });
+            }
+        });
+
+        assertSeeksAccountTimeIndex(explain(sql, "1", START, END, "NULL", "NULL"));
+    }
+
+    @Test
+    void customerRangeReportJoinUsesCompositeIndex() {
+        String sql = capture(() -> transactionRepository.findRowsByCustomerIdRangeAndTimeRange(0L, 500L, FROM, TO));
+
+        String plan = explain(sql, "0", "500", START, END);
+        assertSeeksAccountTimeIndex(plan);
+        // Accounts are reached through a seek on the customer range, not a scan
+        assertTrue(plan.matches("(?s).*_index_\\w*: user_id >.*"), plan);
+    }
+
+    private static void assertSeeksAccountTimeIndex(String plan) {
+        assertTrue(plan.contains("idx_transactions_account_time"), plan);
+        assertTrue(plan.contains("transaction_time >="), plan);
+    }
+
+    /**
+     * Runs a repository call and returns the single statement Hibernate executed for it.
+     */
+    private static String capture(Runnable query) {
+        Logger sqlLogger = (Logger) LoggerFactory.getLogger("org.hibernate.SQL");
+        Level previousLevel = sqlLogger.getLevel();
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        sqlLogger.addAppender(appender);
+        sqlLogger.setLevel(Level.DEBUG);
+        try {
+            query.run();
+        } finally {
+            sqlLogger.setLevel(previousLevel);
+            sqlLogger.detachAppender(appender);
+        }
+        List<String> statements = appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+        assertEquals(1, statements.size(), statements.toString());
+        return statements.get(0);
+    }
+
+    /**
+     * Explains the statement with its {@code ?} parameters replaced, in order, by the given literals.
+     */
+    private String explain(String sql, String... literals) {
+        StringBuilder bound = new StringBuilder();
+        int next = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                bound.append(literals[next++]);
+            } else {
+                bound.append(c);
+            }
+        }
+        assertEquals(literals.length, next, sql);
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + bound, String.class)).toLowerCase();
+    }
+}
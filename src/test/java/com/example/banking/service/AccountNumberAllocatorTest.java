@@ -0,0 +1,161 @@
+package com.example.banking.service;
+
+import com.example.banking.repository.NumberSequenceRepository;
+import com.example.banking.util.AccountNumbers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Own properties, so the shared-sequence test gets a database without the sequence row
+@SpringBootTest(properties = "app.accounts.number.block-size=10")
+class AccountNumberAllocatorTest {
+
+    private static final int THREADS = 8;
+    private static final int NUMBERS_PER_THREAD = 250_000;
+    private static final int BULK_SIZE = 50;
+
+    @Autowired
+    private NumberSequenceRepository sequenceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentAllocationNeverRepeatsANumber() throws Exception {
+        // Stands in for the number_sequences row
+        AtomicLong sequence = new AtomicLong(AccountNumbers.FIRST_VALUE);
+        AtomicInteger reservations = new AtomicInteger();
+        AccountNumberAllocator allocator = new AccountNumberAllocator(size -> {
+            reservations.incrementAndGet();
+            return sequence.getAndAdd(size);
+        }, 1000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            boolean bulk = t % 2 == 1;
+            results.add(executor.submit(() -> {
+                long[] values = new long[NUMBERS_PER_THREAD];
+                start.await();
+                for (int i = 0; i < NUMBERS_PER_THREAD; ) {
+                    List<String> numbers = bulk ? allocator.next(BULK_SIZE) : List.of(allocator.next());
+                    for (String number : numbers) {
+                        if (!AccountNumbers.hasValidCheckDigit(number)) {
+                            throw new AssertionError("Invalid check digit: " + number);
+                        }
+                        values[i++] = Long.parseLong(number, 0, AccountNumbers.LENGTH - 1, 10);
+                    }
+                }
+                return values;
+            }));
+        }
+        start.countDown();
+
+        long[] all = new long[THREADS * NUMBERS_PER_THREAD];
+        for (int t = 0; t < THREADS; t++) {
+            System.arraycopy(results.get(t).get(), 0, all, t * NUMBERS_PER_THREAD, NUMBERS_PER_THREAD);
+        }
+        executor.shutdown();
+
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            if (all[i] == all[i - 1]) {
+                throw new AssertionError("Duplicate account number value " + all[i]);
+            }
+        }
+        assertTrue(all[0] >= AccountNumbers.FIRST_VALUE);
+        // Only partial blocks skipped by bulk requests are wasted
+        assertTrue(reservations.get() <= all.length / 1000 * 2, "reservations: " + reservations.get());
+    }
+
+    @Test
+    void nodesSharingTheSequenceRowNeverRepeatANumber() throws Exception {
+        assertFalse(sequenceRepository.existsById(AccountNumberAllocator.SEQUENCE));
+        // Two nodes, both starting without the sequence row
+        List<AccountNumberAllocator> nodes = List.of(
+                new AccountNumberAllocator(sequenceRepository, transactionManager, 10),
+                new AccountNumberAllocator(sequenceRepository, transactionManager, 10));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            AccountNumberAllocator node = nodes.get(t % nodes.size());
+            results.add(executor.submit(() -> {
+                List<String> numbers = new ArrayList<>();
+                start.await();
+                for (int i = 0; i < 100; i++) {
+                    numbers.add(node.next());
+                }
+                return numbers;
+            }));
+        }
+        start.countDown();
+
+        Set<String> all = new HashSet<>();
+        for (Future<List<String>> result : results) {
+            for (String number : result.get()) {
+                assertTrue(all.add(number), "Duplicate account number " + number);
+            }
+        }
+        executor.shutdown();
+        assertEquals(THREADS * 100, all.size());
+        assertTrue(all.contains(AccountNumbers.format(AccountNumbers.FIRST_VALUE)));
+    }
+
+    @Test
+    void largeBulkRequestsReserveARangeOfTheirOwn() {
+        AtomicLong sequence = new AtomicLong(AccountNumbers.FIRST_VALUE);
+        AccountNumberAllocator allocator = new AccountNumberAllocator(size -> sequence.getAndAdd(size), 10);
+
+        String single = allocator.next();
+        List<String> bulk = allocator.next(25);
+
+        assertEquals(25, bulk.size());
+        assertEquals(AccountNumbers.format(AccountNumbers.FIRST_VALUE), single);
+        assertEquals(AccountNumbers.format(AccountNumbers.FIRST_VALUE + 10), bulk.get(0));
+        assertEquals(AccountNumbers.format(AccountNumbers.FIRST_VALUE + 34), bulk.get(24));
+        assertEquals(AccountNumbers.format(AccountNumbers.FIRST_VALUE + 1), allocator.next());
+    }
+
+    @Test
+    void checkDigitCatchesEverySingleDigitError() {
+        for (long value = AccountNumbers.FIRST_VALUE; value < AccountNumbers.FIRST_VALUE + 1000; value += 7) {
+            String number = AccountNumbers.format(value);
+            assertTrue(AccountNumbers.isWellFormed(number));
+            char[] digits = number.toCharArray();
+            for (int i = 0; i < digits.length; i++) {
+                char original = digits[i];
+                for (char c = '0'; c <= '9'; c++) {
+                    if (c != original) {
+                        digits[i] = c;
+                        assertFalse(AccountNumbers.isWellFormed(new String(digits)), new String(digits));
+                    }
+                }
+                digits[i] = original;
+            }
+        }
+        assertTrue(AccountNumbers.isWellFormed("1a2b3c4d-5e6"), "legacy UUID fragment");
+        assertFalse(AccountNumbers.isWellFormed("123"));
+        assertFalse(AccountNumbers.isWellFormed(" "));
+        assertFalse(AccountNumbers.isWellFormed(null));
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.banking.service;
+
+import com.example.banking.TestAccounts;
+import com.example.banking.dto.AccountResponse;
+import com.example.banking.dto.ApiResponse;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.Customer;
+import com.example.banking.exception.ErrorCode;
+import com.example.banking.exception.InvalidRequestException;
+import com.example.banking.exception.ResourceNotFoundException;
+import com.example.banking.util.AccountNumbers;
+import com.example.banking.util.ApiResponseStreamWriter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class AccountServiceTest {
+
+    private static final BigDecimal BALANCE = new BigDecimal("25.00");
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void accountListsAreSingleNarrowQueriesWithoutEntities() {
+        Customer customer = testAccounts.createCustomer("list");
+        Account savings = testAccounts.createAccount(customer, "lst", "SAVINGS", BALANCE);
+        Account current = testAccounts.createAccount(customer, "lst", "CURRENT", BALANCE);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        List<AccountResponse> mine = accountService.getAccountsByCustomerId(customer.getId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(List.of(response(savings, customer), response(current, customer)), mine);
+
+        statistics.clear();
+        List<AccountResponse> all = new ArrayList<>();
+        accountService.streamAllAccounts(all::add);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertTrue(all.containsAll(mine));
+
+        statistics.clear();
+        Page<AccountResponse> page = accountService.getAccounts(0, 1);
+        // The page and its total count
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, page.getContent().size());
+        assertEquals(all.size(), page.getTotalElements());
+    }
+
+    @Test
+    void streamedAccountListKeepsTheApiResponseEnvelope() throws Exception {
+        Customer customer = testAccounts.createCustomer("list");
+        testAccounts.createAccount(customer, "lst", "SAVINGS", BALANCE);
+        List<AccountResponse> expected = new ArrayList<>();
+        accountService.streamAllAccounts(expected::add);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ApiResponseStreamWriter writer = new ApiResponseStreamWriter(objectMapper, out, 200, "Accounts fetched successfully")) {
+            accountService.streamAllAccounts(writer::write);
+            writer.finish();
+        }
+
+        ApiResponse<List<AccountResponse>> response = objectMapper.readValue(out.toByteArray(),
+                new TypeReference<ApiResponse<List<AccountResponse>>>() {
+                });
+        assertEquals(200, response.getStatus());
+        assertEquals("Accounts fetched successfully", response.getMessage());
+        assertEquals(expected, response.getData());
+
+        // A failure halfway must not look like a complete, shorter list
+        ByteArrayOutputStream broken = new ByteArrayOutputStream();
+        try (ApiResponseStreamWriter writer = new ApiResponseStreamWriter(objectMapper, broken, 200, "Accounts fetched successfully")) {
+            assertThrows(IllegalStateException.class, () -> accountService.streamAllAccounts(account -> {
+                writer.write(account);
+                throw new IllegalStateException("connection lost");
+            }));
+        }
+        assertThrows(JsonProcessingException.class, () -> objectMapper.readTree(broken.toByteArray()));
+    }
+
+    @Test
+    void accountsAreOpenedWithAllocatedNumbersAndMalformedNumbersAreRefusedWithoutAQuery() {
+        Customer first = testAccounts.createCustomer("list");
+        Customer second = testAccounts.createCustomer("list");
+
+        Account single = accountService.createAccount(first.getId(), "SAVINGS");
+        List<Account> bulk = accountService.createAccounts(List.of(first.getId(), second.getId(), first.getId()), "CURRENT");
+
+        assertTrue(AccountNumbers.hasValidCheckDigit(single.getAccountNumber()), single.getAccountNumber());
+        assertEquals(3, bulk.size());
+        assertEquals(second.getId(), bulk.get(1).getCustomer().getId());
+        Set<String> numbers = new HashSet<>();
+        numbers.add(single.getAccountNumber());
+        for (Account account : bulk) {
+            assertTrue(AccountNumbers.hasValidCheckDigit(account.getAccountNumber()), account.getAccountNumber());
+            numbers.add(account.getAccountNumber());
+        }
+        assertEquals(4, numbers.size());
+        assertEquals(BigDecimal.ZERO, accountService.getBalance(bulk.get(2).getAccountNumber()).stripTrailingZeros());
+        assertThrows(ResourceNotFoundException.class,
+                () -> accountService.createAccounts(List.of(first.getId(), -1L), "CURRENT"));
+
+        // One mistyped digit
+        String number = single.getAccountNumber();
+        String mistyped = number.substring(0, 5) + (char) ('0' + (number.charAt(5) - '0' + 1) % 10) + number.substring(6);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        InvalidRequestException ex = assertThrows(InvalidRequestException.class, () -> accountService.getBalance(mistyped));
+        assertEquals(ErrorCode.INVALID_ACCOUNT_NUMBER, ex.getCode());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    private static AccountResponse response(Account account, Customer customer) {
+        return new AccountResponse(account.getId(), account.getAccountNumber(), account.getAccountType(),
+                BALANCE, customer.getId(), customer.getFullName());
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.banking.service;
+
+import com.example.banking.TestAccounts;
+import com.example.banking.config.BankingMetrics;
+import com.example.banking.dto.AuthResponse;
+import com.example.banking.dto.LoginRequest;
+import com.example.banking.entity.Customer;
+import com.example.banking.entity.Role;
+import com.example.banking.exception.AuthenticationFailedException;
+import com.example.banking.exception.ErrorCode;
+import com.example.banking.exception.ServiceBusyException;
+import com.example.banking.repository.CustomerRepository;
+import com.example.banking.repository.RoleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class AuthServiceTest {
+
+    private static final BCryptPasswordEncoder BCRYPT = new BCryptPasswordEncoder(4);
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void loginLoadsTheCustomerOnceAndUpgradesWeakerHashes() {
+        // Stored at a lower cost than the configured one, as after raising app.auth.bcrypt.strength
+        String weakHash = new BCryptPasswordEncoder(4).encode("secret");
+        Customer customer = createCustomer(weakHash);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        AuthResponse first = authService.login(login(customer.getUsername(), "secret"));
+        // The customer with its roles, then the hash upgrade
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(customer.getId(), first.getId());
+        assertEquals(List.of("CUSTOMER"), first.getRoles());
+
+        String upgraded = customerRepository.findById(customer.getId()).orElseThrow().getPassword();
+        assertTrue(passwordEncoder.matches("secret", upgraded));
+        assertFalse(passwordEncoder.upgradeEncoding(upgraded), upgraded);
+
+        statistics.clear();
+        authService.login(login(customer.getUsername(), "secret"));
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        AuthenticationFailedException ex = assertThrows(AuthenticationFailedException.class,
+                () -> authService.login(login(customer.getUsername(), "wrong")));
+        assertEquals(ErrorCode.INVALID_CREDENTIALS, ex.getCode());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertThrows(AuthenticationFailedException.class, () -> authService.login(login("nobody", "secret")));
+        assertThrows(AuthenticationFailedException.class, () -> authService.login(login(customer.getUsername(), null)));
+    }
+
+    @Test
+    void saturatedHashingPoolRejectsImmediately() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHasher hasher = new PasswordHasher(blocking(started, release, new CountDownLatch(1)),
+                new BankingMetrics(registry), 1, 1, 5000);
+        String hash = BCRYPT.encode("secret");
+
+        try {
+            // One running, one queued
+            CompletableFuture<PasswordHasher.Verification> running = CompletableFuture.supplyAsync(() -> hasher.verify("secret", hash));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<PasswordHasher.Verification> queued = CompletableFuture.supplyAsync(() -> hasher.verify("wrong", hash));
+            while (hasher.queuedTasks() == 0) {
+                Thread.sleep(1);
+            }
+
+            long before = System.nanoTime();
+            ServiceBusyException ex = assertThrows(ServiceBusyException.class, () -> hasher.verify("secret", hash));
+            assertTrue(System.nanoTime() - before < TimeUnit.SECONDS.toNanos(1));
+            assertEquals(ErrorCode.LOGIN_BUSY, ex.getCode());
+            assertEquals(1.0, registry.counter(BankingMetrics.REJECTIONS, "reason", BankingMetrics.LOGIN_BUSY).count());
+
+            release.countDown();
+            assertTrue(running.get(5, TimeUnit.SECONDS).matches());
+            assertFalse(queued.get(5, TimeUnit.SECONDS).matches());
+            assertTrue(hasher.verify("secret", hash).matches());
+        } finally {
+            release.countDown();
+            hasher.stop();
+        }
+    }
+
+    @Test
+    void hashThatOutlastsTheWaitTimeoutIsRejectedAndCancelled() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHasher hasher = new PasswordHasher(blocking(started, release, interrupted),
+                new BankingMetrics(registry), 1, 1, 200);
+        String hash = BCRYPT.encode("secret");
+
+        try {
+            long before = System.nanoTime();
+            ServiceBusyException ex = assertThrows(ServiceBusyException.class, () -> hasher.verify("secret", hash));
+            long waited = System.nanoTime() - before;
+            assertTrue(waited >= TimeUnit.MILLISECONDS.toNanos(200) && waited < TimeUnit.SECONDS.toNanos(2),
+                    "waited " + TimeUnit.NANOSECONDS.toMillis(waited) + " ms");
+            assertEquals(ErrorCode.LOGIN_BUSY, ex.getCode());
+            assertEquals(1.0, registry.counter(BankingMetrics.REJECTIONS, "reason", BankingMetrics.LOGIN_BUSY).count());
+            // The abandoned hash is cancelled, which frees the worker for the next login
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            hasher.stop();
+        }
+    }
+
+    /**
+     * An encoder whose {@code matches} blocks until released, or interrupted.
+     */
+    private static PasswordEncoder blocking(CountDownLatch started, CountDownLatch release, CountDownLatch interrupted) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return BCRYPT.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    interrupted.countDown();
+                    Thread.currentThread().interrupt();
+                }
+                return BCRYPT.matches(rawPassword, encodedPassword);
+            }
+        };
+    }
+
+    private Customer createCustomer(String passwordHash) {
+        Role role = roleRepository.findByName("CUSTOMER")
+                .orElseGet(() -> roleRepository.save(Role.builder().name("CUSTOMER").build()));
+        return customerRepository.save(TestAccounts.customerBuilder("login")
+                .password(passwordHash)
+                .roles(new HashSet<>(Set.of(role)))
+                .build());
+    }
+
+    private static LoginRequest login(String username, String password) {
+        LoginRequest request = new LoginRequest();
+        request.setUsername(username);
+        request.setPassword(password);
+        return request;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.banking.service;
+
+import com.example.banking.TestAccounts;
+import com.example.banking.exception.BusinessRuleException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the write path publishes balances to the cache only once
+ * their transaction has committed.
+ */
+@SpringBootTest
+class BalanceEngineTest {
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private BalanceEngine balanceEngine;
+
+    private String accountNumber;
+
+    @BeforeEach
+    void createCachedAccount() {
+        accountNumber = testAccounts.createAccount("cache", "SAVINGS").getAccountNumber();
+
+        balanceEngine.loadBalance(accountNumber);
+        assertCached("100.00");
+    }
+
+    @Test
+    void committedPostingIsPublishedAfterCommit() {
+        balanceEngine.inTransaction(() -> {
+            balanceEngine.credit(accountNumber, new BigDecimal("25.00"), "cache test");
+            // Still the committed balance while the posting is in flight
+            assertCached("100.00");
+            return null;
+        });
+        assertCached("125.00");
+
+        balanceEngine.inTransaction(() -> balanceEngine.debit(accountNumber, new BigDecimal("5.00"), "cache test"));
+        assertCached("120.00");
+    }
+
+    @Test
+    void rolledBackPostingLeavesTheCacheUntouched() {
+        assertThrows(IllegalStateException.class, () -> balanceEngine.inTransaction(() -> {
+            balanceEngine.credit(accountNumber, new BigDecimal("25.00"), "cache test");
+            throw new IllegalStateException("roll back");
+        }));
+        assertCached("100.00");
+
+        assertThrows(BusinessRuleException.class, () -> balanceEngine.inTransaction(() ->
+                balanceEngine.debit(accountNumber, new BigDecimal("500.00"), "cache test")));
+        assertCached("100.00");
+
+        assertBalance("100.00", balanceEngine.loadBalance(accountNumber));
+    }
+
+    private void assertCached(String expected) {
+        Optional<BigDecimal> cached = balanceEngine.cachedBalance(accountNumber);
+        assertTrue(cached.isPresent(), "balance not cached");
+        assertBalance(expected, cached.get());
+    }
+
+    private static void assertBalance(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), "expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.banking.service;
+
+import com.example.banking.TestAccounts;
+import com.example.banking.config.BankingMetrics;
+import com.example.banking.dto.BatchTransactionResult;
+import com.example.banking.dto.TransactionRequest;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.Transaction;
+import com.example.banking.exception.ErrorCode;
+import com.example.banking.exception.ServiceBusyException;
+import com.example.banking.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "app.ledger.group-commit.enabled=true")
+class GroupCommitLedgerTest {
+
+    private static final int THREADS = 100;
+    private static final int OPERATIONS_PER_THREAD = 10;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000.00");
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void concurrentPostingsAreGroupedIntoFewerCommits() throws Exception {
+        List<Account> accounts = List.of(testAccounts.createAccount("group", OPENING_BALANCE), testAccounts.createAccount("group", OPENING_BALANCE));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    TransactionRequest request = new TransactionRequest();
+                    request.setAccountNumber(accounts.get((thread + i) % accounts.size()).getAccountNumber());
+                    try {
+                        if ((thread + i) % 3 == 0) {
+                            request.setAmount(new BigDecimal("7.00"));
+                            transactionService.withdraw(request);
+                        } else {
+                            request.setAmount(new BigDecimal("5.00"));
+                            transactionService.deposit(request);
+                        }
+                        succeeded.incrementAndGet();
+                    } catch (RuntimeException ex) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        int operations = THREADS * OPERATIONS_PER_THREAD;
+        assertEquals(0, rejected.get());
+        assertEquals(operations, succeeded.get());
+        long commits = statistics.getSuccessfulTransactionCount();
+        assertTrue(commits < operations / 2, "expected grouped commits, got " + commits + " for " + operations + " postings");
+
+        int ledgerRows = 0;
+        for (Account account : accounts) {
+            ledgerRows += assertLedgerMatchesBalance(account);
+        }
+        assertEquals(operations, ledgerRows);
+    }
+
+    @Test
+    void rejectedPostingFailsOnlyItsCaller() {
+        Account account = testAccounts.createAccount("group", OPENING_BALANCE);
+
+        TransactionRequest overdraft = new TransactionRequest();
+        overdraft.setAccountNumber(account.getAccountNumber());
+        overdraft.setAmount(OPENING_BALANCE.add(BigDecimal.ONE));
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> transactionService.withdraw(overdraft));
+        assertEquals("Insufficient balance", ex.getMessage());
+
+        TransactionRequest missing = new TransactionRequest();
+        missing.setAccountNumber("MISSING-" + TestAccounts.suffix());
+        missing.setAmount(BigDecimal.TEN);
+        ex = assertThrows(RuntimeException.class, () -> transactionService.deposit(missing));
+        assertEquals("Account not found", ex.getMessage());
+
+        TransactionRequest deposit = new TransactionRequest();
+        deposit.setAccountNumber(account.getAccountNumber());
+        deposit.setAmount(BigDecimal.TEN);
+        assertEquals(0, OPENING_BALANCE.add(BigDecimal.TEN)
+                .compareTo(transactionService.deposit(deposit).getBalanceAfter()));
+        assertEquals(1, assertLedgerMatchesBalance(account));
+    }
+
+    @Test
+    void postingsThatWaitTooLongAreAnsweredWithLedgerBusy() {
+        CountDownLatch release = new CountDownLatch(1);
+        BalanceEngine stalled = mock(BalanceEngine.class);
+        when(stalled.inTransaction(any())).thenAnswer(invocation -> {
+            release.await();
+            return List.of(BatchTransactionResult.builder().index(0).success(true).build());
+        });
+        GroupCommitLedger ledger = new GroupCommitLedger();
+        ReflectionTestUtils.setField(ledger, "balanceEngine", stalled);
+        ReflectionTestUtils.setField(ledger, "metrics", new BankingMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(ledger, "enabled", true);
+        ReflectionTestUtils.setField(ledger, "shards", 1);
+        ReflectionTestUtils.setField(ledger, "queueCapacity", 10);
+        ReflectionTestUtils.setField(ledger, "maxBatch", 1);
+        ReflectionTestUtils.setField(ledger, "enqueueTimeoutMs", 100L);
+        ReflectionTestUtils.setField(ledger, "commitTimeoutMs", 200L);
+        ledger.start();
+        try {
+            // The first posting stalls the writer in its commit, the second is still queued when it times out
+            for (int i = 0; i < 2; i++) {
+                ServiceBusyException ex = assertThrows(ServiceBusyException.class,
+                        () -> ledger.post(BalanceEngine.DEPOSIT, "STALLED-1", BigDecimal.TEN, null));
+                assertEquals(ErrorCode.LEDGER_BUSY, ex.getCode());
+            }
+            List<?> queues = (List<?>) ReflectionTestUtils.getField(ledger, "queues");
+            assertEquals(0, ((Collection<?>) queues.get(0)).size(), "timed-out posting left in the queue");
+        } finally {
+            release.countDown();
+            ledger.stop();
+        }
+
+        ServiceBusyException ex = assertThrows(ServiceBusyException.class,
+                () -> ledger.post(BalanceEngine.DEPOSIT, "STALLED-1", BigDecimal.TEN, null));
+        assertEquals(ErrorCode.LEDGER_BUSY, ex.getCode());
+    }
+
+    /**
+     * @return the number of ledger rows of the account
+     */
+    private int assertLedgerMatchesBalance(Account account) {
+        BigDecimal ledgerNet = BigDecimal.ZERO;
+        List<Transaction> ledger = transactionRepository.findByAccountId(account.getId());
+        for (Transaction tx : ledger) {
+            ledgerNet = BalanceEngine.WITHDRAWAL.equals(tx.getType())
+                    ? ledgerNet.subtract(tx.getAmount())
+                    : ledgerNet.add(tx.getAmount());
+        }
+
+        BigDecimal finalBalance = accountService.getBalance(account.getAccountNumber());
+        assertEquals(0, OPENING_BALANCE.add(ledgerNet).compareTo(finalBalance),
+                "balance " + finalBalance + " does not match ledger net " + ledgerNet);
+        return ledger.size();
+    }
+}
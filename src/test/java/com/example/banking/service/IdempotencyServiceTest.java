@@ -0,0 +1,228 @@
+package com.example.banking.service;
+
+import com.example.banking.TestAccounts;
+import com.example.banking.dto.TransactionRequest;
+import com.example.banking.dto.TransactionResponse;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.IdempotencyRecord;
+import com.example.banking.exception.ErrorCode;
+import com.example.banking.exception.ServiceBusyException;
+import com.example.banking.repository.IdempotencyRecordRepository;
+import com.example.banking.repository.TransactionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class IdempotencyServiceTest {
+
+    private static final int THREADS = 20;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("100.00");
+    private static final String USER = "idem-user";
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void concurrentDuplicatesPostOnceAndShareTheResult() throws Exception {
+        Account account = testAccounts.createAccount("idem", OPENING_BALANCE);
+        String key = UUID.randomUUID().toString();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<TransactionResponse>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return transactionService.deposit(request(account, "25.00"), USER, key);
+            }));
+        }
+        start.countDown();
+        List<TransactionResponse> responses = new ArrayList<>();
+        for (Future<TransactionResponse> future : futures) {
+            responses.add(future.get(1, TimeUnit.MINUTES));
+        }
+        pool.shutdown();
+
+        responses.forEach(response -> assertEquals(responses.get(0), response));
+        assertEquals(0, new BigDecimal("125.00").compareTo(responses.get(0).getBalanceAfter()));
+        assertEquals(0, new BigDecimal("125.00").compareTo(accountService.getBalance(account.getAccountNumber())));
+        assertEquals(1, transactionRepository.findByAccountId(account.getId()).size());
+        // The first request only inserts the key; it never reads the table
+        assertEquals(0, statistics.getEntityStatistics(IdempotencyRecord.class.getName()).getLoadCount());
+    }
+
+    @Test
+    void replayAfterTheInMemoryEntryExpiredIsServedFromTheTable() {
+        Account account = testAccounts.createAccount("idem", OPENING_BALANCE);
+        String key = UUID.randomUUID().toString();
+
+        TransactionResponse original = transactionService.withdraw(request(account, "100.00"), USER, key);
+        forgetInMemoryKeys();
+
+        // The account is empty now, so only the stored result can answer the retry
+        TransactionResponse replay = transactionService.withdraw(request(account, "100.00"), USER, key);
+
+        assertEquals(original.getAccountNumber(), replay.getAccountNumber());
+        assertEquals(original.getType(), replay.getType());
+        assertEquals(0, original.getAmount().compareTo(replay.getAmount()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(replay.getBalanceAfter()));
+        assertEquals(1, transactionRepository.findByAccountId(account.getId()).size());
+    }
+
+    @Test
+    void keyReusedForADifferentRequestIsRejected() {
+        Account account = testAccounts.createAccount("idem", OPENING_BALANCE);
+        String key = UUID.randomUUID().toString();
+        transactionService.deposit(request(account, "10.00"), USER, key);
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> transactionService.deposit(request(account, "11.00"), USER, key));
+        assertEquals("Idempotency-Key was already used for a different request", ex.getMessage());
+
+        forgetInMemoryKeys();
+        ex = assertThrows(RuntimeException.class,
+                () -> transactionService.withdraw(request(account, "10.00"), USER, key));
+        assertEquals("Idempotency-Key was already used for a different request", ex.getMessage());
+        assertEquals(1, transactionRepository.findByAccountId(account.getId()).size());
+    }
+
+    @Test
+    void failedPostingCanBeRetriedWithTheSameKey() {
+        Account account = testAccounts.createAccount("idem", OPENING_BALANCE);
+        String key = UUID.randomUUID().toString();
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> transactionService.withdraw(request(account, "150.00"), USER, key));
+        assertEquals("Insufficient balance", ex.getMessage());
+
+        transactionService.deposit(request(account, "50.00"));
+        TransactionResponse retry = transactionService.withdraw(request(account, "150.00"), USER, key);
+        assertEquals(0, BigDecimal.ZERO.compareTo(retry.getBalanceAfter()));
+    }
+
+    @Test
+    void sameKeyFromAnotherUserIsADifferentRequest() {
+        Account account = testAccounts.createAccount("idem", OPENING_BALANCE);
+        String key = UUID.randomUUID().toString();
+
+        transactionService.deposit(request(account, "10.00"), USER, key);
+        TransactionResponse other = transactionService.deposit(request(account, "10.00"), "other-user", key);
+        forgetInMemoryKeys();
+        TransactionResponse otherAmount = transactionService.deposit(request(account, "20.00"), "third-user", key);
+
+        assertEquals(0, new BigDecimal("120.00").compareTo(other.getBalanceAfter()));
+        assertEquals(0, new BigDecimal("140.00").compareTo(otherAmount.getBalanceAfter()));
+        assertEquals(3, transactionRepository.findByAccountId(account.getId()).size());
+    }
+
+    @Test
+    void duplicateOfAStuckRequestGivesUpAfterTheWaitTimeout() throws Exception {
+        Account account = testAccounts.createAccount("idem", OPENING_BALANCE);
+        String key = UUID.randomUUID().toString();
+        TransactionRequest request = request(account, "10.00");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        ReflectionTestUtils.setField(idempotencyService, "waitTimeoutMs", 200L);
+        try {
+            Future<TransactionResponse> original = pool.submit(() ->
+                    idempotencyService.execute(USER, key, BalanceEngine.DEPOSIT, request, () -> {
+                        started.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return new TransactionResponse(account.getAccountNumber(), BalanceEngine.DEPOSIT,
+                                request.getAmount(), new BigDecimal("110.00"));
+                    }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            long before = System.nanoTime();
+            ServiceBusyException ex = assertThrows(ServiceBusyException.class,
+                    () -> transactionService.deposit(request, USER, key));
+            assertTrue(System.nanoTime() - before < TimeUnit.SECONDS.toNanos(2));
+            assertEquals(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS, ex.getCode());
+
+            // Once the original is done, a retry with the same key gets its result
+            release.countDown();
+            TransactionResponse response = original.get(5, TimeUnit.SECONDS);
+            assertEquals(response, transactionService.deposit(request, USER, key));
+        } finally {
+            release.countDown();
+            pool.shutdown();
+            ReflectionTestUtils.setField(idempotencyService, "waitTimeoutMs", 5000L);
+        }
+    }
+
+    @Test
+    void purgeDeletesOnlyKeysOlderThanTheRetention() {
+        Account account = testAccounts.createAccount("idem", OPENING_BALANCE);
+        String stale = UUID.randomUUID().toString();
+        String fresh = UUID.randomUUID().toString();
+        transactionService.deposit(request(account, "10.00"), USER, stale);
+        transactionService.deposit(request(account, "10.00"), USER, fresh);
+        IdempotencyRecord staleRecord = idempotencyRecordRepository.findById(new IdempotencyRecord.Key(USER, stale))
+                .orElseThrow();
+        staleRecord.setCreatedAt(LocalDateTime.now().minusDays(2));
+        idempotencyRecordRepository.save(staleRecord);
+
+        assertTrue(idempotencyService.purgeExpired() >= 1);
+
+        assertFalse(idempotencyRecordRepository.existsById(new IdempotencyRecord.Key(USER, stale)));
+        assertTrue(idempotencyRecordRepository.existsById(new IdempotencyRecord.Key(USER, fresh)));
+    }
+
+    private void forgetInMemoryKeys() {
+        ((Cache<?, ?>) ReflectionTestUtils.getField(idempotencyService, "entries")).invalidateAll();
+    }
+
+    private TransactionRequest request(Account account, String amount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setAccountNumber(account.getAccountNumber());
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+}
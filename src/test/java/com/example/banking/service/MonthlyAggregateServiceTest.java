@@ -0,0 +1,180 @@
+package com.example.banking.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.example.banking.TestAccounts;
+import com.example.banking.dto.BatchTransactionItem;
+import com.example.banking.dto.TransactionRequest;
+import com.example.banking.dto.TransferRequest;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.AccountMonthlyAggregate;
+import com.example.banking.repository.AccountMonthlyAggregateRepository;
+import com.example.banking.repository.MaintenanceMarkerRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class MonthlyAggregateServiceTest {
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private MonthlyAggregateService monthlyAggregateService;
+
+    @Autowired
+    private AccountMonthlyAggregateRepository aggregateRepository;
+
+    @Autowired
+    private MaintenanceMarkerRepository maintenanceMarkerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void postingsKeepTheAggregatesEqualToARebuildFromTheLedger() {
+        Account plain = testAccounts.createAccount("agg");
+        Account striped = testAccounts.createAccount("agg");
+        accountService.configureStripes(striped.getAccountNumber(), 4);
+
+        for (int i = 1; i <= 20; i++) {
+            transactionService.deposit(request(plain, i + ".00"));
+            transactionService.deposit(request(striped, i + ".50"));
+        }
+        transactionService.withdraw(request(plain, "7.00"));
+        transactionService.withdraw(request(striped, "150.00"));
+        TransferRequest transfer = new TransferRequest();
+        transfer.setFromAccountNumber(plain.getAccountNumber());
+        transfer.setToAccountNumber(striped.getAccountNumber());
+        transfer.setAmount(new BigDecimal("33.00"));
+        transactionService.transfer(transfer);
+        transactionService.processBatch(List.of(
+                BatchTransactionItem.builder().type("DEPOSIT").accountNumber(plain.getAccountNumber())
+                        .amount(new BigDecimal("0.25")).build(),
+                BatchTransactionItem.builder().type("WITHDRAWAL").accountNumber(plain.getAccountNumber())
+                        .amount(new BigDecimal("999.00")).build()));
+
+        YearMonth period = YearMonth.now();
+        long[] plainLive = totals(plain, period);
+        long[] stripedLive = totals(striped, period);
+        // Credits to the striped account are spread over the slots of their stripes
+        assertTrue(rowsOf(striped) > 1);
+
+        monthlyAggregateService.rebuild(period);
+
+        assertEquals(1, rowsOf(striped));
+        assertArrayEquals(plainLive, totals(plain, period));
+        assertArrayEquals(stripedLive, totals(striped, period));
+        // 20 deposits and the batch deposit, 2 withdrawals (the rejected batch item is not counted)
+        assertEquals(21, plainLive[0]);
+        assertEquals(2, plainLive[2]);
+        assertEquals(21000 + 25, plainLive[1]);
+    }
+
+    @Test
+    void backfillRunsOnlyOnTheInstanceThatClaimsIt() {
+        String marker = "test-" + UUID.randomUUID();
+        assertEquals(1, maintenanceMarkerRepository.claim(marker, LocalDateTime.now()));
+        assertEquals(0, maintenanceMarkerRepository.claim(marker, LocalDateTime.now()));
+
+        Account account = testAccounts.createAccount("agg");
+        transactionService.deposit(request(account, "10.00"));
+        // Another instance has claimed the backfill, so an empty table stays empty here
+        maintenanceMarkerRepository.claim(MonthlyAggregateService.BACKFILL_MARKER, LocalDateTime.now());
+        aggregateRepository.deleteAll();
+        try {
+            monthlyAggregateService.backfill();
+            assertEquals(0, aggregateRepository.count());
+        } finally {
+            monthlyAggregateService.rebuildAll();
+        }
+        assertEquals(1, rowsOf(account));
+    }
+
+    @Test
+    void rebuildSeeksTheTransactionTimeIndex() {
+        Logger sqlLogger = (Logger) LoggerFactory.getLogger("org.hibernate.SQL");
+        Level previousLevel = sqlLogger.getLevel();
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        sqlLogger.addAppender(appender);
+        sqlLogger.setLevel(Level.DEBUG);
+        try {
+            monthlyAggregateService.rebuild(YearMonth.of(2024, 2));
+        } finally {
+            sqlLogger.setLevel(previousLevel);
+            sqlLogger.detachAppender(appender);
+        }
+        String insert = appender.list.stream()
+                .map(ILoggingEvent::getFormattedMessage)
+                .filter(sql -> sql.trim().toLowerCase().startsWith("insert"))
+                .findFirst()
+                .orElseThrow();
+
+        String bound = insert.replaceFirst("\\?", "2024").replaceFirst("\\?", "2")
+                .replaceFirst("\\?", "TIMESTAMP '2024-02-01 00:00:00'")
+                .replaceFirst("\\?", "TIMESTAMP '2024-03-01 00:00:00'");
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + bound, String.class)).toLowerCase();
+        assertTrue(plan.contains("idx_transactions_time"), plan);
+    }
+
+    /**
+     * @return deposit count, deposit total, withdrawal count, withdrawal total, min and max of the
+     * month summed over all slots, amounts in cents
+     */
+    private long[] totals(Account account, YearMonth period) {
+        long[] totals = new long[6];
+        totals[4] = Long.MAX_VALUE;
+        for (AccountMonthlyAggregate row : aggregateRepository.findAll()) {
+            if (!row.getAccount().getId().equals(account.getId())
+                    || row.getPeriodYear() != period.getYear() || row.getPeriodMonth() != period.getMonthValue()) {
+                continue;
+            }
+            totals[0] += row.getDepositCount();
+            totals[1] += cents(row.getDepositTotal());
+            totals[2] += row.getWithdrawalCount();
+            totals[3] += cents(row.getWithdrawalTotal());
+            totals[4] = Math.min(totals[4], cents(row.getMinAmount()));
+            totals[5] = Math.max(totals[5], cents(row.getMaxAmount()));
+        }
+        return totals;
+    }
+
+    private long rowsOf(Account account) {
+        return aggregateRepository.findAll().stream()
+                .filter(row -> row.getAccount().getId().equals(account.getId()))
+                .count();
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    private TransactionRequest request(Account account, String amount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setAccountNumber(account.getAccountNumber());
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.banking.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartitionedReportEngineTest {
+
+    private static final int PARALLELISM = 3;
+
+    private final PartitionedReportEngine engine = new PartitionedReportEngine();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(engine, "parallelism", PARALLELISM);
+        ReflectionTestUtils.setField(engine, "partitionSize", 7);
+        engine.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.stop();
+    }
+
+    @Test
+    void rangesAreGeneratedConcurrentlyAndMergedInIdOrder() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicInteger pieces = new AtomicInteger();
+
+        List<Long> ids = engine.generate(5L, 1000L, (afterId, lastId) -> {
+            assertTrue(lastId - afterId <= 7);
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            pieces.incrementAndGet();
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return LongStream.rangeClosed(afterId + 1, lastId).boxed().toList();
+        });
+
+        assertEquals(LongStream.rangeClosed(5, 1000).boxed().toList(), ids);
+        assertTrue(pieces.get() >= 996 / 7);
+        assertTrue(peak.get() > 1 && peak.get() <= PARALLELISM, "peak concurrency was " + peak.get());
+    }
+
+    @Test
+    void aFailedPieceSkipsThePiecesNotYetStartedAndIsRethrown() {
+        IllegalStateException failure = new IllegalStateException("piece failed");
+        AtomicInteger pieces = new AtomicInteger();
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () ->
+                engine.generate(1L, 1000L, (afterId, lastId) -> {
+                    if (pieces.incrementAndGet() == 1) {
+                        throw failure;
+                    }
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return List.of(lastId);
+                }));
+
+        assertSame(failure, thrown);
+        // Only pieces already running on the other workers may still complete
+        assertTrue(pieces.get() <= PARALLELISM, "pieces generated: " + pieces.get());
+    }
+
+    @Test
+    void noCustomersGiveAnEmptyReport() {
+        assertEquals(List.of(), engine.generate(null, null, (afterId, lastId) -> List.of(afterId)));
+    }
+}
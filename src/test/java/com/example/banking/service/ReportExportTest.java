@@ -0,0 +1,136 @@
+package com.example.banking.service;
+
+import com.example.banking.TestAccounts;
+import com.example.banking.dto.MonthlyTransactionReportDTO;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.Transaction;
+import com.example.banking.repository.TransactionRepository;
+import com.example.banking.util.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "app.reports.export.chunk-size=" + ReportExportTest.CHUNK_SIZE)
+class ReportExportTest {
+
+    static final int CHUNK_SIZE = 100;
+
+    private static final int MONTH = 11;
+    private static final int YEAR = 2023;
+    private static final int CUSTOMERS = 2000;
+    private static final int TRANSACTIONS_PER_CUSTOMER = 40;
+    private static final long HEAP_BUDGET_BYTES = 8L * 1024 * 1024;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MonthlyAggregateService monthlyAggregateService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void exportKeepsHeapBoundedByTheChunkSize() throws Exception {
+        seed();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        long baseline = retainedHeap(memory);
+        AtomicInteger customers = new AtomicInteger();
+        AtomicInteger transactions = new AtomicInteger();
+        AtomicLong peak = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        OutputStream counting = new OutputStream() {
+            @Override
+            public void write(int b) {
+                bytes.incrementAndGet();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                bytes.addAndGet(len);
+            }
+        };
+
+        try (NdjsonWriter writer = new NdjsonWriter(objectMapper, counting)) {
+            reportService.exportMonthlyReport(MONTH, YEAR, row -> {
+                // Sample once per chunk, while the whole chunk is still reachable
+                if (customers.getAndIncrement() % CHUNK_SIZE == 0) {
+                    peak.accumulateAndGet(retainedHeap(memory), Math::max);
+                }
+                transactions.addAndGet(row.getTransactions().size());
+                writer.write(row);
+            });
+        }
+
+        assertEquals(CUSTOMERS, customers.get());
+        assertEquals(CUSTOMERS * TRANSACTIONS_PER_CUSTOMER, transactions.get());
+        long retained = peak.get() - baseline;
+        assertTrue(retained < HEAP_BUDGET_BYTES,
+                "export retained " + retained + " bytes, budget is " + HEAP_BUDGET_BYTES);
+
+        // The same report built in one piece does not fit the budget, so the bound above is meaningful
+        long before = retainedHeap(memory);
+        List<MonthlyTransactionReportDTO> report = reportService.getMonthlyReport(MONTH, YEAR);
+        long whole = retainedHeap(memory) - before;
+        assertEquals(CUSTOMERS, report.size());
+        assertTrue(whole > HEAP_BUDGET_BYTES, "full report retained only " + whole + " bytes");
+        assertTrue(bytes.get() > whole / 4, "export wrote only " + bytes.get() + " bytes");
+    }
+
+    private static long retainedHeap(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private void seed() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        LocalDateTime inMonth = LocalDateTime.of(YEAR, MONTH, 1, 9, 0);
+        for (int from = 0; from < CUSTOMERS; from += CHUNK_SIZE) {
+            int first = from;
+            tx.executeWithoutResult(status -> {
+                List<Transaction> ledger = new ArrayList<>();
+                for (int i = first; i < first + CHUNK_SIZE; i++) {
+                    Account account = testAccounts.createAccount("exp", "SAVINGS", BigDecimal.ZERO);
+                    for (int t = 0; t < TRANSACTIONS_PER_CUSTOMER; t++) {
+                        ledger.add(Transaction.builder()
+                                .account(account)
+                                .type(t % 4 == 3 ? BalanceEngine.WITHDRAWAL : BalanceEngine.DEPOSIT)
+                                .amount(new BigDecimal(t + 1 + ".25"))
+                                .description("Synthetic export row " + t + " for customer " + i)
+                                .transactionTime(inMonth.plusHours(t))
+                                .build());
+                    }
+                }
+                transactionRepository.saveAll(ledger);
+            });
+        }
+        monthlyAggregateService.rebuild(YearMonth.of(YEAR, MONTH));
+    }
+}
@@ -0,0 +1,307 @@
+package com.example.banking.service;
+
+import com.example.banking.TestAccounts;
+import com.example.banking.dto.MonthlyReportRequestDTO;
+import com.example.banking.dto.MonthlyTransactionReportDTO;
+import com.example.banking.dto.ReportJobResponse;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.Customer;
+import com.example.banking.entity.ReportJob;
+import com.example.banking.entity.Transaction;
+import com.example.banking.exception.ServiceBusyException;
+import com.example.banking.repository.CustomerRepository;
+import com.example.banking.repository.ReportJobRepository;
+import com.example.banking.repository.TransactionRepository;
+import com.example.banking.repository.projection.CustomerIdBounds;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+
+@SpringBootTest(properties = {
+        "app.reports.jobs.threads=1",
+        "app.reports.jobs.queue-capacity=1",
+        "app.reports.partition-size=2",
+        "app.reports.parallelism=1"
+})
+class ReportJobServiceTest {
+
+    private static final int MONTH = 6;
+    private static final int YEAR = 2022;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @MockitoSpyBean
+    private ReportService reportService;
+
+    @MockitoSpyBean
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ReportJobRepository reportJobRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MonthlyAggregateService monthlyAggregateService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void jobsAreDedupedBoundedAndWrittenInCustomerOrder() throws Exception {
+        List<Customer> customers = seedCustomers(7);
+        Customer filtered = customers.get(3);
+
+        // Hold every job in its first range until all submissions are done
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return invocation.callRealMethod();
+        }).when(reportService).getMonthlyReportForRange(anyInt(), anyInt(), anyLong(), anyLong());
+
+        ReportJobResponse all = reportJobService.submit(request(null));
+        ReportJobResponse duplicate = reportJobService.submit(request(null));
+        ReportJobResponse single = reportJobService.submit(request(filtered.getId()));
+        // One job runs, one is queued, so a third distinct request does not fit
+        assertThrows(ServiceBusyException.class, () -> reportJobService.submit(request(customers.get(0).getId())));
+        release.countDown();
+
+        assertEquals(all.getJobId(), duplicate.getJobId());
+        assertNotEquals(all.getJobId(), single.getJobId());
+
+        List<MonthlyTransactionReportDTO> expected = reportService.getMonthlyReport(MONTH, YEAR);
+        List<MonthlyTransactionReportDTO> rows = readResult(awaitCompletion(all.getJobId()));
+        assertEquals(expected.size(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(expected.get(i).getCustomerId(), rows.get(i).getCustomerId());
+            assertEquals(expected.get(i).getTransactions().size(), rows.get(i).getTransactions().size());
+            assertEquals(0, expected.get(i).getTotalDeposit().compareTo(rows.get(i).getTotalDeposit()));
+        }
+
+        List<MonthlyTransactionReportDTO> filteredRows = readResult(awaitCompletion(single.getJobId()));
+        assertEquals(1, filteredRows.size());
+        assertEquals(filtered.getId(), filteredRows.get(0).getCustomerId());
+        assertEquals(2, filteredRows.get(0).getTransactions().size());
+        assertEquals(0, new BigDecimal("140.00").compareTo(filteredRows.get(0).getTotalDeposit()));
+
+        // Only jobs in progress are shared; a finished one is not reused
+        assertNotEquals(all.getJobId(), reportJobService.submit(request(null)).getJobId());
+    }
+
+    @Test
+    void aReportWithoutCustomersIsAnEmptyGzipFile() throws Exception {
+        // The customers table is never empty here, so stand in an empty one
+        doReturn(new CustomerIdBounds() {
+            @Override
+            public Long getMinId() {
+                return null;
+            }
+
+            @Override
+            public Long getMaxId() {
+                return null;
+            }
+        }).when(customerRepository).findIdBounds();
+
+        ReportJobResponse job = awaitCompletion(reportJobService.submit(request(null, MONTH + 2)).getJobId());
+
+        assertEquals(0, job.getCustomers());
+        assertTrue(job.getSizeBytes() > 0);
+        assertEquals(List.of(), readResult(job));
+    }
+
+    @Test
+    void aFailedRangeCancelsTheRangesNotYetStarted() throws Exception {
+        seedCustomers(8);
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("range failed");
+            }
+            Thread.sleep(200);
+            return invocation.callRealMethod();
+        }).when(reportService).getMonthlyReportForRange(anyInt(), anyInt(), anyLong(), anyLong());
+
+        ReportJobResponse job = awaitFinished(reportJobService.submit(request(null, MONTH + 1)).getJobId());
+        assertEquals(ReportJobService.FAILED, job.getStatus());
+        assertEquals("range failed", job.getError());
+
+        // At least four ranges of two ids; only a range already in progress on the single worker may still run
+        Thread.sleep(500);
+        assertTrue(calls.get() <= 2, "ranges started after the failure: " + (calls.get() - 1));
+    }
+
+    @Test
+    void aJobFailedAsStaleWhileRunningIsNotCompletedByItsOwner() throws Exception {
+        seedCustomers(1);
+        // Another instance fails the job while its owner is still generating it, as after a long pause
+        doAnswer(invocation -> {
+            LocalDateTime now = LocalDateTime.now();
+            reportJobRepository.failStale("Interrupted by a restart, please resubmit", now, now.plusMinutes(1));
+            return invocation.callRealMethod();
+        }).when(reportService).getMonthlyReportForRange(anyInt(), anyInt(), anyLong(), anyLong());
+
+        String jobId = reportJobService.submit(request(null, MONTH + 3)).getJobId();
+        for (int i = 0; i < 300 && (Boolean) ReflectionTestUtils.invokeMethod(reportJobService, "isInFlight", jobId); i++) {
+            Thread.sleep(100);
+        }
+
+        ReportJobResponse job = reportJobService.getStatus(jobId);
+        assertEquals(ReportJobService.FAILED, job.getStatus());
+        assertEquals("Interrupted by a restart, please resubmit", job.getError());
+        Path outputDir = (Path) ReflectionTestUtils.getField(reportJobService, "outputDir");
+        assertFalse(Files.exists(outputDir.resolve(jobId + ".ndjson.gz")));
+    }
+
+    @Test
+    void onlyJobsWithAStaleHeartbeatAreFailedAsInterrupted() {
+        LocalDateTime now = LocalDateTime.now();
+        ReportJob stale = saveJob(ReportJobService.RUNNING, now.minusMinutes(10), null);
+        ReportJob alive = saveJob(ReportJobService.QUEUED, now.minusSeconds(5), null);
+        ReportJob done = saveJob(ReportJobService.COMPLETED, now.minusMinutes(10), now.minusMinutes(10));
+
+        reportJobService.failInterruptedJobs();
+
+        assertEquals(ReportJobService.FAILED, reportJobService.getStatus(stale.getId()).getStatus());
+        assertEquals(ReportJobService.QUEUED, reportJobService.getStatus(alive.getId()).getStatus());
+        assertEquals(ReportJobService.COMPLETED, reportJobService.getStatus(done.getId()).getStatus());
+    }
+
+    @Test
+    void expiredJobsAndTheirResultsArePurged() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        ReportJob expired = saveJob(ReportJobService.COMPLETED, now.minusDays(2), now.minusDays(2));
+        ReportJob recent = saveJob(ReportJobService.COMPLETED, now.minusHours(1), now.minusHours(1));
+        ReportJob running = saveJob(ReportJobService.RUNNING, now, null);
+        Path outputDir = (Path) ReflectionTestUtils.getField(reportJobService, "outputDir");
+        Path expiredResult = Files.writeString(outputDir.resolve(expired.getId() + ".ndjson.gz"), "");
+        Path orphanedPart = Files.writeString(outputDir.resolve(UUID.randomUUID() + ".part0"), "");
+        Path recentResult = Files.writeString(outputDir.resolve(recent.getId() + ".ndjson.gz"), "");
+        FileTime twoDaysAgo = FileTime.from(Instant.now().minus(2, ChronoUnit.DAYS));
+        Files.setLastModifiedTime(expiredResult, twoDaysAgo);
+        Files.setLastModifiedTime(orphanedPart, twoDaysAgo);
+
+        reportJobService.purgeExpired();
+
+        assertFalse(reportJobRepository.existsById(expired.getId()));
+        assertFalse(Files.exists(expiredResult));
+        assertFalse(Files.exists(orphanedPart));
+        assertTrue(reportJobRepository.existsById(recent.getId()));
+        assertTrue(reportJobRepository.existsById(running.getId()));
+        assertEquals(recentResult, reportJobService.getResult(recent.getId()));
+    }
+
+    private ReportJob saveJob(String status, LocalDateTime heartbeatAt, LocalDateTime completedAt) {
+        return reportJobRepository.save(ReportJob.builder()
+                .id(UUID.randomUUID().toString())
+                .status(status)
+                .periodYear(YEAR)
+                .periodMonth(MONTH)
+                .createdAt(heartbeatAt)
+                .ownerId("another-instance")
+                .heartbeatAt(heartbeatAt)
+                .completedAt(completedAt)
+                .build());
+    }
+
+    private ReportJobResponse awaitCompletion(String jobId) throws InterruptedException {
+        ReportJobResponse job = awaitFinished(jobId);
+        if (ReportJobService.FAILED.equals(job.getStatus())) {
+            fail("Report job failed: " + job.getError());
+        }
+        return job;
+    }
+
+    private ReportJobResponse awaitFinished(String jobId) throws InterruptedException {
+        for (int i = 0; i < 300; i++) {
+            ReportJobResponse job = reportJobService.getStatus(jobId);
+            if (ReportJobService.COMPLETED.equals(job.getStatus()) || ReportJobService.FAILED.equals(job.getStatus())) {
+                return job;
+            }
+            Thread.sleep(100);
+        }
+        return fail("Report job did not finish in time");
+    }
+
+    private List<MonthlyTransactionReportDTO> readResult(ReportJobResponse job) throws Exception {
+        List<MonthlyTransactionReportDTO> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(reportJobService.getResult(job.getJobId()))),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                rows.add(objectMapper.readValue(line, MonthlyTransactionReportDTO.class));
+            }
+        }
+        assertEquals(job.getCustomers(), rows.size());
+        return rows;
+    }
+
+    private MonthlyReportRequestDTO request(Long customerId) {
+        return request(customerId, MONTH);
+    }
+
+    private MonthlyReportRequestDTO request(Long customerId, int month) {
+        return new MonthlyReportRequestDTO(customerId, YEAR, month);
+    }
+
+    private List<Customer> seedCustomers(int count) {
+        List<Customer> customers = new ArrayList<>();
+        LocalDateTime inMonth = LocalDateTime.of(YEAR, MONTH, 15, 10, 0);
+        for (int i = 0; i < count; i++) {
+            Account account = testAccounts.createAccount("job", "SAVINGS", BigDecimal.ZERO);
+            transactionRepository.saveAll(List.of(
+                    ledgerRow(account, "100.00", inMonth),
+                    ledgerRow(account, "40.00", inMonth.plusDays(1))));
+            customers.add(account.getCustomer());
+        }
+        monthlyAggregateService.rebuild(YearMonth.of(YEAR, MONTH));
+        return customers;
+    }
+
+    private Transaction ledgerRow(Account account, String amount, LocalDateTime time) {
+        return Transaction.builder()
+                .account(account)
+                .type(BalanceEngine.DEPOSIT)
+                .amount(new BigDecimal(amount))
+                .transactionTime(time)
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.banking.service;
+
+import com.example.banking.TestAccounts;
+import com.example.banking.dto.MonthlyTransactionReportDTO;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.CustomerAddress;
+import com.example.banking.entity.Transaction;
+import com.example.banking.repository.CustomerAddressRepository;
+import com.example.banking.repository.TransactionRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ReportServiceTest {
+
+    private static final int MONTH = 2;
+    private static final int YEAR = 2024;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private CustomerAddressRepository addressRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MonthlyAggregateService monthlyAggregateService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void monthlyReportUsesConstantNumberOfStatements() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        seedCustomers(3);
+        statistics.clear();
+        reportService.getMonthlyReport(MONTH, YEAR);
+        long fewCustomers = statistics.getPrepareStatementCount();
+
+        seedCustomers(30);
+        statistics.clear();
+        List<MonthlyTransactionReportDTO> report = reportService.getMonthlyReport(MONTH, YEAR);
+        long manyCustomers = statistics.getPrepareStatementCount();
+
+        // The id bounds, then five queries for the single id range these customers fall into
+        assertTrue(fewCustomers <= 6, "expected at most 6 statements but was " + fewCustomers);
+        assertEquals(fewCustomers, manyCustomers);
+
+        MonthlyTransactionReportDTO last = report.get(report.size() - 1);
+        assertEquals(1, last.getAddresses().size());
+        assertEquals(1, last.getAccounts().size());
+        assertEquals(3, last.getTransactions().size());
+        assertEquals(0, new BigDecimal("150.00").compareTo(last.getTotalDeposit()));
+        assertEquals(0, new BigDecimal("20.00").compareTo(last.getTotalWithdrawal()));
+    }
+
+    private void seedCustomers(int count) {
+        for (int i = 0; i < count; i++) {
+            Account account = testAccounts.createAccount("rpt", "SAVINGS", new BigDecimal("130.00"));
+            addressRepository.save(CustomerAddress.builder()
+                    .customer(account.getCustomer())
+                    .addressLine1("1 Main Street")
+                    .city("Springfield")
+                    .addressType("HOME")
+                    .build());
+
+            LocalDateTime inMonth = LocalDateTime.of(YEAR, MONTH, 10, 12, 0);
+            transactionRepository.saveAll(List.of(
+                    ledgerRow(account, BalanceEngine.DEPOSIT, "100.00", inMonth),
+                    ledgerRow(account, BalanceEngine.DEPOSIT, "50.00", inMonth.plusDays(1)),
+                    ledgerRow(account, BalanceEngine.WITHDRAWAL, "20.00", inMonth.plusDays(2)),
+                    ledgerRow(account, BalanceEngine.DEPOSIT, "999.00", inMonth.plusMonths(1))));
+        }
+        // The rows bypass the BalanceEngine, so backfill their aggregates like imported ledger data
+        monthlyAggregateService.rebuild(YearMonth.of(YEAR, MONTH));
+    }
+
+    private Transaction ledgerRow(Account account, String type, String amount, LocalDateTime time) {
+        return Transaction.builder()
+                .account(account)
+                .type(type)
+                .amount(new BigDecimal(amount))
+                .transactionTime(time)
+                .build();
+    }
+}
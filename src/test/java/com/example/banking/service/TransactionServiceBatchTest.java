@@ -0,0 +1,156 @@
+package com.example.banking.service;
+
+import com.example.banking.TestAccounts;
+import com.example.banking.dto.BatchTransactionItem;
+import com.example.banking.dto.BatchTransactionResult;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.Transaction;
+import com.example.banking.exception.ErrorCode;
+import com.example.banking.exception.InvalidRequestException;
+import com.example.banking.repository.TransactionRepository;
+import com.example.banking.util.AccountNumbers;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class TransactionServiceBatchTest {
+
+    private static final int CHUNK_SIZE = 3;
+    private static final int MAX_ITEMS = 10;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Object previousChunkSize;
+
+    private Object previousMaxItems;
+
+    @BeforeEach
+    void limitBatches() {
+        previousChunkSize = ReflectionTestUtils.getField(transactionService, "batchChunkSize");
+        previousMaxItems = ReflectionTestUtils.getField(transactionService, "batchMaxItems");
+        ReflectionTestUtils.setField(transactionService, "batchChunkSize", CHUNK_SIZE);
+        ReflectionTestUtils.setField(transactionService, "batchMaxItems", MAX_ITEMS);
+    }
+
+    @AfterEach
+    void restoreLimits() {
+        ReflectionTestUtils.setField(transactionService, "batchChunkSize", previousChunkSize);
+        ReflectionTestUtils.setField(transactionService, "batchMaxItems", previousMaxItems);
+    }
+
+    @Test
+    void batchIsAppliedChunkByChunkAndFailedItemsDoNotAffectTheirChunk() {
+        Account funded = testAccounts.createAccount("batch", new BigDecimal("100.00"));
+        Account empty = testAccounts.createAccount("batch", BigDecimal.ZERO);
+        // Well-formed, but never allocated
+        String unknown = AccountNumbers.format(AccountNumbers.MAX_VALUE);
+
+        List<BatchTransactionItem> items = List.of(
+                item("DEPOSIT", funded, "10.00"),
+                item("WITHDRAWAL", empty, "5.00"),
+                BatchTransactionItem.builder().type("DEPOSIT").accountNumber(unknown).amount(BigDecimal.ONE).build(),
+                item("TRANSFER", funded, "1.00"),
+                item("DEPOSIT", funded, "-1.00"),
+                item("withdrawal", funded, "50.00"),
+                item("DEPOSIT", empty, "20.00"),
+                item("WITHDRAWAL", empty, "15.00"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        List<BatchTransactionResult> results = transactionService.processBatch(items);
+
+        // 8 items in chunks of 3
+        assertEquals(3, statistics.getSuccessfulTransactionCount());
+        assertEquals(items.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+        assertEquals(Arrays.asList(null, ErrorCode.INSUFFICIENT_BALANCE, ErrorCode.ACCOUNT_NOT_FOUND,
+                        ErrorCode.UNSUPPORTED_TRANSACTION_TYPE, ErrorCode.INVALID_AMOUNT, null, null, null),
+                results.stream().map(BatchTransactionResult::getErrorCode).toList());
+        assertEquals(List.of(true, false, false, false, false, true, true, true),
+                results.stream().map(BatchTransactionResult::isSuccess).toList());
+        assertBalance("110.00", results.get(0).getBalanceAfter());
+        assertNull(results.get(1).getBalanceAfter());
+        assertEquals("WITHDRAWAL", results.get(5).getType());
+        assertBalance("60.00", results.get(5).getBalanceAfter());
+        assertBalance("20.00", results.get(6).getBalanceAfter());
+        assertBalance("5.00", results.get(7).getBalanceAfter());
+
+        assertLedgerMatchesBalance(funded, new BigDecimal("100.00"), 2);
+        assertLedgerMatchesBalance(empty, BigDecimal.ZERO, 2);
+    }
+
+    @Test
+    void emptyAndOversizedBatchesAreRefusedBeforeAnyWrite() {
+        Account account = testAccounts.createAccount("batch", BigDecimal.ZERO);
+        List<BatchTransactionItem> oversized = new ArrayList<>();
+        for (int i = 0; i <= MAX_ITEMS; i++) {
+            oversized.add(item("DEPOSIT", account, "1.00"));
+        }
+
+        InvalidRequestException tooMany = assertThrows(InvalidRequestException.class,
+                () -> transactionService.processBatch(oversized));
+        assertEquals(ErrorCode.INVALID_REQUEST, tooMany.getCode());
+        assertThrows(InvalidRequestException.class, () -> transactionService.processBatch(List.of()));
+        assertThrows(InvalidRequestException.class, () -> transactionService.processBatch(null));
+
+        assertEquals(0, transactionRepository.findByAccountId(account.getId()).size());
+        assertEquals(MAX_ITEMS, transactionService.processBatch(oversized.subList(0, MAX_ITEMS)).size());
+        assertLedgerMatchesBalance(account, BigDecimal.ZERO, MAX_ITEMS);
+    }
+
+    private void assertLedgerMatchesBalance(Account account, BigDecimal openingBalance, int expectedRows) {
+        BigDecimal ledgerNet = BigDecimal.ZERO;
+        List<Transaction> ledger = transactionRepository.findByAccountId(account.getId());
+        for (Transaction tx : ledger) {
+            ledgerNet = BalanceEngine.WITHDRAWAL.equals(tx.getType())
+                    ? ledgerNet.subtract(tx.getAmount())
+                    : ledgerNet.add(tx.getAmount());
+        }
+        assertEquals(expectedRows, ledger.size());
+        assertBalance(openingBalance.add(ledgerNet).toPlainString(), accountService.getBalance(account.getAccountNumber()));
+    }
+
+    private static void assertBalance(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), "expected " + expected + " but was " + actual);
+    }
+
+    private static BatchTransactionItem item(String type, Account account, String amount) {
+        return BatchTransactionItem.builder()
+                .type(type)
+                .accountNumber(account.getAccountNumber())
+                .amount(new BigDecimal(amount))
+                .description("batch test")
+                .build();
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.banking.service;
+
+import com.example.banking.TestAccounts;
+import com.example.banking.dto.TransactionRequest;
+import com.example.banking.dto.TransferRequest;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.Transaction;
+import com.example.banking.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class TransactionServiceConcurrencyTest {
+
+    private static final int THREADS = 200;
+    private static final int OPERATIONS_PER_THREAD = 5;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000.00");
+    private static final int TRANSFER_ACCOUNTS = 5;
+    private static final int TRANSFER_THREADS = 32;
+    private static final int TRANSFERS_PER_THREAD = 25;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BalanceEngine balanceEngine;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @ParameterizedTest
+    @EnumSource(BalanceEngine.Strategy.class)
+    void concurrentPostingsOnOneAccountMatchTheLedger(BalanceEngine.Strategy strategy) throws Exception {
+        Object previous = ReflectionTestUtils.getField(balanceEngine, "strategy");
+        ReflectionTestUtils.setField(balanceEngine, "strategy", strategy);
+        try {
+            Account account = testAccounts.createAccount("stress", OPENING_BALANCE);
+            int[] outcome = hammer(account);
+
+            assertLedgerMatchesBalance(account, outcome[0]);
+            if (strategy == BalanceEngine.Strategy.ATOMIC) {
+                assertEquals(0, outcome[1]);
+            } else {
+                assertTrue(outcome[0] > 0);
+            }
+        } finally {
+            ReflectionTestUtils.setField(balanceEngine, "strategy", previous);
+        }
+    }
+
+    @Test
+    void stripedAccountKeepsTotalBalanceConsistent() throws Exception {
+        Account account = testAccounts.createAccount("stress", OPENING_BALANCE);
+        accountService.configureStripes(account.getAccountNumber(), 8);
+
+        int[] outcome = hammer(account);
+
+        assertEquals(0, outcome[1]);
+        assertLedgerMatchesBalance(account, outcome[0]);
+
+        accountService.configureStripes(account.getAccountNumber(), 1);
+        assertLedgerMatchesBalance(account, outcome[0]);
+    }
+
+    @Test
+    void crossingTransfersConserveMoneyWithoutDeadlocks() throws Exception {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < TRANSFER_ACCOUNTS; i++) {
+            accounts.add(testAccounts.createAccount("stress", OPENING_BALANCE));
+        }
+
+        // A single attempt, so any deadlock abort surfaces as a rejection instead of being retried
+        Object previous = ReflectionTestUtils.getField(balanceEngine, "maxAttempts");
+        ReflectionTestUtils.setField(balanceEngine, "maxAttempts", 1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger insufficient = new AtomicInteger();
+        List<String> aborted = Collections.synchronizedList(new ArrayList<>());
+        try {
+            ExecutorService pool = Executors.newFixedThreadPool(TRANSFER_THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < TRANSFER_THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        int from = random.nextInt(TRANSFER_ACCOUNTS);
+                        int to = (from + 1 + random.nextInt(TRANSFER_ACCOUNTS - 1)) % TRANSFER_ACCOUNTS;
+                        TransferRequest request = new TransferRequest();
+                        request.setFromAccountNumber(accounts.get(from).getAccountNumber());
+                        request.setToAccountNumber(accounts.get(to).getAccountNumber());
+                        request.setAmount(BigDecimal.valueOf(random.nextInt(1, 200)));
+                        try {
+                            transactionService.transfer(request);
+                            succeeded.incrementAndGet();
+                        } catch (RuntimeException ex) {
+                            if ("Insufficient balance".equals(ex.getMessage())) {
+                                insufficient.incrementAndGet();
+                            } else {
+                                aborted.add(ex.getMessage());
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+            pool.shutdown();
+        } finally {
+            ReflectionTestUtils.setField(balanceEngine, "maxAttempts", previous);
+        }
+
+        assertEquals(List.of(), aborted);
+        assertEquals(TRANSFER_THREADS * TRANSFERS_PER_THREAD, succeeded.get() + insufficient.get());
+
+        BigDecimal total = BigDecimal.ZERO;
+        int ledgerRows = 0;
+        for (Account account : accounts) {
+            total = total.add(accountService.getBalance(account.getAccountNumber()));
+            ledgerRows += transactionRepository.findByAccountId(account.getId()).size();
+            assertLedgerMatchesBalance(account, transactionRepository.findByAccountId(account.getId()).size());
+        }
+        assertEquals(0, OPENING_BALANCE.multiply(BigDecimal.valueOf(TRANSFER_ACCOUNTS)).compareTo(total));
+        assertEquals(2 * succeeded.get(), ledgerRows);
+    }
+
+    /**
+     * Runs a mix of deposits and withdrawals on one account from many threads.
+     *
+     * @return the number of successful and rejected operations
+     */
+    private int[] hammer(Account account) throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    TransactionRequest request = new TransactionRequest();
+                    request.setAccountNumber(account.getAccountNumber());
+                    try {
+                        if ((thread + i) % 3 == 0) {
+                            request.setAmount(new BigDecimal("7.00"));
+                            transactionService.withdraw(request);
+                        } else {
+                            request.setAmount(new BigDecimal("5.00"));
+                            transactionService.deposit(request);
+                        }
+                        succeeded.incrementAndGet();
+                    } catch (RuntimeException ex) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertEquals(THREADS * OPERATIONS_PER_THREAD, succeeded.get() + rejected.get());
+        return new int[]{succeeded.get(), rejected.get()};
+    }
+
+    private void assertLedgerMatchesBalance(Account account, int expectedRows) {
+        BigDecimal ledgerNet = BigDecimal.ZERO;
+        List<Transaction> ledger = transactionRepository.findByAccountId(account.getId());
+        for (Transaction tx : ledger) {
+            ledgerNet = BalanceEngine.WITHDRAWAL.equals(tx.getType())
+                    ? ledgerNet.subtract(tx.getAmount())
+                    : ledgerNet.add(tx.getAmount());
+        }
+
+        BigDecimal finalBalance = accountService.getBalance(account.getAccountNumber());
+        assertEquals(0, OPENING_BALANCE.add(ledgerNet).compareTo(finalBalance),
+                "balance " + finalBalance + " does not match ledger net " + ledgerNet);
+        assertEquals(expectedRows, ledger.size());
+    }
+}